@@ -21,6 +21,7 @@ package org.apache.directory.api.asn1.ber;
 
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.apache.directory.api.asn1.ber.grammar.Grammar;
 import org.apache.directory.api.asn1.ber.grammar.States;
@@ -37,6 +38,9 @@ import org.apache.directory.api.asn1.ber.tlv.TLVStateEnum;
  */
 public abstract class AbstractContainer implements Asn1Container
 {
+    /** The initial depth of the TLV stack */
+    private static final int DEFAULT_TLV_STACK_DEPTH = 16;
+
     /** All the possible grammars */
     private Grammar<?> grammar;
 
@@ -52,6 +56,9 @@ public abstract class AbstractContainer implements Asn1Container
     /** The parent TLV */
     private TLV parentTLV;
 
+    /** The reusable TLVs, indexed by their depth in the PDU */
+    private TLV[] tlvStack = new TLV[DEFAULT_TLV_STACK_DEPTH];
+
     /** The grammar end transition flag */
     private boolean grammarEndAllowed;
 
@@ -215,7 +222,44 @@ public abstract class AbstractContainer implements Asn1Container
 
 
     /**
-     * Clean the container for the next usage.
+     * Gets a TLV to store the next element of the PDU, as a child of the
+     * current parent TLV. The returned TLV may be a recycled instance : it is
+     * only valid until the next element at the same depth is decoded.
+     *
+     * @return A TLV with a new id, linked to the current parent TLV
+     */
+    public TLV getNewTLV()
+    {
+        // A TLV is always deeper than its parent, so the TLV previously stored at
+        // this depth has been fully decoded and is not referenced anymore.
+        int depth = ( parentTLV == null ) ? 0 : parentTLV.getDepth() + 1;
+
+        if ( depth == tlvStack.length )
+        {
+            tlvStack = Arrays.copyOf( tlvStack, depth * 2 );
+        }
+
+        TLV newTlv = tlvStack[depth];
+
+        if ( newTlv == null )
+        {
+            newTlv = new TLV( getNewTlvId(), depth );
+            tlvStack[depth] = newTlv;
+        }
+        else
+        {
+            newTlv.reinit( getNewTlvId() );
+        }
+
+        newTlv.setParent( parentTLV );
+
+        return newTlv;
+    }
+
+
+    /**
+     * Clean the container for the next usage. The TLVs are kept to be
+     * reused when decoding the next PDU.
      */
     public void clean()
     {
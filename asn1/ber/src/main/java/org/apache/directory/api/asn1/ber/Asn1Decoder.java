@@ -63,6 +63,9 @@ public class Asn1Decoder implements TLVBerDecoderMBean
     /** The maximum number of bytes that could be used to encode the Tag */
     private int maxTagLength;
 
+    /** Flag telling if primitive values should reference the decoded buffer instead of being copied */
+    private boolean valueSlicing;
+
 
     /**
      * A public constructor of an Asn1 Decoder.
@@ -90,15 +93,26 @@ public class Asn1Decoder implements TLVBerDecoderMBean
         {
             byte octet = stream.get();
 
-            TLV tlv = new TLV( container.getNewTlvId() );
+            TLV tlv;
+
+            if ( container instanceof AbstractContainer )
+            {
+                // Get a TLV linked to its parent. It may be reused from
+                // a previously decoded TLV at the same depth
+                tlv = ( ( AbstractContainer ) container ).getNewTLV();
+            }
+            else
+            {
+                // Create a link between the current TLV with its parent
+                tlv = new TLV( container.getNewTlvId() );
+                tlv.setParent( container.getParentTLV() );
+            }
+
             tlv.setTag( octet );
 
             // Store the current TLV in the container.
             container.setCurrentTLV( tlv );
 
-            // Create a link between the current TLV with its parent
-            tlv.setParent( container.getParentTLV() );
-
             // Switch to the next state, which is the Length decoding
             container.setState( TLVStateEnum.LENGTH_STATE_START );
 
@@ -170,9 +184,9 @@ public class Asn1Decoder implements TLVBerDecoderMBean
 
         BerValue value = current.getValue();
 
-        if ( ( value != null ) && ( value.getData() != null ) )
+        if ( value != null )
         {
-            return current.getExpectedLength() == value.getData().length;
+            return current.getExpectedLength() == value.getLength();
         }
         else
         {
@@ -497,6 +511,8 @@ public class Asn1Decoder implements TLVBerDecoderMBean
      * Treat the Value part. We will distinguish two cases : - if the Tag is a
      * Primitive one, we will get the value. - if the Tag is a Constructed one,
      * nothing will be done.
+     * If the value slicing is enabled and the whole value is available in the
+     * buffer, the value will reference the buffer instead of being copied.
      * 
      * @param stream The ByteBuffer containing the PDU to decode
      * @param container The container that stores the current state,
@@ -527,6 +543,15 @@ public class Asn1Decoder implements TLVBerDecoderMBean
 
                 return END;
             }
+            else if ( valueSlicing )
+            {
+                int position = stream.position();
+                currentTlv.getValue().initSlice( stream, position, length );
+                stream.position( position + length );
+                container.setState( TLVStateEnum.TLV_STATE_DONE );
+
+                return MORE;
+            }
             else
             {
                 currentTlv.getValue().init( length );
@@ -597,7 +622,21 @@ public class Asn1Decoder implements TLVBerDecoderMBean
         }
 
         // First, we have to execute the associated action
-        container.getGrammar().executeAction( container );
+        TLV tlv = container.getCurrentTLV();
+
+        try
+        {
+            container.getGrammar().executeAction( container );
+        }
+        finally
+        {
+            // The action has copied the value if it needed it : the buffer
+            // must not be referenced anymore, even if the action failed
+            if ( valueSlicing )
+            {
+                tlv.getValue().releaseSlice();
+            }
+        }
 
         // Check if the PDU has been fully decoded.
         if ( isTLVDecoded( container ) )
@@ -860,4 +899,31 @@ public class Asn1Decoder implements TLVBerDecoderMBean
     {
         this.maxTagLength = maxTagLength;
     }
+
+
+    /**
+     * Tells if the primitive values are sliced from the decoded buffer instead of being copied.
+     *
+     * @return <code>true</code> if the value slicing is enabled
+     */
+    public boolean isValueSlicingEnabled()
+    {
+        return valueSlicing;
+    }
+
+
+    /**
+     * Enable or disable the value slicing. When enabled, a primitive value which is fully
+     * contained in the decoded buffer is not copied : the {@link BerValue} references the
+     * buffer, and the bytes are only copied if the grammar action calls
+     * {@link BerValue#getData()}. The reference is dropped as soon as the action has been
+     * executed, so the buffer can be reused by the caller once <code>decode</code> returns.
+     * Values spanning more than one buffer are always copied.
+     *
+     * @param valueSlicing <code>true</code> to enable the value slicing
+     */
+    public void setValueSlicing( boolean valueSlicing )
+    {
+        this.valueSlicing = valueSlicing;
+    }
 }
@@ -43,6 +43,15 @@ public class BerValue
     /** The current position of the last byte in the data buffer */
     private int currentPos;
 
+    /** The buffer the data is sliced from, when the value has not been copied */
+    private ByteBuffer slice;
+
+    /** The absolute position of the value in the sliced buffer */
+    private int sliceOffset;
+
+    /** The number of bytes of the sliced value */
+    private int sliceLength;
+
     /** The encoded byte for a TRUE value */
     public static final byte TRUE_VALUE = ( byte ) 0xFF;
 
@@ -133,6 +142,27 @@ public class BerValue
     {
         data = new byte[size];
         currentPos = 0;
+        slice = null;
+        sliceLength = 0;
+    }
+
+
+    /**
+     * Initialize the Value as a slice of the given buffer. No copy is done : the
+     * bytes will only be copied if {@link #getData()} is called, which must happen
+     * before the buffer content is modified.
+     *
+     * @param buffer The buffer containing the value
+     * @param offset The absolute position of the value's first byte in the buffer
+     * @param length The value's length
+     */
+    public void initSlice( ByteBuffer buffer, int offset, int length )
+    {
+        data = null;
+        currentPos = 0;
+        slice = buffer;
+        sliceOffset = offset;
+        sliceLength = length;
     }
 
 
@@ -143,20 +173,100 @@ public class BerValue
     {
         data = null;
         currentPos = 0;
+        slice = null;
+        sliceLength = 0;
+    }
+
+
+    /**
+     * Drops the reference to the sliced buffer, if the value has not been copied.
+     * The value's length is kept, but its data won't be available anymore.
+     */
+    public void releaseSlice()
+    {
+        slice = null;
+    }
+
+
+    /**
+     * Tells if the Value is a slice of the decoded buffer which has not been copied yet
+     *
+     * @return <code>true</code> if the value references the decoded buffer
+     */
+    public boolean isSlice()
+    {
+        return ( data == null ) && ( slice != null );
     }
 
 
     /**
-     * Get the Values'data
+     * Get the Values'data. If the Value is a slice of a buffer, its bytes are
+     * copied into a new byte[] the first time this method is called.
      *
      * @return Returns the data.
      */
     public byte[] getData()
     {
+        if ( ( data == null ) && ( slice != null ) )
+        {
+            data = new byte[sliceLength];
+
+            if ( slice.hasArray() )
+            {
+                System.arraycopy( slice.array(), slice.arrayOffset() + sliceOffset, data, 0, sliceLength );
+            }
+            else
+            {
+                ByteBuffer view = slice.duplicate();
+                view.position( sliceOffset );
+                view.get( data, 0, sliceLength );
+            }
+
+            slice = null;
+        }
+
         return data;
     }
 
 
+    /**
+     * Get a byte of the Value, without copying the sliced data.
+     *
+     * @param index The byte position in the Value
+     * @return The byte at the given position
+     */
+    public byte getByte( int index )
+    {
+        if ( data != null )
+        {
+            return data[index];
+        }
+
+        if ( slice == null )
+        {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return slice.get( sliceOffset + index );
+    }
+
+
+    /**
+     * @return The Value's length, which is 0 if the Value has no data
+     */
+    public int getLength()
+    {
+        if ( data != null )
+        {
+            return data.length;
+        }
+        else
+        {
+            return sliceLength;
+        }
+    }
+
+
     /**
      * Set a block of bytes in the Value
      *
@@ -911,7 +1021,11 @@ public class BerValue
         StringBuilder sb = new StringBuilder();
         sb.append( "DATA" );
 
-        if ( data != null )
+        if ( isSlice() )
+        {
+            sb.append( "[slice " ).append( sliceLength ).append( ']' );
+        }
+        else if ( data != null )
         {
             sb.append( '[' );
             sb.append( Asn1StringUtils.dumpBytes( data ) );
@@ -91,26 +91,24 @@ public final class LongDecoder
     {
         long result = 0;
 
-        byte[] bytes = value.getData();
-
-        if ( ( bytes == null ) || ( bytes.length == 0 ) )
+        if ( value.getLength() == 0 )
         {
             throw new LongDecoderException( I18n.err( I18n.ERR_00039_0_BYTES_LONG_LONG ) );
         }
 
-        if ( bytes.length > 8 )
+        if ( value.getLength() > 8 )
         {
             throw new LongDecoderException( I18n.err( I18n.ERR_00039_0_BYTES_LONG_LONG ) );
         }
 
-        for ( int i = 0; ( i < bytes.length ) && ( i < 9 ); i++ )
+        for ( int i = 0; ( i < value.getLength() ) && ( i < 9 ); i++ )
         {
-            result = ( result << 8 ) | ( bytes[i] & 0x00FF );
+            result = ( result << 8 ) | ( value.getByte( i ) & 0x00FF );
         }
 
-        if ( ( bytes[0] & 0x80 ) == 0x80 )
+        if ( ( value.getByte( 0 ) & 0x80 ) == 0x80 )
         {
-            result = -( ( ( ~result ) + 1 ) & MASK[bytes.length - 1] );
+            result = -( ( ( ~result ) + 1 ) & MASK[value.getLength() - 1] );
         }
         
         return result;
@@ -48,6 +48,9 @@ public class TLV
     /** An identity for the TLV. It store the TLV hashCode */
     private int id;
 
+    /** The TLV's depth in the PDU. The root TLV has a depth of 0 */
+    private int depth;
+
     /**
      * Reference the TLV which contains the current TLV, if any. As the
      * enclosing TLV of a PDU does not have parent, it can be null in this case.
@@ -102,12 +105,25 @@ public class TLV
      * @param id the TLV's id
      */
     public TLV( int id )
+    {
+        this( id, 0 );
+    }
+
+
+    /**
+     * Creates a new TLV object.
+     * 
+     * @param id the TLV's id
+     * @param depth the TLV's depth in the PDU
+     */
+    public TLV( int id, int depth )
     {
         tag = 0;
         length = 0;
         lengthNbBytes = 0;
         value = new BerValue();
         this.id = id;
+        this.depth = depth;
 
         expectedLength = 0;
     }
@@ -175,6 +191,21 @@ public class TLV
     }
 
 
+    /**
+     * Reinitialize the TLV so that it can be reused for another element at
+     * the same depth in the PDU. All its fields are reset, and it gets a new id.
+     * 
+     * @param id the TLV's new id
+     */
+    public void reinit( int id )
+    {
+        reset();
+        lengthBytesRead = 0;
+        parent = null;
+        this.id = id;
+    }
+
+
     /**
      * @return Returns the tag.
      */
@@ -438,6 +469,15 @@ public class TLV
     }
 
 
+    /**
+     * @return The TLV's depth in the PDU
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+
     /**
      * Get a String representation of the TLV
      * 
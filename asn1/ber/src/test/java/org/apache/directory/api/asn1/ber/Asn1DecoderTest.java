@@ -0,0 +1,254 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.asn1.ber;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.api.asn1.DecoderException;
+import org.apache.directory.api.asn1.ber.grammar.AbstractGrammar;
+import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
+import org.apache.directory.api.asn1.ber.grammar.GrammarTransition;
+import org.apache.directory.api.asn1.ber.grammar.States;
+import org.apache.directory.api.asn1.ber.tlv.BerValue;
+import org.apache.directory.api.asn1.ber.tlv.TLV;
+import org.apache.directory.api.asn1.ber.tlv.TLVStateEnum;
+import org.apache.directory.api.asn1.ber.tlv.UniversalTag;
+import org.apache.directory.api.util.Strings;
+import org.junit.Test;
+
+
+/**
+ * Tests the Asn1Decoder, using a grammar decoding a SEQUENCE of two OCTET STRINGs.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class Asn1DecoderTest
+{
+    /**
+     * The states of the test grammar
+     */
+    private enum TestStates implements States
+    {
+        START_STATE,
+        SEQUENCE_STATE,
+        FIRST_STATE,
+        SECOND_STATE,
+        END_STATE;
+
+        @Override
+        public boolean isEndState()
+        {
+            return this == END_STATE;
+        }
+
+
+        @Override
+        public Enum<?> getStartState()
+        {
+            return START_STATE;
+        }
+    }
+
+
+    /**
+     * The container storing the decoded values
+     */
+    private static class TestContainer extends AbstractContainer
+    {
+        private List<String> values = new ArrayList<>();
+
+
+        TestContainer()
+        {
+            setGrammar( new TestGrammar() );
+            setTransition( TestStates.START_STATE );
+        }
+    }
+
+
+    /**
+     * Stores an OCTET STRING, failing when it starts with a 'X' : the value is
+     * not copied before the failure.
+     */
+    private static class StoreValue extends GrammarAction<TestContainer>
+    {
+        private boolean last;
+
+
+        StoreValue( boolean last )
+        {
+            super( "Store value" );
+            this.last = last;
+        }
+
+
+        @Override
+        public void action( TestContainer container ) throws DecoderException
+        {
+            BerValue value = container.getCurrentTLV().getValue();
+
+            if ( ( value.getLength() > 0 ) && ( value.getByte( 0 ) == 'X' ) )
+            {
+                throw new DecoderException( "Invalid value" );
+            }
+
+            container.values.add( Strings.utf8ToString( value.getData() ) );
+            container.setGrammarEndAllowed( last );
+        }
+    }
+
+
+    /**
+     * SEQUENCE { OCTET STRING, OCTET STRING }
+     */
+    private static class TestGrammar extends AbstractGrammar<TestContainer>
+    {
+        @SuppressWarnings("unchecked")
+        TestGrammar()
+        {
+            setName( TestGrammar.class.getName() );
+
+            super.transitions = new GrammarTransition[TestStates.END_STATE.ordinal()][256];
+
+            super.transitions[TestStates.START_STATE.ordinal()][UniversalTag.SEQUENCE.getValue()] =
+                new GrammarTransition<TestContainer>( TestStates.START_STATE, TestStates.SEQUENCE_STATE,
+                    UniversalTag.SEQUENCE.getValue(), null );
+
+            super.transitions[TestStates.SEQUENCE_STATE.ordinal()][UniversalTag.OCTET_STRING.getValue()] =
+                new GrammarTransition<TestContainer>( TestStates.SEQUENCE_STATE, TestStates.FIRST_STATE,
+                    UniversalTag.OCTET_STRING.getValue(), new StoreValue( false ) );
+
+            super.transitions[TestStates.FIRST_STATE.ordinal()][UniversalTag.OCTET_STRING.getValue()] =
+                new GrammarTransition<TestContainer>( TestStates.FIRST_STATE, TestStates.SECOND_STATE,
+                    UniversalTag.OCTET_STRING.getValue(), new StoreValue( true ) );
+        }
+    }
+
+
+    /**
+     * Creates a PDU containing the two given values
+     */
+    private static ByteBuffer encode( String first, String second )
+    {
+        byte[] firstBytes = Strings.getBytesUtf8( first );
+        byte[] secondBytes = Strings.getBytesUtf8( second );
+        ByteBuffer buffer = ByteBuffer.allocate( 6 + firstBytes.length + secondBytes.length );
+
+        buffer.put( UniversalTag.SEQUENCE.getValue() );
+        buffer.put( ( byte ) ( 4 + firstBytes.length + secondBytes.length ) );
+        buffer.put( UniversalTag.OCTET_STRING.getValue() );
+        buffer.put( ( byte ) firstBytes.length );
+        buffer.put( firstBytes );
+        buffer.put( UniversalTag.OCTET_STRING.getValue() );
+        buffer.put( ( byte ) secondBytes.length );
+        buffer.put( secondBytes );
+        buffer.flip();
+
+        return buffer;
+    }
+
+
+    @Test
+    public void testDecodeSlicedValues() throws DecoderException
+    {
+        Asn1Decoder decoder = new Asn1Decoder();
+        decoder.setValueSlicing( true );
+        TestContainer container = new TestContainer();
+
+        decoder.decode( encode( "abc", "de" ), container );
+
+        assertEquals( TLVStateEnum.PDU_DECODED, container.getState() );
+        assertEquals( 2, container.values.size() );
+        assertEquals( "abc", container.values.get( 0 ) );
+        assertEquals( "de", container.values.get( 1 ) );
+        assertFalse( container.getCurrentTLV().getValue().isSlice() );
+    }
+
+
+    /**
+     * A failing action must not leave the value referencing the decoded buffer
+     */
+    @Test
+    public void testSliceReleasedWhenActionFails()
+    {
+        Asn1Decoder decoder = new Asn1Decoder();
+        decoder.setValueSlicing( true );
+        TestContainer container = new TestContainer();
+
+        try
+        {
+            decoder.decode( encode( "abc", "Xyz" ), container );
+            fail();
+        }
+        catch ( DecoderException de )
+        {
+            assertEquals( 1, container.values.size() );
+            assertFalse( container.getCurrentTLV().getValue().isSlice() );
+        }
+    }
+
+
+    /**
+     * The TLVs are reused from one element to the other at the same depth, and
+     * from one PDU to the other once the container has been cleaned
+     */
+    @Test
+    public void testTlvsReusedAcrossClean() throws DecoderException
+    {
+        Asn1Decoder decoder = new Asn1Decoder();
+        TestContainer container = new TestContainer();
+
+        decoder.decode( encode( "abc", "de" ), container );
+
+        TLV second = container.getCurrentTLV();
+        TLV sequence = second.getParent();
+        int secondId = second.getId();
+
+        assertEquals( 1, second.getDepth() );
+        assertEquals( 0, sequence.getDepth() );
+        assertNull( sequence.getParent() );
+
+        container.clean();
+        container.values.clear();
+
+        decoder.decode( encode( "fghi", "j" ), container );
+
+        assertEquals( TLVStateEnum.PDU_DECODED, container.getState() );
+        assertEquals( "fghi", container.values.get( 0 ) );
+        assertEquals( "j", container.values.get( 1 ) );
+
+        // Same instances, reinitialized with the new PDU's elements
+        assertSame( second, container.getCurrentTLV() );
+        assertSame( sequence, second.getParent() );
+        assertNotEquals( secondId, second.getId() );
+        assertEquals( 1, second.getLength() );
+        assertEquals( 9, sequence.getLength() );
+    }
+}
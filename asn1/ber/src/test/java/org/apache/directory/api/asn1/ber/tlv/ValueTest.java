@@ -21,6 +21,8 @@ package org.apache.directory.api.asn1.ber.tlv;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -789,5 +791,62 @@ public class ValueTest
         
         assertEquals( "0x03 0x03 0x06 0x00 0x40 ", Asn1StringUtils.dumpBytes( buffer.array() )  );
     }
-}
 
+
+    /**
+     * Test a sliced Value : the data must only be copied when requested
+     */
+    @Test
+    public void testSlicedValue() throws IntegerDecoderException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap( new byte[]
+            { 0x02, 0x02, 0x01, 0x00 } );
+
+        BerValue value = new BerValue();
+        value.initSlice( buffer, 2, 2 );
+
+        assertTrue( value.isSlice() );
+        assertEquals( 2, value.getLength() );
+        assertEquals( 256, IntegerDecoder.parse( value ) );
+
+        // Parsing the integer should not have copied the data
+        assertTrue( value.isSlice() );
+
+        byte[] data = value.getData();
+
+        assertFalse( value.isSlice() );
+        assertTrue( Arrays.equals( new byte[]
+            { 0x01, 0x00 }, data ) );
+
+        // The copy is not impacted by a buffer modification
+        buffer.put( 2, ( byte ) 0x7F );
+        assertEquals( 0x01, value.getData()[0] );
+    }
+
+
+    /**
+     * Test that a released slice keeps its length but not its data
+     */
+    @Test
+    public void testReleasedSlice()
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect( 4 );
+        buffer.put( new byte[]
+            { 0x04, 0x02, 'a', 'b' } );
+
+        BerValue value = new BerValue();
+        value.initSlice( buffer, 2, 2 );
+
+        assertEquals( 'b', value.getByte( 1 ) );
+
+        value.releaseSlice();
+
+        assertFalse( value.isSlice() );
+        assertEquals( 2, value.getLength() );
+        assertNull( value.getData() );
+
+        value.reset();
+
+        assertEquals( 0, value.getLength() );
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.asn1.DecoderException;
+import org.apache.directory.api.asn1.ber.Asn1Decoder;
+import org.apache.directory.api.asn1.ber.tlv.TLVStateEnum;
+import org.apache.directory.api.ldap.codec.api.LdapEncoder;
+import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.api.MessageDecorator;
+import org.apache.directory.api.ldap.codec.osgi.DefaultLdapCodecService;
+import org.apache.directory.api.ldap.model.message.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Decodes SearchResultEntry PDUs of various sizes with the Asn1Decoder and
+ * the LDAP grammar.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Asn1DecoderBenchmark
+{
+    /** The number of values of the multi-valued attribute */
+    @Param({ "1", "32", "1024" })
+    public int nbValues;
+
+    /** Tells if the values are sliced from the buffer instead of being copied */
+    @Param({ "false", "true" })
+    public boolean valueSlicing;
+
+    private byte[] pdu;
+
+    private Asn1Decoder decoder;
+
+    private LdapMessageContainer<MessageDecorator<? extends Message>> container;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        DefaultLdapCodecService codec = new DefaultLdapCodecService();
+        LdapEncoder encoder = new LdapEncoder( codec );
+
+        ByteBuffer buffer = encoder.encodeMessage( LdapMessages.searchResultEntry( 2, nbValues ) );
+        pdu = new byte[buffer.limit()];
+        buffer.get( pdu );
+
+        decoder = new Asn1Decoder();
+        decoder.setValueSlicing( valueSlicing );
+        container = new LdapMessageContainer<>( codec );
+    }
+
+
+    @Benchmark
+    public Message decodeSearchResultEntry() throws DecoderException
+    {
+        decoder.decode( ByteBuffer.wrap( pdu ), container );
+
+        if ( container.getState() != TLVStateEnum.PDU_DECODED )
+        {
+            throw new IllegalStateException( "The PDU has not been fully decoded" );
+        }
+
+        Message message = container.getMessage();
+        container.clean();
+
+        return message;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Loads the corpora used by the benchmarks. They are stored in the
+ * <em>corpus</em> directory of the module's resources, and are UTF-8
+ * encoded. In the line oriented corpora, the empty lines and the lines
+ * starting with a '#' are ignored.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class Corpus
+{
+    /** The corpus holding Dns handled by the fast Dn parser */
+    public static final String SIMPLE_DNS = "dns-simple.txt";
+
+    /** The corpus holding Dns which require the complex Dn parser */
+    public static final String COMPLEX_DNS = "dns-complex.txt";
+
+    /** The corpus holding search filters */
+    public static final String FILTERS = "filters.txt";
+
+    /** The corpus holding attribute values to prepare */
+    public static final String STRINGS = "strings.txt";
+
+    /** The corpus holding inetOrgPerson entries */
+    public static final String ENTRIES = "entries.ldif";
+
+
+    private Corpus()
+    {
+    }
+
+
+    /**
+     * Reads a line oriented corpus.
+     *
+     * @param name The corpus name
+     * @return The corpus' lines
+     * @throws IOException If the corpus can't be read
+     */
+    public static List<String> lines( String name ) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+
+        try ( BufferedReader reader = new BufferedReader( new InputStreamReader( open( name ),
+            StandardCharsets.UTF_8 ) ) )
+        {
+            String line;
+
+            while ( ( line = reader.readLine() ) != null )
+            {
+                if ( !line.isEmpty() && ( line.charAt( 0 ) != '#' ) )
+                {
+                    lines.add( line );
+                }
+            }
+        }
+
+        return lines;
+    }
+
+
+    /**
+     * Reads a whole corpus.
+     *
+     * @param name The corpus name
+     * @return The corpus' content
+     * @throws IOException If the corpus can't be read
+     */
+    public static String text( String name ) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        try ( InputStream in = open( name ) )
+        {
+            int nbRead;
+
+            while ( ( nbRead = in.read( buffer ) ) != -1 )
+            {
+                out.write( buffer, 0, nbRead );
+            }
+        }
+
+        return new String( out.toByteArray(), StandardCharsets.UTF_8 );
+    }
+
+
+    private static InputStream open( String name ) throws IOException
+    {
+        InputStream in = Corpus.class.getResourceAsStream( "/corpus/" + name );
+
+        if ( in == null )
+        {
+            throw new IOException( "Cannot find the corpus " + name );
+        }
+
+        return in;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.util.tree.ConcurrentDnTree;
+import org.apache.directory.api.ldap.util.tree.DnNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Routes Dns to their naming context concurrently, comparing the synchronized
+ * DnNode with the ConcurrentDnTree. Each invocation resolves the element and
+ * the closest parent element of every looked up Dn. Run it with various
+ * thread counts (-t) to see the contention on the DnNode monitor.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(1)
+public class DnNodeBenchmark
+{
+    /** The number of naming contexts stored in the trees */
+    @Param({ "4", "64" })
+    public int nbContexts;
+
+    private DnNode<String> dnNode;
+
+    private ConcurrentDnTree<String> concurrentTree;
+
+    /** The Dns to route, below the naming contexts */
+    private Dn[] dns;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        dnNode = new DnNode<String>();
+        concurrentTree = new ConcurrentDnTree<String>();
+        dns = new Dn[nbContexts * 4];
+
+        for ( int i = 0; i < nbContexts; i++ )
+        {
+            Dn context = new Dn( "dc=example" + i + ",dc=com" );
+            dnNode.add( context, context.getName() );
+            concurrentTree.add( context, context.getName() );
+
+            for ( int j = 0; j < 4; j++ )
+            {
+                dns[i * 4 + j] = new Dn( "cn=user" + j + ",ou=people,dc=example" + i + ",dc=com" );
+            }
+        }
+    }
+
+
+    @Benchmark
+    public void dnNode( Blackhole blackhole )
+    {
+        for ( Dn dn : dns )
+        {
+            blackhole.consume( dnNode.getElement( dn ) );
+            blackhole.consume( dnNode.getParentWithElement( dn ) );
+        }
+    }
+
+
+    @Benchmark
+    public void concurrentDnTree( Blackhole blackhole )
+    {
+        for ( Dn dn : dns )
+        {
+            blackhole.consume( concurrentTree.getElement( dn ) );
+            blackhole.consume( concurrentTree.getParentWithElement( dn ) );
+        }
+    }
+}
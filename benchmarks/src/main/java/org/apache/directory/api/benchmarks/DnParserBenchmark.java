@@ -0,0 +1,110 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.DnCache;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Parses the Dns of a corpus. The simple Dns are handled by the FastDnParser,
+ * the complex ones (escaped values, multi-valued Rdns, hex strings, spaces)
+ * make the Dn fall back to the ComplexDnParser. Each invocation parses the
+ * whole corpus. The cached variant gets the Dns from a DnCache big enough to
+ * hold the whole corpus.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DnParserBenchmark
+{
+    /** The corpus to parse */
+    @Param({ Corpus.SIMPLE_DNS, Corpus.COMPLEX_DNS })
+    public String corpus;
+
+    private List<String> dns;
+
+    private SchemaManager schemaManager;
+
+    private DnCache dnCache;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        dns = Corpus.lines( corpus );
+        schemaManager = new DefaultSchemaManager();
+        dnCache = new DnCache( schemaManager, dns.size() * 2 );
+    }
+
+
+    @Benchmark
+    public void parse( Blackhole blackhole ) throws LdapInvalidDnException
+    {
+        for ( String dn : dns )
+        {
+            blackhole.consume( new Dn( dn ) );
+        }
+    }
+
+
+    @Benchmark
+    public void parseAndNormalize( Blackhole blackhole ) throws LdapInvalidDnException
+    {
+        for ( String dn : dns )
+        {
+            blackhole.consume( new Dn( schemaManager, dn ) );
+        }
+    }
+
+
+    @Benchmark
+    public void parseAndNormalizeCached( Blackhole blackhole ) throws LdapInvalidDnException
+    {
+        for ( String dn : dns )
+        {
+            blackhole.consume( dnCache.getDn( dn ) );
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.util.ConcurrentLRUMap;
+import org.apache.directory.api.util.SynchronizedLRUMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares the SynchronizedLRUMap and the ConcurrentLRUMap under a read mostly,
+ * multi-threaded load. Each thread reads keys following a skewed distribution over
+ * twice as many keys as the map can hold, and puts the missing ones.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LRUMapBenchmark
+{
+    /** The number of keys a thread cycles through */
+    private static final int NB_KEYS = 1 << 14;
+
+    /** The map implementation */
+    @Param({ "synchronized", "concurrent" })
+    public String implementation;
+
+    /** The maximum number of entries in the map */
+    @Param({ "1000" })
+    public int maximumSize;
+
+    private Map<Object, Object> map;
+
+
+    /**
+     * The keys read by a thread.
+     */
+    @State(Scope.Thread)
+    public static class Keys
+    {
+        private Integer[] keys;
+
+        private int index;
+
+
+        @Setup
+        public void setup( LRUMapBenchmark benchmark )
+        {
+            Random random = new Random();
+            keys = new Integer[NB_KEYS];
+
+            for ( int i = 0; i < NB_KEYS; i++ )
+            {
+                // Half of the reads hit a tenth of the keys
+                int bound = random.nextBoolean() ? benchmark.maximumSize / 5 : benchmark.maximumSize * 2;
+                keys[i] = random.nextInt( bound );
+            }
+        }
+
+
+        private Integer next()
+        {
+            index = ( index + 1 ) & ( NB_KEYS - 1 );
+
+            return keys[index];
+        }
+    }
+
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup()
+    {
+        if ( "synchronized".equals( implementation ) )
+        {
+            map = new SynchronizedLRUMap( maximumSize );
+        }
+        else
+        {
+            map = new ConcurrentLRUMap<>( maximumSize );
+        }
+    }
+
+
+    @Benchmark
+    public Object getOrPut( Keys keys )
+    {
+        Integer key = keys.next();
+        Object value = map.get( key );
+
+        if ( value == null )
+        {
+            map.put( key, key );
+
+            return key;
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.asn1.EncoderException;
+import org.apache.directory.api.ldap.codec.api.LdapEncoder;
+import org.apache.directory.api.ldap.codec.osgi.DefaultLdapCodecService;
+import org.apache.directory.api.ldap.model.message.ModifyRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Encodes LDAP requests and responses with the LdapEncoder.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LdapEncoderBenchmark
+{
+    private LdapEncoder encoder;
+
+    private SearchRequest searchRequest;
+
+    private ModifyRequest modifyRequest;
+
+    /**
+     * The SearchResultEntry to encode, parameterized by its size
+     */
+    @State(Scope.Thread)
+    public static class EntryState
+    {
+        /** The number of values of the multi-valued attribute */
+        @Param({ "1", "32", "1024" })
+        public int nbValues;
+
+        private SearchResultEntry searchResultEntry;
+
+
+        @Setup
+        public void setup() throws Exception
+        {
+            searchResultEntry = LdapMessages.searchResultEntry( 2, nbValues );
+        }
+    }
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        encoder = new LdapEncoder( new DefaultLdapCodecService() );
+        searchRequest = LdapMessages.searchRequest( 3 );
+        modifyRequest = LdapMessages.modifyRequest( 4 );
+    }
+
+
+    @Benchmark
+    public ByteBuffer encodeSearchResultEntry( EntryState state ) throws EncoderException
+    {
+        return encoder.encodeMessage( state.searchResultEntry );
+    }
+
+
+    @Benchmark
+    public ByteBuffer encodeSearchRequest() throws EncoderException
+    {
+        return encoder.encodeMessage( searchRequest );
+    }
+
+
+    @Benchmark
+    public ByteBuffer encodeModifyRequest() throws EncoderException
+    {
+        return encoder.encodeMessage( modifyRequest );
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.ModifyRequest;
+import org.apache.directory.api.ldap.model.message.ModifyRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntryImpl;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+
+
+/**
+ * Builds the LDAP messages used by the codec benchmarks.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class LdapMessages
+{
+    private LdapMessages()
+    {
+    }
+
+
+    /**
+     * Creates a SearchResultEntry for an inetOrgPerson, plus a multi-valued
+     * <em>description</em> attribute.
+     *
+     * @param messageId The message ID
+     * @param nbValues The number of values of the multi-valued attribute
+     * @return The SearchResultEntry
+     * @throws LdapException If the entry can't be created
+     */
+    public static SearchResultEntry searchResultEntry( int messageId, int nbValues ) throws LdapException
+    {
+        Entry entry = new DefaultEntry( "uid=user00042,ou=people,dc=example,dc=com",
+            "objectClass: top",
+            "objectClass: person",
+            "objectClass: organizationalPerson",
+            "objectClass: inetOrgPerson",
+            "uid: user00042",
+            "cn: Emmanuel Lécharny",
+            "sn: Lécharny",
+            "givenName: Emmanuel",
+            "mail: emmanuel.lecharny@example.com",
+            "telephoneNumber: +33 1 23 45 67 89",
+            "employeeNumber: 100042" );
+
+        String[] values = new String[nbValues];
+
+        for ( int i = 0; i < nbValues; i++ )
+        {
+            values[i] = "uid=user" + ( 100000 + i ) + ",ou=people,dc=example,dc=com";
+        }
+
+        entry.add( "description", values );
+
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl( messageId );
+        searchResultEntry.setEntry( entry );
+
+        return searchResultEntry;
+    }
+
+
+    /**
+     * Creates a subtree SearchRequest
+     *
+     * @param messageId The message ID
+     * @return The SearchRequest
+     * @throws LdapException If the request can't be created
+     */
+    public static SearchRequest searchRequest( int messageId ) throws LdapException
+    {
+        SearchRequest searchRequest = new SearchRequestImpl();
+        searchRequest.setMessageId( messageId );
+        searchRequest.setBase( new Dn( "ou=people,dc=example,dc=com" ) );
+        searchRequest.setScope( SearchScope.SUBTREE );
+        searchRequest.setFilter( "(&(objectClass=inetOrgPerson)(|(uid=user00042)(mail=emmanuel*)))" );
+        searchRequest.addAttributes( "cn", "sn", "mail", "telephoneNumber" );
+
+        return searchRequest;
+    }
+
+
+    /**
+     * Creates a ModifyRequest replacing a few attributes
+     *
+     * @param messageId The message ID
+     * @return The ModifyRequest
+     * @throws LdapException If the request can't be created
+     */
+    public static ModifyRequest modifyRequest( int messageId ) throws LdapException
+    {
+        ModifyRequest modifyRequest = new ModifyRequestImpl();
+        modifyRequest.setMessageId( messageId );
+        modifyRequest.setName( new Dn( "uid=user00042,ou=people,dc=example,dc=com" ) );
+        modifyRequest.replace( "telephoneNumber", "+33 1 23 45 67 89" );
+        modifyRequest.add( "mail", "elecharny@example.com" );
+        modifyRequest.remove( "description", "obsolete" );
+
+        return modifyRequest;
+    }
+}
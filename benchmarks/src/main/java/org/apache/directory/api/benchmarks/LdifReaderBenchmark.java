@@ -0,0 +1,137 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.ldif.LdapLdifException;
+import org.apache.directory.api.ldap.model.ldif.LdifEntry;
+import org.apache.directory.api.ldap.model.ldif.LdifReader;
+import org.apache.directory.api.ldap.model.ldif.ParallelLdifReader;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Parses a LDIF file containing 500 inetOrgPerson entries, some of them
+ * with base64 encoded binary values and folded lines. The file read by the
+ * LdifReader and the ParallelLdifReader contains the corpus entries repeated
+ * 200 times.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LdifReaderBenchmark
+{
+    private String ldif;
+
+    private SchemaManager schemaManager;
+
+    /** A large LDIF file */
+    private File file;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        ldif = Corpus.text( Corpus.ENTRIES );
+        schemaManager = new DefaultSchemaManager();
+
+        file = File.createTempFile( "benchmark", ".ldif" );
+
+        for ( int i = 0; i < 200; i++ )
+        {
+            Files.write( file.toPath(), ( ldif + "\n" ).getBytes( StandardCharsets.UTF_8 ), StandardOpenOption.APPEND );
+        }
+    }
+
+
+    @TearDown
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+
+    @Benchmark
+    public List<LdifEntry> parseLdif() throws LdapLdifException
+    {
+        return new LdifReader().parseLdif( ldif );
+    }
+
+
+    @Benchmark
+    public List<LdifEntry> parseLdifWithSchema() throws LdapLdifException
+    {
+        return new LdifReader( schemaManager ).parseLdif( ldif );
+    }
+
+
+    @Benchmark
+    public void readFile( Blackhole blackhole ) throws LdapLdifException, IOException
+    {
+        try ( LdifReader reader = new LdifReader( file, schemaManager ) )
+        {
+            for ( LdifEntry entry : reader )
+            {
+                blackhole.consume( entry );
+            }
+        }
+    }
+
+
+    @Benchmark
+    public void readFileParallel( Blackhole blackhole ) throws LdapLdifException, IOException
+    {
+        try ( ParallelLdifReader reader = new ParallelLdifReader( file, schemaManager ) )
+        {
+            reader.setChunkSize( 256 * 1024 );
+
+            for ( LdifEntry entry : reader )
+            {
+                blackhole.consume( entry );
+            }
+        }
+    }
+}
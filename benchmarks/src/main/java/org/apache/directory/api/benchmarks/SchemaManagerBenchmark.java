@@ -0,0 +1,103 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.model.schema.registries.SchemaLoader;
+import org.apache.directory.api.ldap.schema.loader.BinarySchemaLoader;
+import org.apache.directory.api.ldap.schema.loader.JarLdifSchemaLoader;
+import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Loads all the enabled schemas bundled in the schema-data jar, either from the LDIF
+ * files or from a binary snapshot of those files. The snapshot is read again on each
+ * invocation. The schemas are loaded by one or more threads.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaManagerBenchmark
+{
+    /** The number of threads used to load the schemas */
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    private SchemaLoader schemaLoader;
+
+    private byte[] snapshot;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        schemaLoader = new JarLdifSchemaLoader();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySchemaLoader.writeSnapshot( schemaLoader, BinarySchemaLoader.computeLdifChecksum(), out );
+        snapshot = out.toByteArray();
+    }
+
+
+    @Benchmark
+    public SchemaManager loadAllEnabled() throws LdapException
+    {
+        DefaultSchemaManager schemaManager = new DefaultSchemaManager( schemaLoader );
+        schemaManager.setParallelism( parallelism );
+        schemaManager.loadAllEnabled();
+
+        return schemaManager;
+    }
+
+
+    @Benchmark
+    public SchemaManager loadAllEnabledFromSnapshot() throws LdapException, IOException
+    {
+        DefaultSchemaManager schemaManager = new DefaultSchemaManager( new BinarySchemaLoader(
+            new ByteArrayInputStream( snapshot ) ) );
+        schemaManager.setParallelism( parallelism );
+        schemaManager.loadAllEnabled();
+
+        return schemaManager;
+    }
+}
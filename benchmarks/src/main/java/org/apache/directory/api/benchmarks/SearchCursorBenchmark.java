@@ -0,0 +1,146 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.benchmarks;
+
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.message.Response;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.SearchResultDoneImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.ldap.client.api.SearchCursorImpl;
+import org.apache.directory.ldap.client.api.future.ResponseQueue;
+import org.apache.directory.ldap.client.api.future.SearchFuture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Consumes search results through a SearchCursorImpl while another thread, playing the
+ * role of the IO thread, pushes them into the SearchFuture. The throughput is given
+ * per search result.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchCursorBenchmark
+{
+    /** The number of search results per search */
+    private static final int NB_ENTRIES = 10000;
+
+    /** The queue used by the SearchFuture */
+    @Param({ "linked", "response" })
+    public String queue;
+
+    private ExecutorService producer;
+
+    private SearchResultEntry searchResultEntry;
+
+    private SearchResultDone searchResultDone;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        producer = Executors.newSingleThreadExecutor();
+        searchResultEntry = LdapMessages.searchResultEntry( 2, 1 );
+        searchResultDone = new SearchResultDoneImpl( 2 );
+    }
+
+
+    @TearDown
+    public void tearDown()
+    {
+        producer.shutdownNow();
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(NB_ENTRIES)
+    public int next() throws Exception
+    {
+        BlockingQueue<Response> responses;
+
+        if ( "linked".equals( queue ) )
+        {
+            responses = new LinkedBlockingQueue<Response>();
+        }
+        else
+        {
+            responses = new ResponseQueue<Response>();
+        }
+
+        final SearchFuture future = new SearchFuture( null, 2, responses );
+
+        Future<?> produced = producer.submit( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    for ( int i = 0; i < NB_ENTRIES; i++ )
+                    {
+                        future.set( searchResultEntry );
+                    }
+
+                    future.set( searchResultDone );
+                }
+                catch ( InterruptedException ie )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } );
+
+        SearchCursorImpl cursor = new SearchCursorImpl( future, 10L, TimeUnit.SECONDS );
+        int nbEntries = 0;
+
+        while ( cursor.next() )
+        {
+            nbEntries++;
+        }
+
+        produced.get();
+
+        return nbEntries;
+    }
+}
@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class Asn1DecoderBenchmark_jmhType extends Asn1DecoderBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class DnNodeBenchmark_jmhType extends DnNodeBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class FilterParserBenchmark_jmhType extends FilterParserBenchmark_jmhType_B3 {
+}
+
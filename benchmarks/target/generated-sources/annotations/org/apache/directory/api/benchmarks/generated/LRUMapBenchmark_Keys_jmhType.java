@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class LRUMapBenchmark_Keys_jmhType extends LRUMapBenchmark_Keys_jmhType_B3 {
+}
+
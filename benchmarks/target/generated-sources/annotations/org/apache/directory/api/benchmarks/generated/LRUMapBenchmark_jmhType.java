@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class LRUMapBenchmark_jmhType extends LRUMapBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class LdapEncoderBenchmark_EntryState_jmhType extends LdapEncoderBenchmark_EntryState_jmhType_B3 {
+}
+
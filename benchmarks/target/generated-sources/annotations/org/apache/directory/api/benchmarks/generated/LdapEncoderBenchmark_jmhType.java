@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class LdapEncoderBenchmark_jmhType extends LdapEncoderBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class LdifReaderBenchmark_jmhType extends LdifReaderBenchmark_jmhType_B3 {
+}
+
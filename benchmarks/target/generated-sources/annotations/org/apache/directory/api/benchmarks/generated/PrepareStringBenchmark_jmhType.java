@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class PrepareStringBenchmark_jmhType extends PrepareStringBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class SchemaManagerBenchmark_jmhType extends SchemaManagerBenchmark_jmhType_B3 {
+}
+
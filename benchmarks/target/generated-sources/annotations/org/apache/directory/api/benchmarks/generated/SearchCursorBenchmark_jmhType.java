@@ -0,0 +1,4 @@
+package org.apache.directory.api.benchmarks.generated;
+public class SearchCursorBenchmark_jmhType extends SearchCursorBenchmark_jmhType_B3 {
+}
+
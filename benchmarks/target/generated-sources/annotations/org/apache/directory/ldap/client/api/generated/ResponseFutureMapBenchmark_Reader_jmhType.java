@@ -0,0 +1,4 @@
+package org.apache.directory.ldap.client.api.generated;
+public class ResponseFutureMapBenchmark_Reader_jmhType extends ResponseFutureMapBenchmark_Reader_jmhType_B3 {
+}
+
@@ -29,6 +29,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.EncoderException;
@@ -77,13 +82,18 @@ import org.apache.directory.api.ldap.model.message.ModifyResponse;
 import org.apache.directory.api.ldap.model.message.Request;
 import org.apache.directory.api.ldap.model.message.Response;
 import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.ResultResponse;
 import org.apache.directory.api.ldap.model.message.SearchRequest;
 import org.apache.directory.api.ldap.model.message.SearchResultDone;
 import org.apache.directory.api.ldap.model.message.SearchResultEntry;
 import org.apache.directory.api.ldap.model.message.SearchResultReference;
 import org.apache.directory.api.util.Strings;
+import org.apache.directory.ldap.client.api.LdapAsyncConnection;
 import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.LdapConnectionConfig;
 import org.apache.directory.ldap.client.api.LdapNetworkConnection;
+import org.apache.directory.ldap.client.api.future.ResponseFuture;
+import org.apache.directory.ldap.client.api.future.ResponseListener;
 import org.dom4j.Element;
 import org.dom4j.Namespace;
 import org.slf4j.Logger;
@@ -94,6 +104,11 @@ import org.xmlpull.v1.XmlPullParserException;
 /**
  * This is the DSMLv2Engine. It can be use to execute operations on a LDAP Server and get the results of these operations.
  * The format used for request and responses is the DSMLv2 format.
+ * <br>
+ * When the batch processing is parallel and the connection is an LdapAsyncConnection, the
+ * update and compare requests are sent without waiting for the previous responses. Their
+ * responses are written in the requests order, or as soon as they are received when the
+ * response order is unordered.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -128,12 +143,56 @@ public class Dsmlv2Engine
     /** flag to indicate to generate the response in a SOAP envelope */
     protected boolean generateSoapResp = false;
 
+    /** The default maximum number of requests waiting for their response in a parallel batch */
+    public static final int DEFAULT_MAX_PARALLEL_REQUESTS = 256;
+
+    /** The maximum number of requests waiting for their response in a parallel batch */
+    protected int maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
+
+    /**
+     * The time to wait for a response in a parallel batch, in milliseconds. When 0, the
+     * timeout of the connection is used if it's a LdapNetworkConnection, otherwise
+     * {@link LdapConnectionConfig#DEFAULT_TIMEOUT}
+     */
+    protected long responseTimeout;
+
+    /** The requests sent in parallel and waiting for their response, in the order they were sent */
+    private Deque<PendingRequest> pendingRequests = new ArrayDeque<>();
+
+    /** The requests sent in parallel which have been answered, when the responses are unordered */
+    private BlockingQueue<PendingRequest> answeredRequests = new LinkedBlockingQueue<>();
+
+    /** The number of requests sent in parallel and not yet written, when the responses are unordered */
+    private int nbUnorderedRequests;
+
     /** A logger for this class */
     private static final Logger LOG = LoggerFactory.getLogger( Dsmlv2Engine.class );
     
     private static final String BODY_ENVELOPE = "</Body></Envelope>";
 
 
+    /**
+     * A request sent in parallel, waiting for its response
+     */
+    private static class PendingRequest
+    {
+        /** The DSML requestID */
+        private final int requestId;
+
+        /** The future the response will be received from */
+        private ResponseFuture<? extends Response> future;
+
+        /** The received response, when the responses are unordered */
+        private volatile Response response;
+
+
+        private PendingRequest( int requestId )
+        {
+            this.requestId = requestId;
+        }
+    }
+
+
     /**
      * Creates a new instance of Dsmlv2Engine.
      * 
@@ -280,6 +339,9 @@ public class Dsmlv2Engine
     protected void processDSML( OutputStream outStream ) throws IOException
     {
         BufferedWriter respWriter = null;
+        pendingRequests.clear();
+        answeredRequests.clear();
+        nbUnorderedRequests = 0;
 
         if ( outStream != null )
         {
@@ -445,7 +507,16 @@ public class Dsmlv2Engine
 
             try
             {
-                processRequest( request, respWriter );
+                if ( isPipelined( request ) )
+                {
+                    sendRequest( request, respWriter );
+                }
+                else
+                {
+                    // The responses of the previous requests must be written first
+                    writePendingResponses( respWriter );
+                    processRequest( request, respWriter );
+                }
             }
             catch ( Exception e )
             {
@@ -498,6 +569,28 @@ public class Dsmlv2Engine
             }
         }
 
+        // Write the responses of the requests sent in parallel
+        try
+        {
+            writePendingResponses( respWriter );
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( "Failed to get the response of a parallel request", e );
+
+            ErrorResponse errorResponse = new ErrorResponse( 0, ErrorResponseType.GATEWAY_INTERNAL_ERROR, I18n.err(
+                I18n.ERR_03003, e.getMessage() ) );
+
+            if ( respWriter != null )
+            {
+                writeResponse( respWriter, errorResponse );
+            }
+            else
+            {
+                batchResponse.addResponse( errorResponse );
+            }
+        }
+
         if ( respWriter != null )
         {
             respWriter.write( "</batchResponse>" );
@@ -547,6 +640,54 @@ public class Dsmlv2Engine
     }
 
 
+    /**
+     * @return the maximum number of requests waiting for their response in a parallel batch
+     */
+    public int getMaxParallelRequests()
+    {
+        return maxParallelRequests;
+    }
+
+
+    /**
+     * @param maxParallelRequests the maximum number of requests waiting for their response
+     * in a parallel batch
+     */
+    public void setMaxParallelRequests( int maxParallelRequests )
+    {
+        this.maxParallelRequests = maxParallelRequests;
+    }
+
+
+    /**
+     * @return the time to wait for a response in a parallel batch, in milliseconds
+     */
+    public long getResponseTimeout()
+    {
+        if ( responseTimeout > 0 )
+        {
+            return responseTimeout;
+        }
+
+        if ( connection instanceof LdapNetworkConnection )
+        {
+            return ( ( LdapNetworkConnection ) connection ).getTimeOut();
+        }
+
+        return LdapConnectionConfig.DEFAULT_TIMEOUT;
+    }
+
+
+    /**
+     * @param responseTimeout the time to wait for a response in a parallel batch, in
+     * milliseconds. 0 to use the timeout of the connection.
+     */
+    public void setResponseTimeout( long responseTimeout )
+    {
+        this.responseTimeout = responseTimeout;
+    }
+
+
     /**
      * @return the batchResponse
      */
@@ -675,15 +816,16 @@ public class Dsmlv2Engine
 
                         SearchResultEntryDsml searchResultEntryDsml = new SearchResultEntryDsml(
                             connection.getCodecService(), searchResultEntry );
-                        searchResponseDsml = new SearchResponseDsml( connection.getCodecService(),
-                            searchResultEntryDsml );
 
                         if ( respWriter != null )
                         {
-                            writeResponse( respWriter, searchResultEntryDsml );
+                            // Stream the entry, without building its XML tree
+                            searchResultEntryDsml.writeDsml( respWriter );
                         }
                         else
                         {
+                            searchResponseDsml = new SearchResponseDsml( connection.getCodecService(),
+                                searchResultEntryDsml );
                             searchResponseDsml.addResponse( searchResultEntryDsml );
                         }
                     }
@@ -737,6 +879,17 @@ public class Dsmlv2Engine
                 throw new IllegalStateException( "Unexpected request tpye " + request.getDecorated().getType() );
         }
 
+        checkResultCode( resultCode );
+    }
+
+
+    /**
+     * Turns on the exit flag if the result code is an error, and if we don't continue on error
+     * 
+     * @param resultCode The result code of a response, can be null
+     */
+    private void checkResultCode( ResultCodeEnum resultCode )
+    {
         if ( ( !continueOnError ) && ( resultCode != null ) && ( resultCode != ResultCodeEnum.SUCCESS )
             && ( resultCode != ResultCodeEnum.COMPARE_TRUE ) && ( resultCode != ResultCodeEnum.COMPARE_FALSE )
             && ( resultCode != ResultCodeEnum.REFERRAL ) )
@@ -747,6 +900,200 @@ public class Dsmlv2Engine
     }
 
 
+    /**
+     * Tells if a request can be sent without waiting for the response of the previous
+     * requests. This is the case for the update and compare requests of a batch which
+     * processing is parallel, when the connection is asynchronous. The other requests
+     * are processed once all the pending responses have been written.
+     * 
+     * @param request The request to check
+     * @return true if the request can be sent in parallel
+     */
+    private boolean isPipelined( DsmlDecorator<? extends Request> request )
+    {
+        if ( ( batchRequest.getProcessing() != Processing.PARALLEL ) || ( maxParallelRequests <= 0 )
+            || !( connection instanceof LdapAsyncConnection ) )
+        {
+            return false;
+        }
+
+        switch ( request.getDecorated().getType() )
+        {
+            case ADD_REQUEST:
+            case COMPARE_REQUEST:
+            case DEL_REQUEST:
+            case MODIFY_REQUEST:
+            case MODIFYDN_REQUEST:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Sends a request without waiting for its response. When too many requests
+     * are waiting for their response, the next response is written first.
+     * 
+     * @param request The request to send
+     * @param respWriter The writer used to store the DSML response
+     * @throws Exception If we had an error while sending the request, or while writing a response
+     */
+    private void sendRequest( DsmlDecorator<? extends Request> request, BufferedWriter respWriter ) throws Exception
+    {
+        while ( pendingRequests.size() + nbUnorderedRequests >= maxParallelRequests )
+        {
+            writeNextResponse( respWriter );
+        }
+
+        LdapAsyncConnection asyncConnection = ( LdapAsyncConnection ) connection;
+        PendingRequest pendingRequest = new PendingRequest( request.getDecorated().getMessageId() );
+
+        switch ( request.getDecorated().getType() )
+        {
+            case ADD_REQUEST:
+                pendingRequest.future = asyncConnection.addAsync( ( AddRequest ) request );
+                break;
+
+            case COMPARE_REQUEST:
+                pendingRequest.future = asyncConnection.compareAsync( ( CompareRequest ) request );
+                break;
+
+            case DEL_REQUEST:
+                pendingRequest.future = asyncConnection.deleteAsync( ( DeleteRequest ) request );
+                break;
+
+            case MODIFY_REQUEST:
+                pendingRequest.future = asyncConnection.modifyAsync( ( ModifyRequest ) request );
+                break;
+
+            case MODIFYDN_REQUEST:
+                pendingRequest.future = asyncConnection.modifyDnAsync( ( ModifyDnRequest ) request );
+                break;
+
+            default:
+                throw new IllegalStateException( "Unexpected request type " + request.getDecorated().getType() );
+        }
+
+        if ( batchRequest.getResponseOrder() == ResponseOrder.UNORDERED )
+        {
+            // The responses are queued as soon as they are received
+            listen( pendingRequest.future, pendingRequest );
+            nbUnorderedRequests++;
+        }
+        else
+        {
+            pendingRequests.add( pendingRequest );
+        }
+    }
+
+
+    /**
+     * Queues the response of a request sent in parallel as soon as it's received
+     */
+    private <R extends Response> void listen( ResponseFuture<R> future, final PendingRequest pendingRequest )
+    {
+        future.setListener( new ResponseListener<R>()
+        {
+            @Override
+            public void responseReceived( R response )
+            {
+                pendingRequest.response = response;
+                answeredRequests.add( pendingRequest );
+            }
+        } );
+    }
+
+
+    /**
+     * Writes the responses of all the requests sent in parallel
+     * 
+     * @param respWriter The writer used to store the DSML response
+     * @throws Exception If we had an error while getting or writing a response
+     */
+    private void writePendingResponses( BufferedWriter respWriter ) throws Exception
+    {
+        while ( !pendingRequests.isEmpty() || ( nbUnorderedRequests > 0 ) )
+        {
+            writeNextResponse( respWriter );
+        }
+    }
+
+
+    /**
+     * Waits for the response of a request sent in parallel, and writes it. When the
+     * responses are unordered, this is the first received response, otherwise it's the
+     * response of the first sent request.
+     * 
+     * @param respWriter The writer used to store the DSML response
+     * @throws Exception If we had an error while getting or writing the response
+     */
+    private void writeNextResponse( BufferedWriter respWriter ) throws Exception
+    {
+        long timeout = getResponseTimeout();
+        PendingRequest pendingRequest;
+        Response response;
+
+        if ( nbUnorderedRequests > 0 )
+        {
+            pendingRequest = answeredRequests.poll( timeout, TimeUnit.MILLISECONDS );
+
+            if ( pendingRequest == null )
+            {
+                throw new LdapException( "TimeOut occurred" );
+            }
+
+            nbUnorderedRequests--;
+            response = pendingRequest.response;
+        }
+        else
+        {
+            pendingRequest = pendingRequests.poll();
+            response = pendingRequest.future.get( timeout, TimeUnit.MILLISECONDS );
+
+            if ( response == null )
+            {
+                throw new LdapException( "TimeOut occurred" );
+            }
+        }
+
+        // The DSML requestID must be sent back, not the LDAP message ID
+        response.setMessageId( pendingRequest.requestId );
+
+        DsmlDecorator<?> responseDsml;
+
+        switch ( response.getType() )
+        {
+            case ADD_RESPONSE:
+                responseDsml = new AddResponseDsml( connection.getCodecService(), ( AddResponse ) response );
+                break;
+
+            case COMPARE_RESPONSE:
+                responseDsml = new CompareResponseDsml( connection.getCodecService(), ( CompareResponse ) response );
+                break;
+
+            case DEL_RESPONSE:
+                responseDsml = new DelResponseDsml( connection.getCodecService(), ( DeleteResponse ) response );
+                break;
+
+            case MODIFY_RESPONSE:
+                responseDsml = new ModifyResponseDsml( connection.getCodecService(), ( ModifyResponse ) response );
+                break;
+
+            case MODIFYDN_RESPONSE:
+                responseDsml = new ModDNResponseDsml( connection.getCodecService(), ( ModifyDnResponse ) response );
+                break;
+
+            default:
+                throw new IllegalStateException( "Unexpected response type " + response.getType() );
+        }
+
+        writeResponse( respWriter, responseDsml );
+        checkResultCode( ( ( ResultResponse ) response ).getLdapResult().getResultCode() );
+    }
+
+
     /**
      * Processes the BatchRequest
      * <ul>
@@ -0,0 +1,334 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.dsmlv2.engine;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.codec.api.LdapApiServiceFactory;
+import org.apache.directory.api.ldap.model.message.DeleteRequest;
+import org.apache.directory.api.ldap.model.message.DeleteResponse;
+import org.apache.directory.api.ldap.model.message.DeleteResponseImpl;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.ldap.client.api.LdapAsyncConnection;
+import org.apache.directory.ldap.client.api.LdapConnectionConfig;
+import org.apache.directory.ldap.client.api.LdapNetworkConnection;
+import org.apache.directory.ldap.client.api.future.DeleteFuture;
+import org.apache.directory.ldap.client.api.future.ResponseListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+
+/**
+ * Tests the Dsmlv2Engine processing of the parallel batches, using a mocked connection.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class Dsmlv2EngineTest
+{
+    /** The timeout of the mocked connection */
+    private static final long TIMEOUT = 5000L;
+
+    /** The mocked connection */
+    private LdapAsyncConnection connection;
+
+    /** The futures of the sent requests, in the order they were sent */
+    private final List<TestFuture> futures = new ArrayList<TestFuture>();
+
+    /** Counted down when a request is sent */
+    private CountDownLatch sent;
+
+    /** Counted down when a listener is set on a future */
+    private CountDownLatch listened;
+
+    /** If the futures are completed when their response is requested */
+    private boolean completedOnGet;
+
+    /** The maximum number of requests sent and waiting for their response */
+    private int maxPending;
+
+
+    /**
+     * A DeleteFuture which can be completed by the test
+     */
+    private class TestFuture extends DeleteFuture
+    {
+        private boolean completed;
+
+        private boolean gotten;
+
+
+        TestFuture( LdapAsyncConnection connection, int messageId )
+        {
+            super( connection, messageId );
+        }
+
+
+        synchronized void complete() throws InterruptedException
+        {
+            if ( !completed )
+            {
+                completed = true;
+                DeleteResponse response = new DeleteResponseImpl( messageId );
+                response.getLdapResult().setResultCode( ResultCodeEnum.SUCCESS );
+                set( response );
+            }
+        }
+
+
+        @Override
+        public DeleteResponse get( long timeout, TimeUnit unit ) throws InterruptedException
+        {
+            // The engine must wait as long as it has been configured to
+            assertEquals( TIMEOUT, unit.toMillis( timeout ) );
+
+            if ( completedOnGet )
+            {
+                complete();
+            }
+
+            DeleteResponse response = super.get( timeout, unit );
+
+            synchronized ( futures )
+            {
+                gotten = true;
+            }
+
+            return response;
+        }
+
+
+        @Override
+        public void setListener( ResponseListener<DeleteResponse> listener )
+        {
+            super.setListener( listener );
+            listened.countDown();
+        }
+    }
+
+
+    @Before
+    public void setup() throws Exception
+    {
+        connection = mock( LdapAsyncConnection.class );
+        when( connection.isAuthenticated() ).thenReturn( true );
+        when( connection.getCodecService() ).thenReturn( LdapApiServiceFactory.getSingleton() );
+        when( connection.deleteAsync( any( DeleteRequest.class ) ) ).thenAnswer( new Answer<DeleteFuture>()
+        {
+            public DeleteFuture answer( InvocationOnMock invocation )
+            {
+                synchronized ( futures )
+                {
+                    int pending = 0;
+
+                    for ( TestFuture future : futures )
+                    {
+                        if ( !future.gotten )
+                        {
+                            pending++;
+                        }
+                    }
+
+                    maxPending = Math.max( maxPending, pending + 1 );
+
+                    TestFuture future = new TestFuture( connection, futures.size() + 1 );
+                    futures.add( future );
+                    sent.countDown();
+
+                    return future;
+                }
+            }
+        } );
+    }
+
+
+    /**
+     * Creates a parallel batch of delete requests
+     */
+    private static String createBatch( String responseOrder, int nbRequests )
+    {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append( "<batchRequest processing=\"parallel\" responseOrder=\"" ).append( responseOrder ).append( "\">" );
+
+        for ( int i = 1; i <= nbRequests; i++ )
+        {
+            sb.append( "<delRequest requestID=\"" ).append( i ).append( "\" dn=\"cn=entry" ).append( i )
+                .append( ",dc=example,dc=com\"/>" );
+        }
+
+        sb.append( "</batchRequest>" );
+
+        return sb.toString();
+    }
+
+
+    /**
+     * @return The requestIDs of the delResponses, in the order they have been written
+     */
+    private static List<Integer> getResponseIds( String dsml )
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        int index = dsml.indexOf( "<delResponse" );
+
+        while ( index >= 0 )
+        {
+            int start = dsml.indexOf( "requestID=\"", index ) + "requestID=\"".length();
+            ids.add( Integer.valueOf( dsml.substring( start, dsml.indexOf( '"', start ) ) ) );
+            index = dsml.indexOf( "<delResponse", start );
+        }
+
+        return ids;
+    }
+
+
+    /**
+     * Completes the futures in the reverse order they have been created, once the
+     * given latch has been released
+     */
+    private Thread completeInReverseOrder( final CountDownLatch latch )
+    {
+        Thread completer = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    latch.await();
+
+                    for ( int i = futures.size() - 1; i >= 0; i-- )
+                    {
+                        futures.get( i ).complete();
+                    }
+                }
+                catch ( InterruptedException ie )
+                {
+                    // The test fails
+                }
+            }
+        };
+
+        completer.start();
+
+        return completer;
+    }
+
+
+    /**
+     * Check that the responses of a parallel batch are written in the order of the
+     * requests when the responseOrder is sequential, even if they are received in
+     * the reverse order
+     */
+    @Test
+    public void testParallelSequential() throws Exception
+    {
+        sent = new CountDownLatch( 3 );
+        listened = new CountDownLatch( 0 );
+        Thread completer = completeInReverseOrder( sent );
+
+        Dsmlv2Engine engine = new Dsmlv2Engine( connection, "uid=admin,ou=system", "secret" );
+        engine.setResponseTimeout( TIMEOUT );
+        String response = engine.processDSML( createBatch( "sequential", 3 ) );
+
+        completer.join();
+
+        assertEquals( 3, futures.size() );
+        assertEquals( "[1, 2, 3]", getResponseIds( response ).toString() );
+    }
+
+
+    /**
+     * Check that the responses of a parallel batch are written in the order they
+     * are received when the responseOrder is unordered
+     */
+    @Test
+    public void testParallelUnordered() throws Exception
+    {
+        sent = new CountDownLatch( 3 );
+        listened = new CountDownLatch( 3 );
+        Thread completer = completeInReverseOrder( listened );
+
+        Dsmlv2Engine engine = new Dsmlv2Engine( connection, "uid=admin,ou=system", "secret" );
+        engine.setResponseTimeout( TIMEOUT );
+        String response = engine.processDSML( createBatch( "unordered", 3 ) );
+
+        completer.join();
+
+        assertEquals( 3, futures.size() );
+        assertEquals( "[3, 2, 1]", getResponseIds( response ).toString() );
+    }
+
+
+    /**
+     * Check that no more than maxParallelRequests requests wait for their response
+     */
+    @Test
+    public void testMaxParallelRequests() throws Exception
+    {
+        sent = new CountDownLatch( 10 );
+        listened = new CountDownLatch( 0 );
+        completedOnGet = true;
+
+        Dsmlv2Engine engine = new Dsmlv2Engine( connection, "uid=admin,ou=system", "secret" );
+        engine.setResponseTimeout( TIMEOUT );
+        engine.setMaxParallelRequests( 2 );
+        String response = engine.processDSML( createBatch( "sequential", 10 ) );
+
+        assertEquals( 10, futures.size() );
+        assertEquals( "[1, 2, 3, 4, 5, 6, 7, 8, 9, 10]", getResponseIds( response ).toString() );
+        assertTrue( maxPending <= 2 );
+        assertEquals( 2, maxPending );
+    }
+
+
+    /**
+     * The response timeout defaults to the timeout of a LdapNetworkConnection
+     */
+    @Test
+    public void testResponseTimeout() throws Exception
+    {
+        Dsmlv2Engine engine = new Dsmlv2Engine( connection, "uid=admin,ou=system", "secret" );
+
+        assertEquals( LdapConnectionConfig.DEFAULT_TIMEOUT, engine.getResponseTimeout() );
+
+        LdapNetworkConnection networkConnection = new LdapNetworkConnection( "localhost", 10389 );
+        networkConnection.setTimeOut( 1234L );
+        engine = new Dsmlv2Engine( networkConnection, "uid=admin,ou=system", "secret" );
+
+        assertEquals( 1234L, engine.getResponseTimeout() );
+
+        engine.setResponseTimeout( TIMEOUT );
+
+        assertEquals( TIMEOUT, engine.getResponseTimeout() );
+
+        networkConnection.close();
+    }
+}
@@ -20,6 +20,8 @@
 package org.apache.directory.api.dsmlv2;
 
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -193,6 +195,71 @@ public final class ParserUtils
     }
 
 
+    /**
+     * Writes a text to a writer, escaping the characters which can't be written as is
+     * in an XML element text or in an XML attribute value.
+     *
+     * @param writer the writer
+     * @param text the text to write
+     * @param isAttribute tells if the text is an attribute value, written between double quotes
+     * @throws IOException if the text can't be written
+     */
+    public static void writeEscaped( Writer writer, String text, boolean isAttribute ) throws IOException
+    {
+        int start = 0;
+        int length = text.length();
+
+        for ( int i = 0; i < length; i++ )
+        {
+            String entity;
+
+            switch ( text.charAt( i ) )
+            {
+                case '&':
+                    entity = "&amp;";
+                    break;
+
+                case '<':
+                    entity = "&lt;";
+                    break;
+
+                case '>':
+                    entity = "&gt;";
+                    break;
+
+                case '"':
+                    entity = isAttribute ? "&quot;" : null;
+                    break;
+
+                case '\n':
+                    entity = isAttribute ? "&#10;" : null;
+                    break;
+
+                case '\r':
+                    entity = isAttribute ? "&#13;" : null;
+                    break;
+
+                case '\t':
+                    entity = isAttribute ? "&#9;" : null;
+                    break;
+
+                default:
+                    entity = null;
+                    break;
+            }
+
+            if ( entity != null )
+            {
+                writer.write( text, start, i - start );
+                writer.write( entity );
+                start = i + 1;
+            }
+        }
+
+        writer.write( text, start, length - start );
+    }
+
+
     /**
      * Parses and verify the parsed value of the requestID
      * 
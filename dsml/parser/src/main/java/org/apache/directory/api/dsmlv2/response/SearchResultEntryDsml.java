@@ -20,6 +20,9 @@
 package org.apache.directory.api.dsmlv2.response;
 
 
+import java.io.IOException;
+import java.io.Writer;
+
 import org.apache.directory.api.dsmlv2.ParserUtils;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.model.entry.Attribute;
@@ -184,6 +187,73 @@ public class SearchResultEntryDsml
     }
 
 
+    /**
+     * Writes the searchResultEntry element directly to a writer, without building its dom4j
+     * representation, so that a search response can be written entry by entry. The
+     * written element is the one produced by {@link #toDsml(Element)}, the xsd and xsi
+     * namespaces being declared by the enclosing batchResponse.
+     *
+     * @param writer the writer
+     * @throws IOException if the element can't be written
+     */
+    public void writeDsml( Writer writer ) throws IOException
+    {
+        SearchResultEntry searchResultEntry = ( SearchResultEntry ) getDecorated();
+
+        writer.write( '<' );
+        writer.write( SEARCH_RESULT_ENTRY_TAG );
+        writer.write( " dn=\"" );
+        ParserUtils.writeEscaped( writer, searchResultEntry.getObjectName().getName(), true );
+        writer.write( '"' );
+
+        Entry entry = searchResultEntry.getEntry();
+
+        if ( entry.size() == 0 )
+        {
+            writer.write( "/>" );
+
+            return;
+        }
+
+        writer.write( '>' );
+
+        for ( Attribute attribute : entry )
+        {
+            writer.write( "<attr name=\"" );
+            ParserUtils.writeEscaped( writer, attribute.getUpId(), true );
+            writer.write( "\">" );
+
+            for ( Value<?> value : attribute )
+            {
+                if ( ParserUtils.needsBase64Encoding( value.getValue() ) )
+                {
+                    writer.write( "<value " );
+                    writer.write( ParserUtils.XSI );
+                    writer.write( ":type=\"" );
+                    writer.write( ParserUtils.XSD );
+                    writer.write( ':' );
+                    writer.write( ParserUtils.BASE64BINARY );
+                    writer.write( "\">" );
+                    writer.write( ParserUtils.base64Encode( value.getValue() ) );
+                }
+                else
+                {
+                    writer.write( "<value>" );
+                    ParserUtils.writeEscaped( writer, value.getString(), false );
+                }
+
+                writer.write( "</value>" );
+            }
+
+            writer.write( "</attr>" );
+        }
+
+        writer.write( "</" );
+        writer.write( SEARCH_RESULT_ENTRY_TAG );
+        writer.write( '>' );
+    }
+
+
     /**
      * Get the entry Dn
      * 
@@ -24,6 +24,7 @@ package org.apache.directory.api.dsmlv2;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.StringWriter;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -89,6 +90,26 @@ public class ParserUtilsTest extends AbstractTest
     }
 
 
+    /**
+     * Test the escaping of the texts written by the streaming DSML writers
+     */
+    @Test
+    public void testWriteEscaped() throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        ParserUtils.writeEscaped( writer, "a<b>&\"c\"\n", false );
+        assertEquals( "a&lt;b&gt;&amp;\"c\"\n", writer.toString() );
+
+        writer = new StringWriter();
+        ParserUtils.writeEscaped( writer, "cn=\"a&b\",\tou=system\n", true );
+        assertEquals( "cn=&quot;a&amp;b&quot;,&#9;ou=system&#10;", writer.toString() );
+
+        writer = new StringWriter();
+        ParserUtils.writeEscaped( writer, "", true );
+        assertEquals( "", writer.toString() );
+    }
+
+
     private int countNewlines( String dsml )
     {
         return count( NEW_LINE_PATTERN, dsml );
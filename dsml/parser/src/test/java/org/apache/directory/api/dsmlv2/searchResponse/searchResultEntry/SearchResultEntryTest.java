@@ -26,6 +26,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Map;
@@ -36,13 +37,18 @@ import com.mycila.junit.concurrent.ConcurrentJunitRunner;
 import org.apache.directory.api.dsmlv2.AbstractResponseTest;
 import org.apache.directory.api.dsmlv2.DsmlControl;
 import org.apache.directory.api.dsmlv2.Dsmlv2ResponseParser;
+import org.apache.directory.api.dsmlv2.ParserUtils;
 import org.apache.directory.api.dsmlv2.response.SearchResponse;
 import org.apache.directory.api.dsmlv2.response.SearchResponseDsml;
+import org.apache.directory.api.dsmlv2.response.SearchResultEntryDsml;
 import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
 import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Value;
 import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntryImpl;
+import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.util.Strings;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -581,4 +587,83 @@ public class SearchResultEntryTest extends AbstractResponseTest
     {
         testParsingFail( SearchResultEntryTest.class, "response_with_1_attr_without_name_attribute.xml" );
     }
+
+
+    /**
+     * Test that the element written by writeDsml() is parsed as the one produced by toDsml(),
+     * for an entry with escaped characters and a binary value
+     */
+    @Test
+    public void testWriteDsml() throws Exception
+    {
+        Entry entry = new DefaultEntry( "cn=A\\<b\\> \\\"c\\\" & d,ou=system" );
+        entry.add( "objectClass", "top", "person" );
+        entry.add( "cn", "A<b> \"c\" & d" );
+        entry.add( "jpegPhoto", new byte[]
+            { 0x00, 0x01, ( byte ) 0xFF } );
+
+        assertWriteDsml( entry );
+    }
+
+
+    /**
+     * Test that the element written by writeDsml() is parsed as the one produced by toDsml(),
+     * for an entry without attribute
+     */
+    @Test
+    public void testWriteDsmlNoAttribute() throws Exception
+    {
+        assertWriteDsml( new DefaultEntry( "ou=system" ) );
+    }
+
+
+    /**
+     * Parses the searchResultEntry elements produced by writeDsml() and toDsml() for
+     * the given entry, and checks that they both give back the entry
+     */
+    private void assertWriteDsml( Entry entry ) throws Exception
+    {
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl();
+        searchResultEntry.setObjectName( entry.getDn() );
+        searchResultEntry.setEntry( entry );
+        SearchResultEntryDsml searchResultEntryDsml = new SearchResultEntryDsml( getCodec(), searchResultEntry );
+
+        StringWriter writer = new StringWriter();
+        searchResultEntryDsml.writeDsml( writer );
+
+        SearchResultEntry written = parseSearchResultEntry( writer.toString() );
+        SearchResultEntry converted = parseSearchResultEntry( searchResultEntryDsml.toDsml( null ).asXML() );
+
+        assertEquals( entry.getDn(), written.getObjectName() );
+        assertEquals( entry.getDn().getName(), written.getObjectName().getName() );
+        assertEquals( entry, written.getEntry() );
+        assertEquals( converted.getObjectName(), written.getObjectName() );
+        assertEquals( converted.getEntry(), written.getEntry() );
+    }
+
+
+    /**
+     * Parses a searchResultEntry element, in the searchResponse of a batchResponse
+     */
+    private SearchResultEntry parseSearchResultEntry( String searchResultEntry ) throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "<batchResponse " );
+        sb.append( ParserUtils.DSML_NAMESPACE.asXML() );
+        sb.append( " " );
+        sb.append( ParserUtils.XSD_NAMESPACE.asXML() );
+        sb.append( " " );
+        sb.append( ParserUtils.XSI_NAMESPACE.asXML() );
+        sb.append( "><searchResponse>" );
+        sb.append( searchResultEntry );
+        sb.append( "<searchResultDone><resultCode code=\"0\"/></searchResultDone>" );
+        sb.append( "</searchResponse></batchResponse>" );
+
+        Dsmlv2ResponseParser parser = new Dsmlv2ResponseParser( getCodec() );
+        parser.setInput( sb.toString() );
+        parser.parse();
+
+        return ( ( SearchResponse ) parser.getBatchResponse().getCurrentResponse().getDecorated() )
+            .getCurrentSearchResultEntry();
+    }
 }
@@ -69,9 +69,18 @@ public class LdapConnectionConfig
     /** The session timeout */
     private long timeout = DEFAULT_TIMEOUT;
 
+    /** The number of queued search results above which the reads are suspended, 0 for no limit */
+    private int maxSearchQueueSize = 0;
+
     /** A flag indicating if we are using TLS or not, default value is false */
     private boolean useTls = false;
 
+    /** A flag indicating if the network operations are waited for without using a monitor, default value is false */
+    private boolean monitorFreeWaits = false;
+
+    /** A flag indicating if the decoder slices the values from the received buffers, default value is false */
+    private boolean valueSlicing = false;
+
     /** The selected LDAP port */
     private int ldapPort;
 
@@ -305,6 +314,87 @@ public class LdapConnectionConfig
     }
 
 
+    /**
+     * Gets the maximum number of search results queued for a search.
+     *
+     * @return the maximum number of queued search results, 0 if there is no limit
+     */
+    public int getMaxSearchQueueSize()
+    {
+        return maxSearchQueueSize;
+    }
+
+
+    /**
+     * Sets the maximum number of search results queued for a search. When a search has
+     * this number of results waiting to be consumed, the connection stops reading from
+     * the socket until the consumer has processed half of them, so that a slow consumer
+     * does not let the server flood the client memory. As all the operations share the
+     * connection, none of them gets a response while the reads are suspended : this mode
+     * requires connections dedicated to the searches, which results must be consumed up
+     * to the SearchResultDone, or the search cancelled.
+     *
+     * @param maxSearchQueueSize the maximum number of queued search results, 0 for no limit
+     */
+    public void setMaxSearchQueueSize( int maxSearchQueueSize )
+    {
+        this.maxSearchQueueSize = maxSearchQueueSize;
+    }
+
+
+    /**
+     * Tells if the connection waits for the network operations (connection, writes and
+     * unbind) without using a monitor.
+     *
+     * @return true if the network operations are waited for without using a monitor
+     */
+    public boolean isMonitorFreeWaits()
+    {
+        return monitorFreeWaits;
+    }
+
+
+    /**
+     * Sets the flag telling if the connection waits for the network operations (connection,
+     * writes and unbind) without using a monitor. The MINA futures wait on their monitor,
+     * which pins the carrier of a virtual thread. When this flag is set, the connection rather
+     * waits on a latch released by a listener of the MINA future, at the cost of creating
+     * them for each network operation.
+     *
+     * @param monitorFreeWaits true to wait for the network operations without using a monitor
+     */
+    public void setMonitorFreeWaits( boolean monitorFreeWaits )
+    {
+        this.monitorFreeWaits = monitorFreeWaits;
+    }
+
+
+    /**
+     * Tells if the decoder slices the primitive values from the received buffers instead
+     * of copying them.
+     *
+     * @return true if the value slicing is enabled
+     */
+    public boolean isValueSlicing()
+    {
+        return valueSlicing;
+    }
+
+
+    /**
+     * Sets the flag telling if the decoder slices the primitive values from the received
+     * buffers instead of copying them. The values are only copied when the decoded message
+     * needs them, which saves a copy for the values the codec drops or converts. This flag
+     * is read when the session is created, it has no effect on an already connected session.
+     *
+     * @param valueSlicing true to enable the value slicing
+     */
+    public void setValueSlicing( boolean valueSlicing )
+    {
+        this.valueSlicing = valueSlicing;
+    }
+
+
     /**
      * Gets the supported LDAP version.
      *
@@ -21,6 +21,11 @@
 package org.apache.directory.ldap.client.api;
 
 
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.commons.pool.PoolableObjectFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
@@ -35,6 +40,13 @@ import org.slf4j.LoggerFactory;
  * This class is just a wrapper around the commons GenericObjectPool, and has
  * a more meaningful name to represent the pool type.
  * 
+ * When the pool is exhausted and configured to block, the borrowers wait on
+ * a java.util.concurrent lock and condition, instead of waiting on the monitor
+ * of the GenericObjectPool, which would pin the carrier of a virtual thread.
+ * One of them is woken up whenever a connection is returned or invalidated, and
+ * they are all woken up when the pool configuration changes or when the pool is
+ * closed.
+ * 
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
@@ -43,6 +55,15 @@ public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
 
     private PoolableObjectFactory<LdapConnection> factory;
 
+    /** The lock protecting the number of pending borrowers */
+    private final ReentrantLock borrowLock = new ReentrantLock();
+
+    /** The condition the borrowers wait on when the pool is exhausted */
+    private final Condition connectionReturned = borrowLock.newCondition();
+
+    /** The number of borrowers which are getting a connection from the pool */
+    private int nbBorrowing;
+
 
     /**
      * Instantiates a new LDAP connection pool.
@@ -120,7 +141,7 @@ public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
 
         try
         {
-            connection = super.borrowObject();
+            connection = borrowObject();
             LOG.trace( "borrowed connection {}", connection );
         }
         catch ( LdapException | RuntimeException e )
@@ -162,7 +183,7 @@ public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
     {
         try
         {
-            super.returnObject( connection );
+            returnObject( connection );
             LOG.trace( "returned connection {}", connection );
         }
         catch ( LdapException | RuntimeException e )
@@ -178,4 +199,255 @@ public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
             throw new RuntimeException( e );
         }
     }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * When the pool is exhausted and configured to block, waits for a connection to be
+     * returned before asking the GenericObjectPool for a connection.
+     * 
+     * @throws IllegalStateException If the pool is closed, or gets closed while waiting
+     */
+    @Override
+    public LdapConnection borrowObject() throws Exception
+    {
+        assertOpen();
+
+        if ( !isBlocking() )
+        {
+            return super.borrowObject();
+        }
+
+        long maxWait = getMaxWait();
+        long remaining = TimeUnit.MILLISECONDS.toNanos( maxWait );
+
+        borrowLock.lockInterruptibly();
+
+        try
+        {
+            // The configuration may have been changed while waiting
+            while ( isBlocking() && ( getNumActive() + nbBorrowing >= getMaxActive() ) )
+            {
+                if ( maxWait <= 0 )
+                {
+                    connectionReturned.await();
+                }
+                else if ( remaining <= 0L )
+                {
+                    throw new NoSuchElementException( "Timeout waiting for idle object" );
+                }
+                else
+                {
+                    remaining = connectionReturned.awaitNanos( remaining );
+                }
+
+                assertOpen();
+            }
+
+            nbBorrowing++;
+        }
+        catch ( InterruptedException | NoSuchElementException e )
+        {
+            // We may have consumed a signal which was meant to another borrower
+            signalNextBorrower();
+
+            throw e;
+        }
+        finally
+        {
+            borrowLock.unlock();
+        }
+
+        try
+        {
+            return super.borrowObject();
+        }
+        finally
+        {
+            borrowDone();
+        }
+    }
+
+
+    /**
+     * @return true if the borrowers have to wait for a connection when the pool is exhausted
+     */
+    private boolean isBlocking()
+    {
+        return ( getMaxActive() > 0 ) && ( getWhenExhaustedAction() == WHEN_EXHAUSTED_BLOCK );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void returnObject( LdapConnection connection ) throws Exception
+    {
+        try
+        {
+            super.returnObject( connection );
+        }
+        finally
+        {
+            signalBorrower();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateObject( LdapConnection connection ) throws Exception
+    {
+        try
+        {
+            super.invalidateObject( connection );
+        }
+        finally
+        {
+            signalBorrower();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        try
+        {
+            super.clear();
+        }
+        finally
+        {
+            signalBorrower();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The borrowers waiting for a connection get an IllegalStateException.
+     */
+    @Override
+    public void close() throws Exception
+    {
+        try
+        {
+            super.close();
+        }
+        finally
+        {
+            signalBorrowers();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMaxActive( int maxActive )
+    {
+        super.setMaxActive( maxActive );
+        signalBorrowers();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setWhenExhaustedAction( byte whenExhaustedAction )
+    {
+        super.setWhenExhaustedAction( whenExhaustedAction );
+        signalBorrowers();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setConfig( Config conf )
+    {
+        super.setConfig( conf );
+        signalBorrowers();
+    }
+
+
+    /**
+     * A borrower got its connection, or failed to get it
+     */
+    private void borrowDone()
+    {
+        borrowLock.lock();
+
+        try
+        {
+            nbBorrowing--;
+            connectionReturned.signal();
+        }
+        finally
+        {
+            borrowLock.unlock();
+        }
+    }
+
+
+    /**
+     * Wake up one borrower waiting for a connection, so that it checks the pool again.
+     * A borrower which gives up after having been woken up passes the signal on.
+     */
+    private void signalBorrower()
+    {
+        borrowLock.lock();
+
+        try
+        {
+            connectionReturned.signal();
+        }
+        finally
+        {
+            borrowLock.unlock();
+        }
+    }
+
+
+    /**
+     * Passes the signal on to another waiting borrower if the pool can give it a connection.
+     * Must be called while holding the borrowLock.
+     */
+    private void signalNextBorrower()
+    {
+        if ( !isBlocking() || ( getNumActive() + nbBorrowing < getMaxActive() ) )
+        {
+            connectionReturned.signal();
+        }
+    }
+
+
+    /**
+     * Wake up all the borrowers waiting for a connection, so that they check the pool
+     * again. Used when the pool is closed or when its configuration changes.
+     */
+    private void signalBorrowers()
+    {
+        borrowLock.lock();
+
+        try
+        {
+            connectionReturned.signalAll();
+        }
+        finally
+        {
+            borrowLock.unlock();
+        }
+    }
 }
@@ -40,6 +40,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
@@ -63,6 +64,7 @@ import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
 import org.apache.directory.api.ldap.codec.api.MessageDecorator;
 import org.apache.directory.api.ldap.codec.api.MessageEncoderException;
 import org.apache.directory.api.ldap.codec.api.SchemaBinaryAttributeDetector;
+import org.apache.directory.api.ldap.codec.api.SearchResultEntryListener;
 import org.apache.directory.api.ldap.extras.extended.startTls.StartTlsRequestImpl;
 import org.apache.directory.api.ldap.model.constants.LdapConstants;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
@@ -228,6 +230,10 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
      */
     private List<ConnectionClosedEventListener> conCloseListeners;
 
+    /** The listeners the SearchResultEntry values are streamed to, per search message ID */
+    private final Map<Integer, SearchResultEntryListener> searchResultEntryListeners =
+        new ConcurrentHashMap<Integer, SearchResultEntryListener>();
+
     /** The Ldap codec protocol filter */
     private IoFilter ldapProtocolFilter = new ProtocolCodecFilter( codec.getProtocolCodecFactory() );
 
@@ -667,7 +673,14 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
             // Wait until it's established
             try
             {
-                result = connectionFuture.await( timeout );
+                if ( config.isMonitorFreeWaits() )
+                {
+                    result = completionLatch( connectionFuture ).await( timeout, TimeUnit.MILLISECONDS );
+                }
+                else
+                {
+                    result = connectionFuture.await( timeout );
+                }
             }
             catch ( InterruptedException e )
             {
@@ -857,8 +870,11 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
                 atDetector = new SchemaBinaryAttributeDetector( schemaManager );
             }
 
-            ldapSession.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR,
-                new LdapMessageContainer<MessageDecorator<? extends Message>>( codec, atDetector ) );
+            LdapMessageContainer<MessageDecorator<? extends Message>> newContainer =
+                new LdapMessageContainer<MessageDecorator<? extends Message>>( codec, atDetector );
+            newContainer.setSearchResultEntryListeners( searchResultEntryListeners );
+
+            ldapSession.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR, newContainer );
         }
 
         // Initialize the MessageId
@@ -1110,6 +1126,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
         int abandonId = abandonRequest.getAbandoned();
 
         ResponseFuture<? extends Response> rf = getFromFutureMap( abandonId );
+        searchResultEntryListeners.remove( abandonId );
 
         // if the listener is not null, this is a async operation and no need to
         // send cancel signal on future, sending so will leave a dangling poision object in the corresponding queue
@@ -1800,6 +1817,25 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
      */
     @Override
     public SearchFuture searchAsync( SearchRequest searchRequest ) throws LdapException
+    {
+        return searchAsync( searchRequest, null );
+    }
+
+
+    /**
+     * Performs an asynchronous search operation, streaming the attributes and values of the
+     * returned SearchResultEntries to the given listener while they are decoded. The entries
+     * returned by this search then only contain their Dn, which allows the processing of entries
+     * with very large multi-valued attributes without holding all their values in memory. The
+     * other operations sent on this connection are not affected.
+     *
+     * @param searchRequest The search request to send
+     * @param searchResultEntryListener The listener, or null to get back fully populated entries
+     * @return A Future
+     * @throws LdapException If the search failed
+     */
+    public SearchFuture searchAsync( SearchRequest searchRequest, SearchResultEntryListener searchResultEntryListener )
+        throws LdapException
     {
         if ( searchRequest == null )
         {
@@ -1832,15 +1868,35 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
 
         LOG.debug( "Sending request \n{}", searchRequest );
 
-        SearchFuture searchFuture = new SearchFuture( this, searchRequest.getMessageId() );
+        SearchFuture searchFuture;
+
+        if ( config.getMaxSearchQueueSize() > 0 )
+        {
+            // Suspend the reads when the consumer does not keep up
+            searchFuture = new SearchFuture( this, searchRequest.getMessageId(), ldapSession,
+                config.getMaxSearchQueueSize() );
+        }
+        else
+        {
+            searchFuture = new SearchFuture( this, searchRequest.getMessageId() );
+        }
+
         addToFutureMap( searchRequest.getMessageId(), searchFuture );
 
+        if ( searchResultEntryListener != null )
+        {
+            // Must be registered before the first entry can be received
+            searchResultEntryListeners.put( searchRequest.getMessageId(), searchResultEntryListener );
+        }
+
         // Send the request to the server
         writeRequest( searchRequest );
 
         // Check that the future hasn't be canceled
         if ( searchFuture.isCancelled() )
         {
+            searchResultEntryListeners.remove( searchRequest.getMessageId() );
+
             // Throw an exception here
             throw new LdapException( searchFuture.getCause() );
         }
@@ -1855,6 +1911,23 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
      */
     @Override
     public SearchCursor search( SearchRequest searchRequest ) throws LdapException
+    {
+        return search( searchRequest, null );
+    }
+
+
+    /**
+     * Performs a search operation, streaming the attributes and values of the returned
+     * SearchResultEntries to the given listener while they are decoded.
+     *
+     * @see #searchAsync(SearchRequest, SearchResultEntryListener)
+     * @param searchRequest The search request to send
+     * @param searchResultEntryListener The listener, or null to get back fully populated entries
+     * @return A cursor on the result
+     * @throws LdapException If the search failed
+     */
+    public SearchCursor search( SearchRequest searchRequest, SearchResultEntryListener searchResultEntryListener )
+        throws LdapException
     {
         if ( searchRequest == null )
         {
@@ -1863,7 +1936,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
             throw new IllegalArgumentException( msg );
         }
 
-        SearchFuture searchFuture = searchAsync( searchRequest );
+        SearchFuture searchFuture = searchAsync( searchRequest, searchResultEntryListener );
 
         long searchTimeout = getTimeout( timeout, searchRequest.getTimeLimit() );
 
@@ -1897,7 +1970,14 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
         // Use this for logging instead: WriteFuture unbindFuture = ldapSession.write( unbindRequest );
         WriteFuture unbindFuture = ldapSession.write( unbindRequest );
 
-        unbindFuture.awaitUninterruptibly( timeout );
+        if ( config.isMonitorFreeWaits() )
+        {
+            awaitUninterruptibly( completionLatch( unbindFuture ), timeout );
+        }
+        else
+        {
+            unbindFuture.awaitUninterruptibly( timeout );
+        }
 
         authenticated.set( false );
 
@@ -1960,6 +2040,17 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     }
 
 
+    /**
+     * Get the timeout for the responses.
+     *
+     * @return The timeout, in milliseconds
+     */
+    public long getTimeOut()
+    {
+        return timeout;
+    }
+
+
     /**
      * Handle the exception we got.
      *
@@ -3632,9 +3723,12 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
             schemaManager = tmp;
 
             // Change the container's BinaryDetector
-            ldapSession.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR,
+            LdapMessageContainer<MessageDecorator<? extends Message>> container =
                 new LdapMessageContainer<MessageDecorator<? extends Message>>( codec,
-                    new SchemaBinaryAttributeDetector( schemaManager ) ) );
+                    new SchemaBinaryAttributeDetector( schemaManager ) );
+            container.setSearchResultEntryListeners( searchResultEntryListeners );
+
+            ldapSession.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR, container );
 
         }
         catch ( LdapException le )
@@ -3820,6 +3914,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     private void removeFromFutureMaps( int msgId )
     {
         getFromFutureMap( msgId );
+        searchResultEntryListeners.remove( msgId );
     }
 
 
@@ -3829,6 +3924,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     private void clearMaps()
     {
         futureMap.clear();
+        searchResultEntryListeners.clear();
     }
 
 
@@ -3855,6 +3951,18 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     }
 
 
+    /**
+     * Gets the number of requests which have been sent and which are still
+     * waiting for their last response.
+     *
+     * @return The number of outstanding requests
+     */
+    public int getNbOutstandingRequests()
+    {
+        return futureMap.size();
+    }
+
+
     /**
      * Adds the connection closed event listener.
      *
@@ -3893,8 +4001,14 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
         // Last, store the message container
         LdapMessageContainer<? extends MessageDecorator<Message>> ldapMessageContainer =
             new LdapMessageContainer<>( codec, config.getBinaryAttributeDetector() );
+        ldapMessageContainer.setSearchResultEntryListeners( searchResultEntryListeners );
 
         session.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR, ldapMessageContainer );
+
+        if ( config.isValueSlicing() )
+        {
+            session.setAttribute( LdapDecoder.VALUE_SLICING_ATTR, Boolean.TRUE );
+        }
     }
 
 
@@ -4236,6 +4350,66 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     }
 
 
+    /**
+     * Creates a latch released when a MINA future completes. The MINA futures wait on
+     * their monitor, which pins the carrier of a virtual thread, so we rather wait on
+     * the returned latch when the configuration asks for it.
+     */
+    private static CountDownLatch completionLatch( IoFuture future )
+    {
+        final CountDownLatch latch = new CountDownLatch( 1 );
+
+        future.addListener( new IoFutureListener<IoFuture>()
+        {
+            @Override
+            public void operationComplete( IoFuture completedFuture )
+            {
+                latch.countDown();
+            }
+        } );
+
+        return latch;
+    }
+
+
+    /**
+     * Waits for a latch to be released, ignoring the interruptions, which are
+     * restored once done.
+     *
+     * @return true if the latch has been released before the timeout
+     */
+    private static boolean awaitUninterruptibly( CountDownLatch latch, long timeoutMillis )
+    {
+        long remaining = TimeUnit.MILLISECONDS.toNanos( timeoutMillis );
+        boolean interrupted = false;
+
+        try
+        {
+            while ( true )
+            {
+                long start = System.nanoTime();
+
+                try
+                {
+                    return latch.await( remaining, TimeUnit.NANOSECONDS );
+                }
+                catch ( InterruptedException ie )
+                {
+                    interrupted = true;
+                    remaining -= System.nanoTime() - start;
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
     /**
      * a reusable code block to be used in various bind methods
      */
@@ -4243,13 +4417,23 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     {
         // Send the request to the server
         WriteFuture writeFuture = ldapSession.write( request );
+        CountDownLatch written = config.isMonitorFreeWaits() ? completionLatch( writeFuture ) : null;
 
         long localTimeout = timeout;
 
         while ( localTimeout > 0 )
         {
             // Wait only 100 ms
-            boolean done = writeFuture.awaitUninterruptibly( 100 );
+            boolean done;
+
+            if ( written == null )
+            {
+                done = writeFuture.awaitUninterruptibly( 100 );
+            }
+            else
+            {
+                done = awaitUninterruptibly( written, 100 );
+            }
 
             if ( done )
             {
@@ -31,12 +31,21 @@ import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.entry.Attribute;
@@ -54,6 +63,7 @@ import org.apache.directory.api.ldap.model.ldif.ChangeType;
 import org.apache.directory.api.ldap.model.ldif.LdifEntry;
 import org.apache.directory.api.ldap.model.ldif.LdifReader;
 import org.apache.directory.api.ldap.model.ldif.LdifUtils;
+import org.apache.directory.api.ldap.model.ldif.ParallelLdifReader;
 import org.apache.directory.api.ldap.model.ldif.anonymizer.Anonymizer;
 import org.apache.directory.api.ldap.model.ldif.anonymizer.BinaryAnonymizer;
 import org.apache.directory.api.ldap.model.ldif.anonymizer.CaseSensitiveStringAnonymizer;
@@ -112,15 +122,33 @@ import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
  * <li>memberUid</li>
  * </ul>
  *
+ * A file can be anonymized in parallel, setting the parallelism to more than 1 : the file is
+ * then read by a {@link ParallelLdifReader}, the entries are anonymized concurrently and the
+ * results are written in the original order. An original value is always replaced by the same
+ * anonymized value, whatever the thread processing it.
+ *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class LdifAnonymizer
 {
+    /** The number of locks used to serialize the anonymization of a given AttributeType's values */
+    private static final int NB_LOCKS = 64;
+
     /** The map that stores the anonymized values associated to the original value */
-    private Map<Value<?>, Value<?>> valueMap = new HashMap<>();
+    private Map<Value<?>, Value<?>> valueMap = new ConcurrentHashMap<>();
     
     /** The set that contains all the values we already have anonymized */
-    private Set<Value<?>> valueSet = new HashSet<>();
+    private Set<Value<?>> valueSet = Collections.newSetFromMap( new ConcurrentHashMap<Value<?>, Boolean>() );
+
+    /**
+     * The locks held while anonymizing an attribute. Values of different AttributeTypes are
+     * never equal, so the locks are sharded on the AttributeType : an original value can't
+     * be anonymized twice concurrently, and the anonymizers keep their map consistent
+     */
+    private Object[] locks;
+
+    /** The number of threads used to anonymize a file */
+    private int parallelism = 1;
     
     /** The latest anonymized String value Map */
     private Map<Integer, String> latestStringMap;
@@ -187,6 +215,32 @@ public class LdifAnonymizer
     }
     
     
+    /**
+     * @return The number of threads used to anonymize a file
+     */
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+
+    /**
+     * Set the number of threads used to anonymize a file. If more than 1, the file
+     * is read, anonymized and written concurrently. Default to 1.
+     *
+     * @param parallelism The number of threads to use
+     */
+    public void setParallelism( int parallelism )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "The parallelism must be at least 1 : " + parallelism );
+        }
+
+        this.parallelism = parallelism;
+    }
+
+
     /**
      * Print the string into the PrintStream
      */
@@ -229,6 +283,13 @@ public class LdifAnonymizer
     private void init( Map<Integer, String> stringLatestValueMap, Map<Integer, byte[]> binaryLatestValueMap, 
         Map<Integer, String> integerLatestValueMap, Map<Integer, String> telephoneNumberLatestValueMap )
     {
+        locks = new Object[NB_LOCKS];
+
+        for ( int i = 0; i < NB_LOCKS; i++ )
+        {
+            locks[i] = new Object();
+        }
+
         // Load the anonymizers
         attributeAnonymizers.put( SchemaConstants.CAR_LICENSE_AT_OID,
             new StringAnonymizer( stringLatestValueMap ) );
@@ -401,6 +462,21 @@ public class LdifAnonymizer
     }
 
     
+    /**
+     * Anonymize an attribute, holding the lock associated with its AttributeType
+     */
+    private Attribute anonymize( Anonymizer anonymizer, Attribute attribute )
+    {
+        int hash = attribute.getAttributeType().getOid().hashCode();
+        Object lock = locks[( hash ^ ( hash >>> 16 ) ) & ( NB_LOCKS - 1 )];
+
+        synchronized ( lock )
+        {
+            return anonymizer.anonymize( valueMap, valueSet, attribute );
+        }
+    }
+
+
     /**
      * Anonymize an AVA
      */
@@ -425,7 +501,7 @@ public class LdifAnonymizer
                 }
                 else
                 {
-                    Attribute anonymizedAttribute = anonymizer.anonymize( valueMap, valueSet, attribute );
+                    Attribute anonymizedAttribute = anonymize( anonymizer, attribute );
                     anonymizedAva = new Ava( schemaManager, ava.getType(), anonymizedAttribute.getString() );
                 }
             }
@@ -437,7 +513,7 @@ public class LdifAnonymizer
                 }
                 else
                 {
-                    Attribute anonymizedAttribute = anonymizer.anonymize( valueMap, valueSet, attribute );
+                    Attribute anonymizedAttribute = anonymize( anonymizer, attribute );
 
                     anonymizedAva = new Ava( schemaManager, ava.getType(), anonymizedAttribute.getBytes() );
                 }
@@ -532,6 +608,13 @@ public class LdifAnonymizer
             return;
         }
         
+        if ( parallelism > 1 )
+        {
+            anonymizeFileParallel( inputFile, writer );
+            
+            return;
+        }
+
         LdifReader ldifReader = new LdifReader( inputFile, schemaManager );
         int count = 0;
         List<LdifEntry> errors = new ArrayList<>();
@@ -545,110 +628,248 @@ public class LdifAnonymizer
                 
                 try
                 {
-                    if ( ldifEntry.isEntry() && !ldifEntry.isChangeAdd() )
+                    String ldif = anonymizeToLdif( ldifEntry );
+
+                    if ( ldif != null )
                     {
-                        // process a full entry. Add changes aren't processed here.
-                        Entry newEntry = anonymizeEntry( ldifEntry );
-                        
-                        writer.write( LdifUtils.convertToLdif( newEntry ) );
+                        writer.write( ldif );
                         writer.write( "\n" );
                     }
-                    else if ( ldifEntry.isChangeDelete() )
-                    {
-                        // A Delete operation
-                        LdifEntry newLdifEntry = anonymizeChangeDelete( ldifEntry );
-
-                        if ( ldifEntry != null )
-                        {
-                            writer.write( newLdifEntry.toString() );
-                            writer.write( "\n" );
-                        }
-                    }
-                    else if ( ldifEntry.isChangeAdd() )
-                    {
-                        // A Add operation
-                        LdifEntry newLdifEntry = anonymizeChangeAdd( ldifEntry );
-
-                        if ( ldifEntry != null )
-                        {
-                            writer.write( newLdifEntry.toString() );
-                            writer.write( "\n" );
-                        }
-                    }
-                    else if ( ldifEntry.isChangeModify() )
-                    {
-                        // A Modify operation
-                        LdifEntry newLdifEntry = anonymizeChangeModify( ldifEntry );
-
-                        if ( ldifEntry != null )
-                        {
-                            writer.write( newLdifEntry.toString() );
-                            writer.write( "\n" );
-                        }
-                    }
-                    else if ( ldifEntry.isChangeModDn() ||  ldifEntry.isChangeModRdn() )
-                    {
-                        // A MODDN operation
-                        LdifEntry newLdifEntry = anonymizeChangeModDn( ldifEntry );
-
-                        if ( ldifEntry != null )
-                        {
-                            writer.write( newLdifEntry.toString() );
-                            writer.write( "\n" );
-                        }
-                    }
                     
                     System.out.print( '.' );
-                    
-                    if ( count % 100  == 0 )
-                    {
-                        println();
-                    }
                 }
                 catch ( Exception e )
                 {
                     e.printStackTrace();
                     System.out.print( '*' );
 
-                    if ( count % 100  == 0 )
-                    {
-                        println();
-                    }
-                    
                     errors.add( ldifEntry );
                     errorTexts.add( e.getMessage() );
                 }
+
+                if ( count % 100  == 0 )
+                {
+                    println();
+                }
             }
 
-            println();
-            
-            if ( !errors.isEmpty() )
+            printErrors( errors, errorTexts );
+        }
+        finally
+        {
+            printSummary( errors, count );
+            ldifReader.close();
+        }
+    }
+    
+    
+    /**
+     * Anonymize a LDIF file using many threads. The entries are read by a ParallelLdifReader,
+     * anonymized concurrently on the same pool, and written in the order they were read.
+     */
+    private void anonymizeFileParallel( File inputFile, Writer writer ) throws LdapException, IOException
+    {
+        ForkJoinPool pool = new ForkJoinPool( parallelism );
+        Deque<Future<AnonymizedEntry>> pending = new ArrayDeque<>();
+        int maxPending = parallelism * 64;
+        int count = 0;
+        List<LdifEntry> errors = new ArrayList<>();
+        List<String> errorTexts = new ArrayList<>();
+
+        // The anonymizers store the values in these structures from many threads
+        if ( !( valueMap instanceof ConcurrentMap ) )
+        {
+            valueMap = new ConcurrentHashMap<>( valueMap );
+        }
+
+        try ( ParallelLdifReader ldifReader = new ParallelLdifReader( inputFile, schemaManager, pool ) )
+        {
+            for ( final LdifEntry ldifEntry : ldifReader )
             {
-                println( "There are " + errors.size() + " bad entries" );
-                int i = 0;
-                
-                for ( LdifEntry ldifEntry : errors )
+                pending.add( pool.submit( new Callable<AnonymizedEntry>()
                 {
-                    println( "---------------------------------------------------" );
-                    println( "error : " + errorTexts.get( i ) );
-                    println( ldifEntry.getDn().toString() );
-                    i++;
+                    @Override
+                    public AnonymizedEntry call()
+                    {
+                        return anonymizeEntryConcurrently( ldifEntry );
+                    }
+                } ) );
+
+                // Don't let the anonymization go too far ahead of the writer
+                if ( pending.size() >= maxPending )
+                {
+                    count++;
+                    write( pending.poll(), writer, count, errors, errorTexts );
                 }
             }
+
+            while ( !pending.isEmpty() )
+            {
+                count++;
+                write( pending.poll(), writer, count, errors, errorTexts );
+            }
+
+            if ( ldifReader.hasError() )
+            {
+                throw ldifReader.getError();
+            }
+
+            printErrors( errors, errorTexts );
         }
         finally
+        {
+            pool.shutdownNow();
+            printSummary( errors, count );
+        }
+    }
+
+
+    /**
+     * Anonymize an entry, catching the exception so that it can be reported in order
+     */
+    private AnonymizedEntry anonymizeEntryConcurrently( LdifEntry ldifEntry )
+    {
+        try
+        {
+            return new AnonymizedEntry( ldifEntry, anonymizeToLdif( ldifEntry ), null );
+        }
+        catch ( Exception e )
+        {
+            return new AnonymizedEntry( ldifEntry, null, e );
+        }
+    }
+
+
+    /**
+     * Wait for an anonymized entry to be available, and write it
+     */
+    private void write( Future<AnonymizedEntry> future, Writer writer, int count, List<LdifEntry> errors,
+        List<String> errorTexts ) throws IOException
+    {
+        AnonymizedEntry anonymizedEntry;
+
+        try
+        {
+            anonymizedEntry = future.get();
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( ie.getMessage(), ie );
+        }
+        catch ( ExecutionException ee )
+        {
+            throw new IOException( ee.getCause().getMessage(), ee.getCause() );
+        }
+
+        if ( anonymizedEntry.error == null )
+        {
+            if ( anonymizedEntry.ldif != null )
+            {
+                writer.write( anonymizedEntry.ldif );
+                writer.write( "\n" );
+            }
+
+            System.out.print( '.' );
+        }
+        else
+        {
+            anonymizedEntry.error.printStackTrace();
+            System.out.print( '*' );
+
+            errors.add( anonymizedEntry.ldifEntry );
+            errorTexts.add( anonymizedEntry.error.getMessage() );
+        }
+
+        if ( count % 100  == 0 )
         {
             println();
+        }
+    }
+
+
+    /**
+     * Anonymize an entry or a change, and return the resulting LDIF
+     */
+    private String anonymizeToLdif( LdifEntry ldifEntry ) throws LdapException
+    {
+        if ( ldifEntry.isEntry() && !ldifEntry.isChangeAdd() )
+        {
+            // process a full entry. Add changes aren't processed here.
+            Entry newEntry = anonymizeEntry( ldifEntry );
+
+            return LdifUtils.convertToLdif( newEntry );
+        }
+
+        LdifEntry newLdifEntry = null;
+
+        if ( ldifEntry.isChangeDelete() )
+        {
+            // A Delete operation
+            newLdifEntry = anonymizeChangeDelete( ldifEntry );
+        }
+        else if ( ldifEntry.isChangeAdd() )
+        {
+            // A Add operation
+            newLdifEntry = anonymizeChangeAdd( ldifEntry );
+        }
+        else if ( ldifEntry.isChangeModify() )
+        {
+            // A Modify operation
+            newLdifEntry = anonymizeChangeModify( ldifEntry );
+        }
+        else if ( ldifEntry.isChangeModDn() || ldifEntry.isChangeModRdn() )
+        {
+            // A MODDN operation
+            newLdifEntry = anonymizeChangeModDn( ldifEntry );
+        }
+
+        if ( newLdifEntry == null )
+        {
+            return null;
+        }
+
+        return newLdifEntry.toString();
+    }
+
 
-            if ( !errors.isEmpty() )
+    /**
+     * Print the entries we weren't able to anonymize
+     */
+    private void printErrors( List<LdifEntry> errors, List<String> errorTexts )
+    {
+        println();
+        
+        if ( !errors.isEmpty() )
+        {
+            println( "There are " + errors.size() + " bad entries" );
+            int i = 0;
+            
+            for ( LdifEntry ldifEntry : errors )
             {
-                println( "There are " + errors.size() + " bad entries" );
+                println( "---------------------------------------------------" );
+                println( "error : " + errorTexts.get( i ) );
+                println( ldifEntry.getDn().toString() );
+                i++;
             }
-                
-            println( "Nb entries : " + count ); 
-            ldifReader.close();
         }
     }
+
+
+    /**
+     * Print the number of processed and bad entries
+     */
+    private void printSummary( List<LdifEntry> errors, int count )
+    {
+        println();
+
+        if ( !errors.isEmpty() )
+        {
+            println( "There are " + errors.size() + " bad entries" );
+        }
+            
+        println( "Nb entries : " + count ); 
+    }
     
     
     /**
@@ -706,7 +927,7 @@ public class LdifAnonymizer
                 }
                 else
                 {
-                    Attribute anonymizedAttribute = anonymizer.anonymize( valueMap, valueSet, attribute );
+                    Attribute anonymizedAttribute = anonymize( anonymizer, attribute );
                     
                     Modification anonymizedModification = new DefaultModification( modification.getOperation(), anonymizedAttribute );
                     newLdifEntry.addModification( anonymizedModification );
@@ -761,7 +982,7 @@ public class LdifAnonymizer
                 }
                 else
                 {
-                    anonymizedAttribute = anonymizer.anonymize( valueMap, valueSet, attribute );
+                    anonymizedAttribute = anonymize( anonymizer, attribute );
                     
                     if ( anonymizedAttribute != null )
                     {
@@ -896,7 +1117,7 @@ public class LdifAnonymizer
                 }
                 else
                 {
-                    Attribute anonymizedAttribute = anonymizer.anonymize( valueMap, valueSet, attribute );
+                    Attribute anonymizedAttribute = anonymize( anonymizer, attribute );
                     
                     if ( anonymizedAttribute != null )
                     {
@@ -931,57 +1152,12 @@ public class LdifAnonymizer
 
             for ( LdifEntry ldifEntry : entries )
             {
-                if ( ldifEntry.isEntry() && !ldifEntry.isChangeAdd() )
-                {
-                    // process a full entry. Add changes aren't preocessed ghere.
-                    Entry newEntry = anonymizeEntry( ldifEntry );
-                    
-                    result.append( LdifUtils.convertToLdif( newEntry ) );
-                    result.append( "\n" );
-                }
-                else if ( ldifEntry.isChangeDelete() )
-                {
-                    // A Delete operation
-                    LdifEntry newLdifEntry = anonymizeChangeDelete( ldifEntry );
-
-                    if ( newLdifEntry != null )
-                    {
-                        result.append( newLdifEntry );
-                        result.append( "\n" );
-                    }
-                }
-                else if ( ldifEntry.isChangeAdd() )
-                {
-                    // A Add operation
-                    LdifEntry newLdifEntry = anonymizeChangeAdd( ldifEntry );
+                String anonymizedLdif = anonymizeToLdif( ldifEntry );
 
-                    if ( newLdifEntry != null )
-                    {
-                        result.append( newLdifEntry );
-                        result.append( "\n" );
-                    }
-                }
-                else if ( ldifEntry.isChangeModify() )
+                if ( anonymizedLdif != null )
                 {
-                    // A Modify operation
-                    LdifEntry newLdifEntry = anonymizeChangeModify( ldifEntry );
-
-                    if ( newLdifEntry != null )
-                    {
-                        result.append( newLdifEntry );
-                        result.append( "\n" );
-                    }
-                }
-                else if ( ldifEntry.isChangeModDn() ||  ldifEntry.isChangeModRdn() )
-                {
-                    // A MODDN operation
-                    LdifEntry newLdifEntry = anonymizeChangeModDn( ldifEntry );
-
-                    if ( newLdifEntry != null )
-                    {
-                        result.append( newLdifEntry );
-                        result.append( "\n" );
-                    }
+                    result.append( anonymizedLdif );
+                    result.append( "\n" );
                 }
             }
 
@@ -1053,6 +1229,30 @@ public class LdifAnonymizer
     }
 
 
+    /**
+     * The result of the anonymization of an entry, computed by a pool thread
+     */
+    private static class AnonymizedEntry
+    {
+        /** The original entry */
+        private final LdifEntry ldifEntry;
+
+        /** The anonymized LDIF, null if nothing has to be written */
+        private final String ldif;
+
+        /** The exception thrown while anonymizing the entry, if any */
+        private final Exception error;
+
+
+        AnonymizedEntry( LdifEntry ldifEntry, String ldif, Exception error )
+        {
+            this.ldifEntry = ldifEntry;
+            this.ldif = ldif;
+            this.error = error;
+        }
+    }
+
+
     /**
      * The entry point, when used as a standalone application.
      *
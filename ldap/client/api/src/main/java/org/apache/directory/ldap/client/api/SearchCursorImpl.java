@@ -78,6 +78,10 @@ public class SearchCursorImpl extends AbstractCursor<Response> implements Search
     /** a reference to hold the SearchResultDone response */
     private SearchResultDone searchDoneResp;
 
+    /** Cancels a flow controlled search if the cursor is garbage collected without having been closed */
+    @SuppressWarnings("unused")
+    private Object finalizerGuard;
+
 
     /**
      * Instantiates a new search cursor.
@@ -96,6 +100,41 @@ public class SearchCursorImpl extends AbstractCursor<Response> implements Search
         this.future = future;
         this.timeout = timeout;
         this.timeUnit = timeUnit;
+
+        if ( future.isFlowControlled() )
+        {
+            // Otherwise the reads may stay suspended forever
+            finalizerGuard = new Object()
+            {
+                @Override
+                protected void finalize() throws Throwable
+                {
+                    cancelAbandonedSearch();
+                }
+            };
+        }
+    }
+
+
+    /**
+     * Cancels the search when the cursor has been garbage collected before the
+     * SearchResultDone has been read, and without having been closed.
+     */
+    private void cancelAbandonedSearch()
+    {
+        if ( !done && !isClosed() && !future.isCancelled() )
+        {
+            LOG_CURSOR.warn( "The cursor on the search {} has not been closed", future );
+
+            try
+            {
+                future.cancel( true );
+            }
+            catch ( RuntimeException re )
+            {
+                LOG_CURSOR.error( "Cannot cancel the search {}", future, re );
+            }
+        }
     }
 
 
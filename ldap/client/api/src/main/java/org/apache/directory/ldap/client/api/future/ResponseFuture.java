@@ -23,11 +23,13 @@ package org.apache.directory.ldap.client.api.future;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.directory.api.ldap.model.message.Response;
 import org.apache.directory.ldap.client.api.LdapConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
@@ -38,6 +40,9 @@ import org.apache.directory.ldap.client.api.LdapConnection;
  */
 public class ResponseFuture<R extends Response> implements Future<Response>
 {
+    /** The logger */
+    private static final Logger LOG = LoggerFactory.getLogger( ResponseFuture.class );
+
     /** the blocking queue holding LDAP responses */
     protected BlockingQueue<R> queue;
 
@@ -53,6 +58,12 @@ public class ResponseFuture<R extends Response> implements Future<Response>
     /** The connection used by the request */
     protected LdapConnection connection;
 
+    /** The listener the responses are delivered to, if any */
+    private volatile ResponseListener<R> listener;
+
+    /** The lock serializing the deliveries to the listener */
+    private final ReentrantLock listenerLock = new ReentrantLock();
+
 
     /**
      * Creates a new instance of ResponseFuture.
@@ -62,7 +73,21 @@ public class ResponseFuture<R extends Response> implements Future<Response>
      */
     public ResponseFuture( LdapConnection connection, int messageId )
     {
-        queue = new LinkedBlockingQueue<>();
+        this( connection, messageId, new ResponseQueue<R>() );
+    }
+
+
+    /**
+     * Creates a new instance of ResponseFuture, storing the responses in the given queue.
+     * By default, a lock-free {@link ResponseQueue} is used.
+     *
+     * @param connection The LdapConnection used by the request
+     * @param messageId The associated message ID
+     * @param queue The queue which will hold the responses
+     */
+    public ResponseFuture( LdapConnection connection, int messageId, BlockingQueue<R> queue )
+    {
+        this.queue = queue;
         this.messageId = messageId;
         this.connection = connection;
     }
@@ -116,6 +141,76 @@ public class ResponseFuture<R extends Response> implements Future<Response>
     public void set( R response ) throws InterruptedException
     {
         queue.add( response );
+
+        if ( listener != null )
+        {
+            deliverResponses();
+        }
+    }
+
+
+    /**
+     * Sets the listener the responses will be delivered to, instead of being returned by
+     * the <tt>get</tt> methods. The responses which have already been received are
+     * delivered immediately, in order, and the following ones are delivered by the IO
+     * thread as soon as they are received. This allows many requests to be processed
+     * without blocking a thread for each of them.
+     *
+     * @param listener The listener
+     */
+    public void setListener( ResponseListener<R> listener )
+    {
+        this.listener = listener;
+
+        deliverResponses();
+    }
+
+
+    /**
+     * Delivers the queued responses to the listener. Every delivery goes through the
+     * queue, and is done while holding a lock, so that the responses are delivered in
+     * order even when the listener is set while responses are being received.
+     */
+    private void deliverResponses()
+    {
+        listenerLock.lock();
+
+        try
+        {
+            R response = queue.poll();
+
+            while ( response != null )
+            {
+                try
+                {
+                    listener.responseReceived( response );
+                }
+                catch ( RuntimeException re )
+                {
+                    // Don't let a failing listener break the IO processing
+                    LOG.error( "The listener failed to process the response {}", response, re );
+                }
+
+                responseConsumed( response );
+
+                response = queue.poll();
+            }
+        }
+        finally
+        {
+            listenerLock.unlock();
+        }
+    }
+
+
+    /**
+     * Called when a response has been consumed, either by a <tt>get</tt> method of a
+     * subclass, or by the listener.
+     *
+     * @param response The consumed response
+     */
+    protected void responseConsumed( R response )
+    {
     }
 
 
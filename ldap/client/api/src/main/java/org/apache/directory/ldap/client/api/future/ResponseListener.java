@@ -0,0 +1,43 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.future;
+
+
+import org.apache.directory.api.ldap.model.message.Response;
+
+
+/**
+ * A listener which receives the responses of a request as soon as they are received,
+ * instead of having a thread blocked on the {@link ResponseFuture}. The listener is called
+ * by the IO thread, so it must not block. For a search, the entries and references are
+ * received in order, and the SearchResultDone is the last response.
+ *
+ * @param <R> The type of the received responses
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface ResponseListener<R extends Response>
+{
+    /**
+     * Called for each response received for the request
+     *
+     * @param response The received response
+     */
+    void responseReceived( R response );
+}
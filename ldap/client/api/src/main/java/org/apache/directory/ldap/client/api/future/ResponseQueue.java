@@ -0,0 +1,561 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.future;
+
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * An unbounded BlockingQueue used to hold the responses of a {@link ResponseFuture}. The
+ * responses are stored in a chain of arrays, which sizes double up to {@link #MAX_SEGMENT_SIZE},
+ * so that no node is allocated per response. Adding a response (done by the IO thread) never
+ * takes a lock : the producers claim a slot by incrementing an index, and store the response
+ * into it. The consumers are serialized by a lock, which is also used to park them when the
+ * queue is empty, and a producer only signals a consumer when one is actually waiting.
+ * <p>
+ * The iterator is a snapshot of the queued responses, which does not support removal.
+ *
+ * @param <E> The type of the stored elements
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ResponseQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>
+{
+    /** The size of the first array */
+    private static final int INITIAL_SEGMENT_SIZE = 16;
+
+    /** The maximum size of an array */
+    private static final int MAX_SEGMENT_SIZE = 1024;
+
+    /** The index of the next element to be added */
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    /** A segment at or before the one holding the next element to be added */
+    private final AtomicReference<Segment> producerSegment;
+
+    /** The index of the next element to be consumed. Only modified while holding the lock */
+    private volatile long consumerIndex;
+
+    /** The segment holding the next element to be consumed. Only used while holding the lock */
+    private Segment consumerSegment;
+
+    /** The number of consumers waiting for an element */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /** The lock serializing the consumers */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** The condition the waiting consumers are parked on */
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * An array holding the elements which index is in [base, base + length[
+     */
+    private static final class Segment
+    {
+        /** The index of the first element stored in this segment */
+        private final long base;
+
+        /** The elements */
+        private final AtomicReferenceArray<Object> slots;
+
+        /** The next segment, created by the first producer which needs it */
+        private final AtomicReference<Segment> next = new AtomicReference<>();
+
+
+        private Segment( long base, int length )
+        {
+            this.base = base;
+            this.slots = new AtomicReferenceArray<>( length );
+        }
+
+
+        /**
+         * @return The index following the last element of this segment
+         */
+        private long end()
+        {
+            return base + slots.length();
+        }
+
+
+        /**
+         * @return The next segment, waiting for the producer which has claimed an index
+         * in it to create it
+         */
+        private Segment awaitNext()
+        {
+            Segment segment = next.get();
+
+            while ( segment == null )
+            {
+                Thread.yield();
+                segment = next.get();
+            }
+
+            return segment;
+        }
+
+
+        /**
+         * @param index The index of a claimed element stored in this segment
+         * @return The element, waiting for the producer which has claimed it to store it
+         */
+        private Object awaitElement( long index )
+        {
+            int offset = ( int ) ( index - base );
+            Object element = slots.get( offset );
+
+            while ( element == null )
+            {
+                Thread.yield();
+                element = slots.get( offset );
+            }
+
+            return element;
+        }
+    }
+
+
+    /**
+     * Creates a new instance of ResponseQueue.
+     */
+    public ResponseQueue()
+    {
+        Segment segment = new Segment( 0L, INITIAL_SEGMENT_SIZE );
+        producerSegment = new AtomicReference<>( segment );
+        consumerSegment = segment;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer( E element )
+    {
+        if ( element == null )
+        {
+            throw new NullPointerException();
+        }
+
+        // The segment must be read before claiming the index, so that it can't be
+        // after the one holding this index
+        Segment start = producerSegment.get();
+        long index = producerIndex.getAndIncrement();
+        Segment segment = start;
+
+        while ( index >= segment.end() )
+        {
+            Segment next = segment.next.get();
+
+            if ( next == null )
+            {
+                Segment created = new Segment( segment.end(),
+                    Math.min( segment.slots.length() * 2, MAX_SEGMENT_SIZE ) );
+
+                if ( segment.next.compareAndSet( null, created ) )
+                {
+                    next = created;
+                }
+                else
+                {
+                    next = segment.next.get();
+                }
+            }
+
+            segment = next;
+        }
+
+        if ( segment != start )
+        {
+            // Another producer may have moved it further already
+            producerSegment.compareAndSet( start, segment );
+        }
+
+        segment.slots.set( ( int ) ( index - segment.base ), element );
+
+        // Wake up a consumer only if one of them is parked. As a consumer registers
+        // itself before checking the queue a last time, no signal can be lost.
+        if ( waiting.get() > 0 )
+        {
+            lock.lock();
+
+            try
+            {
+                notEmpty.signal();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put( E element )
+    {
+        offer( element );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean offer( E element, long timeout, TimeUnit unit )
+    {
+        return offer( element );
+    }
+
+
+    /**
+     * Gets the next element, removing it if required. Must be called while holding the lock.
+     *
+     * @param remove If the element has to be removed
+     * @return The next element, or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    private E next( boolean remove )
+    {
+        long index = consumerIndex;
+
+        if ( index >= producerIndex.get() )
+        {
+            return null;
+        }
+
+        // The element has been claimed, but the producer may not have stored it yet
+        Segment segment = consumerSegment;
+
+        if ( index == segment.end() )
+        {
+            segment = segment.awaitNext();
+            consumerSegment = segment;
+        }
+
+        Object element = segment.awaitElement( index );
+
+        if ( remove )
+        {
+            segment.slots.lazySet( ( int ) ( index - segment.base ), null );
+            consumerIndex = index + 1;
+        }
+
+        return ( E ) element;
+    }
+
+
+    /**
+     * Passes the signal on to another waiting consumer if some elements are left.
+     * Must be called while holding the lock.
+     */
+    private void signalNext()
+    {
+        if ( ( waiting.get() > 0 ) && ( consumerIndex < producerIndex.get() ) )
+        {
+            notEmpty.signal();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E poll()
+    {
+        if ( isEmpty() )
+        {
+            return null;
+        }
+
+        lock.lock();
+
+        try
+        {
+            return next( true );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E peek()
+    {
+        if ( isEmpty() )
+        {
+            return null;
+        }
+
+        lock.lock();
+
+        try
+        {
+            return next( false );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E take() throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        waiting.incrementAndGet();
+
+        try
+        {
+            E element = next( true );
+
+            while ( element == null )
+            {
+                notEmpty.await();
+                element = next( true );
+            }
+
+            return element;
+        }
+        catch ( InterruptedException ie )
+        {
+            // We may have consumed a signal which was meant to another consumer
+            signalNext();
+
+            throw ie;
+        }
+        finally
+        {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E poll( long timeout, TimeUnit unit ) throws InterruptedException
+    {
+        long nanos = unit.toNanos( timeout );
+
+        lock.lockInterruptibly();
+        waiting.incrementAndGet();
+
+        try
+        {
+            E element = next( true );
+
+            while ( element == null )
+            {
+                if ( nanos <= 0L )
+                {
+                    return null;
+                }
+
+                nanos = notEmpty.awaitNanos( nanos );
+                element = next( true );
+            }
+
+            return element;
+        }
+        catch ( InterruptedException ie )
+        {
+            // We may have consumed a signal which was meant to another consumer
+            signalNext();
+
+            throw ie;
+        }
+        finally
+        {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int remainingCapacity()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo( Collection<? super E> collection )
+    {
+        return drainTo( collection, Integer.MAX_VALUE );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int drainTo( Collection<? super E> collection, int maxElements )
+    {
+        if ( collection == this )
+        {
+            throw new IllegalArgumentException();
+        }
+
+        int nbDrained = 0;
+
+        lock.lock();
+
+        try
+        {
+            while ( nbDrained < maxElements )
+            {
+                E element = next( true );
+
+                if ( element == null )
+                {
+                    break;
+                }
+
+                collection.add( element );
+                nbDrained++;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        return nbDrained;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return consumerIndex >= producerIndex.get();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        long size = producerIndex.get() - consumerIndex;
+
+        return ( int ) Math.max( 0L, Math.min( size, Integer.MAX_VALUE ) );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        lock.lock();
+
+        try
+        {
+            while ( next( true ) != null )
+            {
+                // Nothing to do
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator()
+    {
+        List<E> elements = new ArrayList<>();
+
+        lock.lock();
+
+        try
+        {
+            long end = producerIndex.get();
+            Segment segment = consumerSegment;
+
+            for ( long index = consumerIndex; index < end; index++ )
+            {
+                if ( index == segment.end() )
+                {
+                    segment = segment.awaitNext();
+                }
+
+                elements.add( ( E ) segment.awaitElement( index ) );
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        return Collections.unmodifiableList( elements ).iterator();
+    }
+}
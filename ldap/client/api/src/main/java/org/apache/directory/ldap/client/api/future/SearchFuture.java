@@ -20,17 +20,54 @@
 package org.apache.directory.ldap.client.api.future;
 
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.directory.api.ldap.model.message.Response;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
 import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.mina.core.session.IoSession;
 
 
 /**
  * A Future to manage SerachRequest.
+ * <p>
+ * When created with a maximum queue size, the future suspends the reads on the session
+ * while too many results are waiting to be consumed. As every operation sent on the
+ * connection then waits for the search's consumer, this mode requires a connection dedicated
+ * to the search. The reads are resumed once the consumer has caught up, when the search is
+ * completed, and when it is cancelled : such a future must be either consumed up to the
+ * SearchResultDone, or cancelled. The {@link org.apache.directory.ldap.client.api.SearchCursorImpl}
+ * cancels it if it gets garbage collected without having been closed.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class SearchFuture extends ResponseFuture<Response>
 {
+    /** The session to suspend when too many results are queued, if the flow control is enabled */
+    private IoSession session;
+
+    /** The number of queued results above which the reads are suspended */
+    private int maxQueueSize;
+
+    /** The number of queued results below which the reads are resumed */
+    private int resumeQueueSize;
+
+    /** The number of results which have been queued and not yet consumed */
+    private final AtomicInteger nbQueued = new AtomicInteger();
+
+    /** Tells if this future has suspended the session's reads */
+    private volatile boolean readSuspended;
+
+    /** Tells if the SearchResultDone has been received, the reads must not be suspended anymore */
+    private volatile boolean completed;
+
+    /** The lock protecting the suspend and resume transitions */
+    private final ReentrantLock flowControlLock = new ReentrantLock();
+
+
     /**
      * Creates a new instance of SearchFuture.
      *
@@ -43,6 +80,225 @@ public class SearchFuture extends ResponseFuture<Response>
     }
 
 
+    /**
+     * Creates a new instance of SearchFuture, storing the responses in the given queue.
+     *
+     * @param connection the LDAP connection
+     * @param messageId The associated messageId
+     * @param queue The queue which will hold the responses
+     */
+    public SearchFuture( LdapConnection connection, int messageId, BlockingQueue<Response> queue )
+    {
+        super( connection, messageId, queue );
+    }
+
+
+    /**
+     * Creates a new instance of SearchFuture which suspends the reads on the session
+     * when <em>maxQueueSize</em> results are waiting to be consumed, and resumes them
+     * when half of them have been consumed. The connection must be dedicated to the search.
+     *
+     * @param connection the LDAP connection
+     * @param messageId The associated messageId
+     * @param session The session the results are read from
+     * @param maxQueueSize The number of queued results above which the reads are suspended
+     */
+    public SearchFuture( LdapConnection connection, int messageId, IoSession session, int maxQueueSize )
+    {
+        this( connection, messageId, new ResponseQueue<Response>(), session, maxQueueSize );
+    }
+
+
+    /**
+     * Creates a new instance of SearchFuture storing the responses in the given queue, which
+     * suspends the reads on the session when <em>maxQueueSize</em> results are waiting to be
+     * consumed, and resumes them when half of them have been consumed. The connection must be
+     * dedicated to the search.
+     *
+     * @param connection the LDAP connection
+     * @param messageId The associated messageId
+     * @param queue The queue which will hold the responses
+     * @param session The session the results are read from
+     * @param maxQueueSize The number of queued results above which the reads are suspended
+     */
+    public SearchFuture( LdapConnection connection, int messageId, BlockingQueue<Response> queue,
+        IoSession session, int maxQueueSize )
+    {
+        super( connection, messageId, queue );
+        this.session = session;
+        this.maxQueueSize = maxQueueSize;
+        this.resumeQueueSize = maxQueueSize / 2;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void set( Response response ) throws InterruptedException
+    {
+        if ( session == null )
+        {
+            super.set( response );
+
+            return;
+        }
+
+        if ( response instanceof SearchResultDone )
+        {
+            // The search is completed, nothing more will be read for it
+            completed = true;
+            nbQueued.incrementAndGet();
+            super.set( response );
+            resumeRead();
+
+            return;
+        }
+
+        // Count the result before it can be consumed
+        int queued = nbQueued.incrementAndGet();
+
+        super.set( response );
+
+        // The results decoded from the buffers already read are still queued, the
+        // queue size is not a hard limit
+        if ( ( queued >= maxQueueSize ) && !readSuspended && !completed )
+        {
+            suspendRead();
+        }
+    }
+
+
+    /**
+     * @return <tt>true</tt> if this future suspends the reads on the session when too many
+     * results are waiting to be consumed
+     */
+    public boolean isFlowControlled()
+    {
+        return session != null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Response get() throws InterruptedException
+    {
+        Response response = super.get();
+
+        responseConsumed( response );
+
+        return response;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Response get( long timeout, TimeUnit unit ) throws InterruptedException
+    {
+        Response response = super.get( timeout, unit );
+
+        responseConsumed( response );
+
+        return response;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean cancel( boolean mayInterruptIfRunning )
+    {
+        boolean result = super.cancel( mayInterruptIfRunning );
+
+        // The queue has been cleared, the reads must not stay suspended
+        if ( session != null )
+        {
+            completed = true;
+            nbQueued.set( 0 );
+            resumeRead();
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Update the number of queued results once a result has been consumed, and resume the
+     * reads if the consumer has caught up.
+     * 
+     * {@inheritDoc}
+     */
+    @Override
+    protected void responseConsumed( Response response )
+    {
+        if ( ( session != null ) && ( response != null ) )
+        {
+            int queued = nbQueued.decrementAndGet();
+
+            if ( readSuspended && ( queued <= resumeQueueSize ) )
+            {
+                resumeRead();
+            }
+        }
+    }
+
+
+    /**
+     * Suspend the reads on the session.
+     */
+    private void suspendRead()
+    {
+        flowControlLock.lock();
+
+        try
+        {
+            if ( !readSuspended )
+            {
+                readSuspended = true;
+                session.suspendRead();
+            }
+        }
+        finally
+        {
+            flowControlLock.unlock();
+        }
+
+        // The consumer may have drained the queue, or the search may have been
+        // completed or cancelled, before seeing the reads suspended
+        if ( completed || ( nbQueued.get() <= resumeQueueSize ) )
+        {
+            resumeRead();
+        }
+    }
+
+
+    /**
+     * Resume the reads on the session, if they have been suspended.
+     */
+    private void resumeRead()
+    {
+        flowControlLock.lock();
+
+        try
+        {
+            if ( readSuspended )
+            {
+                readSuspended = false;
+                session.resumeRead();
+            }
+        }
+        finally
+        {
+            flowControlLock.unlock();
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
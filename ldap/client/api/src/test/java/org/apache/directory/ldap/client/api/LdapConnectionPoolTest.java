@@ -0,0 +1,326 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.junit.Test;
+
+
+/**
+ * Tests the LdapConnectionPool blocking behaviour when it's exhausted.
+ * 
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapConnectionPoolTest
+{
+    /**
+     * A factory creating mocked connections
+     */
+    private static class MockConnectionFactory extends BasePoolableObjectFactory<LdapConnection>
+    {
+        @Override
+        public LdapConnection makeObject() throws Exception
+        {
+            return mock( LdapConnection.class );
+        }
+    }
+
+
+    private static LdapConnectionPool createPool( int maxActive, long maxWait )
+    {
+        GenericObjectPool.Config config = new GenericObjectPool.Config();
+        config.maxActive = maxActive;
+        config.maxWait = maxWait;
+        config.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
+
+        return new LdapConnectionPool( new MockConnectionFactory(), config );
+    }
+
+
+    /**
+     * Check that many threads sharing a small pool never get more connections than allowed
+     */
+    @Test
+    public void testExhaustedPoolBlocks() throws Exception
+    {
+        final LdapConnectionPool pool = createPool( 4, -1L );
+        final AtomicInteger nbBorrowed = new AtomicInteger();
+        final AtomicInteger maxBorrowed = new AtomicInteger();
+        final AtomicInteger nbFailures = new AtomicInteger();
+        Thread[] threads = new Thread[64];
+
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for ( int j = 0; j < 200; j++ )
+                        {
+                            LdapConnection connection = pool.getConnection();
+                            int borrowed = nbBorrowed.incrementAndGet();
+
+                            while ( borrowed > maxBorrowed.get() )
+                            {
+                                maxBorrowed.compareAndSet( maxBorrowed.get(), borrowed );
+                            }
+
+                            nbBorrowed.decrementAndGet();
+                            pool.releaseConnection( connection );
+                        }
+                    }
+                    catch ( Exception e )
+                    {
+                        nbFailures.incrementAndGet();
+                    }
+                }
+            };
+
+            threads[i].start();
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        assertEquals( 0, nbFailures.get() );
+        assertTrue( maxBorrowed.get() <= 4 );
+        assertEquals( 0, pool.getNumActive() );
+
+        pool.close();
+    }
+
+
+    /**
+     * Check that a borrower gives up when no connection is returned in time
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testExhaustedPoolTimeout() throws Exception
+    {
+        LdapConnectionPool pool = createPool( 1, 50L );
+
+        pool.getConnection();
+        pool.getConnection();
+    }
+
+
+    /**
+     * Wait until the given thread is parked
+     */
+    private static void awaitParked( Thread thread ) throws InterruptedException
+    {
+        for ( int i = 0; ( i < 1000 ) && ( thread.getState() != Thread.State.WAITING ); i++ )
+        {
+            // The borrower must never wait on a monitor
+            assertNotEquals( Thread.State.BLOCKED, thread.getState() );
+            Thread.sleep( 5L );
+        }
+
+        assertEquals( Thread.State.WAITING, thread.getState() );
+    }
+
+
+    /**
+     * Check that the borrowers waiting for a connection are parked, and not blocked on
+     * a monitor, and that they get an exception when the pool is closed
+     */
+    @Test
+    public void testCloseReleasesWaitingBorrowers() throws Exception
+    {
+        final LdapConnectionPool pool = createPool( 1, -1L );
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+        pool.getConnection();
+
+        Thread borrower = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    pool.getConnection();
+                }
+                catch ( Exception e )
+                {
+                    failure.set( e );
+                }
+            }
+        };
+
+        borrower.start();
+        awaitParked( borrower );
+
+        pool.close();
+        borrower.join( 10000L );
+
+        assertFalse( borrower.isAlive() );
+        assertTrue( failure.get() instanceof IllegalStateException );
+    }
+
+
+    /**
+     * Check that the waiting borrowers get a connection when the pool grows
+     */
+    @Test
+    public void testMaxActiveIncreaseReleasesWaitingBorrowers() throws Exception
+    {
+        final LdapConnectionPool pool = createPool( 1, -1L );
+        final AtomicInteger nbBorrowed = new AtomicInteger();
+        Thread[] borrowers = new Thread[2];
+
+        pool.getConnection();
+
+        for ( int i = 0; i < borrowers.length; i++ )
+        {
+            borrowers[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        pool.getConnection();
+                        nbBorrowed.incrementAndGet();
+                    }
+                    catch ( Exception e )
+                    {
+                        // The test fails
+                    }
+                }
+            };
+
+            borrowers[i].start();
+        }
+
+        for ( Thread borrower : borrowers )
+        {
+            awaitParked( borrower );
+        }
+
+        pool.setMaxActive( 3 );
+
+        for ( Thread borrower : borrowers )
+        {
+            borrower.join( 10000L );
+        }
+
+        assertEquals( 2, nbBorrowed.get() );
+        assertEquals( 3, pool.getNumActive() );
+
+        pool.close();
+    }
+
+
+    /**
+     * Check that each returned connection goes to a waiting borrower, even when another
+     * waiting borrower has been interrupted
+     */
+    @Test
+    public void testReturnedConnectionsReleaseWaitingBorrowers() throws Exception
+    {
+        final LdapConnectionPool pool = createPool( 2, -1L );
+        final AtomicInteger nbBorrowed = new AtomicInteger();
+        final AtomicInteger nbFailures = new AtomicInteger();
+        Thread[] borrowers = new Thread[3];
+
+        LdapConnection connection1 = pool.getConnection();
+        LdapConnection connection2 = pool.getConnection();
+
+        for ( int i = 0; i < borrowers.length; i++ )
+        {
+            borrowers[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        pool.getConnection();
+                        nbBorrowed.incrementAndGet();
+                    }
+                    catch ( Exception e )
+                    {
+                        nbFailures.incrementAndGet();
+                    }
+                }
+            };
+
+            borrowers[i].start();
+            awaitParked( borrowers[i] );
+        }
+
+        // The first borrower gives up
+        borrowers[0].interrupt();
+        borrowers[0].join( 10000L );
+
+        assertFalse( borrowers[0].isAlive() );
+        assertEquals( 1, nbFailures.get() );
+
+        // Each returned connection releases one of the two remaining borrowers
+        pool.releaseConnection( connection1 );
+
+        for ( int i = 0; ( i < 1000 ) && ( nbBorrowed.get() == 0 ); i++ )
+        {
+            Thread.sleep( 5L );
+        }
+
+        assertEquals( 1, nbBorrowed.get() );
+
+        pool.releaseConnection( connection2 );
+
+        for ( Thread borrower : borrowers )
+        {
+            borrower.join( 10000L );
+            assertFalse( borrower.isAlive() );
+        }
+
+        assertEquals( 2, nbBorrowed.get() );
+        assertEquals( 1, nbFailures.get() );
+        assertEquals( 2, pool.getNumActive() );
+
+        pool.close();
+    }
+
+
+    /**
+     * Check that a closed pool does not give connections anymore
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testClosedPool() throws Exception
+    {
+        LdapConnectionPool pool = createPool( 1, -1L );
+
+        pool.close();
+        pool.getConnection();
+    }
+}
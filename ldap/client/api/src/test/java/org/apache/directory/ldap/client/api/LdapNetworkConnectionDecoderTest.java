@@ -0,0 +1,174 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.api.ldap.codec.api.LdapDecoder;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.session.DummySession;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.junit.Test;
+
+
+/**
+ * Tests the decoding of the messages received by a LdapNetworkConnection.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapNetworkConnectionDecoderTest
+{
+    /** A SearchResultEntry for ou=contacts,dc=iktek,dc=com, with two objectClass values */
+    private static final byte[] SEARCH_RESULT_ENTRY = new byte[]
+        {
+            0x30, 0x4E,                                     // LDAPMessage ::=SEQUENCE {
+              0x02, 0x01, 0x01,                             // messageID MessageID
+              0x64, 0x49,                                   // SearchResultEntry ::= [APPLICATION 4] SEQUENCE {
+                0x04, 0x1B,                                 // objectName LDAPDN,
+                  'o', 'u', '=', 'c', 'o', 'n', 't', 'a', 'c', 't', 's', ',',
+                  'd', 'c', '=', 'i', 'k', 't', 'e', 'k', ',', 'd', 'c', '=', 'c', 'o', 'm',
+                0x30, 0x2A,                                 // attributes PartialAttributeList }
+                  0x30, 0x28,
+                    0x04, 0x0B,                             // type AttributeDescription,
+                      'o', 'b', 'j', 'e', 'c', 't', 'c', 'l', 'a', 's', 's',
+                    0x31, 0x19,                             // vals SET OF AttributeValue }
+                      0x04, 0x03,
+                        't', 'o', 'p',
+                      0x04, 0x12,
+                        'o', 'r', 'g', 'a', 'n', 'i', 'z', 'a', 't', 'i', 'o', 'n', 'a', 'l', 'U', 'n', 'i', 't'
+        };
+
+
+    /**
+     * Decodes the given PDU with the decoder of the given session
+     */
+    private List<Object> decode( LdapNetworkConnection connection, IoSession session, byte[] pdu ) throws Exception
+    {
+        final List<Object> messages = new ArrayList<>();
+        ProtocolDecoder decoder = connection.getCodecService().getProtocolCodecFactory().getDecoder( session );
+
+        decoder.decode( session, IoBuffer.wrap( pdu ), new ProtocolDecoderOutput()
+        {
+            @Override
+            public void write( Object message )
+            {
+                messages.add( message );
+            }
+
+
+            @Override
+            public void flush( NextFilter nextFilter, IoSession session )
+            {
+                // Nothing to do
+            }
+        } );
+
+        return messages;
+    }
+
+
+    /**
+     * Checks the decoded SearchResultEntry
+     */
+    private void assertSearchResultEntry( List<Object> messages ) throws Exception
+    {
+        assertEquals( 1, messages.size() );
+
+        SearchResultEntry searchResultEntry = ( SearchResultEntry ) messages.get( 0 );
+        assertEquals( 1, searchResultEntry.getMessageId() );
+        assertEquals( "ou=contacts,dc=iktek,dc=com", searchResultEntry.getObjectName().toString() );
+
+        Entry entry = searchResultEntry.getEntry();
+        assertEquals( 1, entry.size() );
+
+        Attribute attribute = entry.get( "objectclass" );
+        assertEquals( 2, attribute.size() );
+        assertTrue( attribute.contains( "top" ) );
+        assertTrue( attribute.contains( "organizationalUnit" ) );
+    }
+
+
+    /**
+     * Test the decoding of a SearchResultEntry, the values being copied
+     */
+    @Test
+    public void testDecodeSearchResultEntry() throws Exception
+    {
+        LdapConnectionConfig config = new LdapConnectionConfig();
+        config.setLdapHost( "localhost" );
+        config.setLdapPort( 10389 );
+
+        try ( LdapNetworkConnection connection = new LdapNetworkConnection( config ) )
+        {
+            IoSession session = new DummySession();
+            connection.sessionCreated( session );
+
+            assertFalse( session.containsAttribute( LdapDecoder.VALUE_SLICING_ATTR ) );
+
+            byte[] pdu = Arrays.copyOf( SEARCH_RESULT_ENTRY, SEARCH_RESULT_ENTRY.length );
+            List<Object> messages = decode( connection, session, pdu );
+
+            assertSearchResultEntry( messages );
+        }
+    }
+
+
+    /**
+     * Test the decoding of a SearchResultEntry when the value slicing is enabled : the
+     * decoded entry must not depend on the received buffer once it has been decoded
+     */
+    @Test
+    public void testDecodeSearchResultEntryValueSlicing() throws Exception
+    {
+        LdapConnectionConfig config = new LdapConnectionConfig();
+        config.setLdapHost( "localhost" );
+        config.setLdapPort( 10389 );
+        config.setValueSlicing( true );
+
+        try ( LdapNetworkConnection connection = new LdapNetworkConnection( config ) )
+        {
+            IoSession session = new DummySession();
+            connection.sessionCreated( session );
+
+            assertEquals( Boolean.TRUE, session.getAttribute( LdapDecoder.VALUE_SLICING_ATTR ) );
+
+            byte[] pdu = Arrays.copyOf( SEARCH_RESULT_ENTRY, SEARCH_RESULT_ENTRY.length );
+            List<Object> messages = decode( connection, session, pdu );
+
+            // The buffer is reused by MINA once the decoder is done with it
+            Arrays.fill( pdu, ( byte ) 0 );
+
+            assertSearchResultEntry( messages );
+        }
+    }
+}
@@ -21,7 +21,12 @@
 package org.apache.directory.ldap.client.api;
 
 
+import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -409,4 +414,67 @@ public class LdifAnonymizerTest
             assertEquals( str.length(), value.length() );
         }
     }
+    
+    
+    @Test
+    public void testAnonymizeFileParallel() throws Exception
+    {
+        File ldifFile = File.createTempFile( "anonymizer", ".ldif" );
+        ldifFile.deleteOnExit();
+        int nbEntries = 2000;
+
+        try ( Writer writer = Files.newBufferedWriter( ldifFile.toPath(), StandardCharsets.UTF_8 ) )
+        {
+            for ( int i = 0; i < nbEntries; i++ )
+            {
+                writer.write( "dn: cn=user" + i + ",dc=example,dc=com\n" );
+                writer.write( "objectClass: top\n" );
+                writer.write( "objectClass: person\n" );
+                writer.write( "cn: user" + i + "\n" );
+                writer.write( "sn: user" + ( i % 10 ) + "\n" );
+
+                if ( i > 0 )
+                {
+                    writer.write( "seeAlso: cn=user" + ( i - 1 ) + ",dc=example,dc=com\n" );
+                }
+
+                writer.write( "\n" );
+            }
+        }
+
+        LdifAnonymizer anonymizer = new LdifAnonymizer( schemaManager );
+        anonymizer.addNamingContext( "dc=example,dc=com" );
+        anonymizer.setParallelism( 4 );
+
+        StringWriter result = new StringWriter();
+        anonymizer.anonymizeFile( ldifFile.getAbsolutePath(), result );
+
+        List<LdifEntry> entries = ldifReader.parseLdif( result.toString() );
+
+        assertEquals( nbEntries, entries.size() );
+
+        Set<String> dns = new HashSet<String>();
+        Set<String> sns = new HashSet<String>();
+        String previousDn = null;
+
+        for ( LdifEntry ldifEntry : entries )
+        {
+            Entry entry = ldifEntry.getEntry();
+            String dn = entry.getDn().toString();
+
+            // The references and the Dns have been anonymized the same way
+            if ( previousDn != null )
+            {
+                assertEquals( previousDn, entry.get( "seeAlso" ).getString() );
+            }
+
+            assertEquals( "cn=" + entry.get( "cn" ).getString() + ",dc=example,dc=com", dn );
+            assertTrue( dns.add( dn ) );
+            sns.add( entry.get( "sn" ).getString() );
+            previousDn = dn;
+        }
+
+        // The same values have the same anonymized value
+        assertEquals( 10, sns.size() );
+    }
 }
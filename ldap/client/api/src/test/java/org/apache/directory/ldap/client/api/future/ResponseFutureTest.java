@@ -0,0 +1,129 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.future;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.message.Response;
+import org.apache.directory.api.ldap.model.message.SearchResultEntryImpl;
+import org.junit.Test;
+
+
+/**
+ * Tests the delivery of the responses to a ResponseListener.
+ * 
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ResponseFutureTest
+{
+    /**
+     * A listener storing the received responses
+     */
+    private static class CollectingListener implements ResponseListener<Response>
+    {
+        private final List<Response> responses = new ArrayList<Response>();
+
+
+        public void responseReceived( Response response )
+        {
+            responses.add( response );
+        }
+    }
+
+
+    @Test
+    public void testListener() throws InterruptedException
+    {
+        ResponseFuture<Response> future = new ResponseFuture<Response>( null, 1 );
+        Response first = new SearchResultEntryImpl( 1 );
+        Response second = new SearchResultEntryImpl( 1 );
+        Response third = new SearchResultEntryImpl( 1 );
+
+        // The responses received before the listener is set are delivered first
+        future.set( first );
+        future.set( second );
+
+        CollectingListener listener = new CollectingListener();
+        future.setListener( listener );
+
+        assertEquals( 2, listener.responses.size() );
+
+        future.set( third );
+
+        assertEquals( 3, listener.responses.size() );
+        assertSame( first, listener.responses.get( 0 ) );
+        assertSame( second, listener.responses.get( 1 ) );
+        assertSame( third, listener.responses.get( 2 ) );
+
+        // Nothing is left in the queue
+        assertNull( future.get( 1, TimeUnit.MILLISECONDS ) );
+    }
+
+
+    /**
+     * Check that the responses are delivered in order when the listener is set while
+     * responses are being received
+     */
+    @Test
+    public void testListenerOrder() throws InterruptedException
+    {
+        final ResponseFuture<Response> future = new ResponseFuture<Response>( null, 1 );
+        final int nbResponses = 100000;
+
+        Thread producer = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    for ( int i = 0; i < nbResponses; i++ )
+                    {
+                        future.set( new SearchResultEntryImpl( i ) );
+                    }
+                }
+                catch ( InterruptedException ie )
+                {
+                    // Can't happen
+                }
+            }
+        };
+
+        producer.start();
+
+        CollectingListener listener = new CollectingListener();
+        future.setListener( listener );
+
+        producer.join();
+
+        assertEquals( nbResponses, listener.responses.size() );
+
+        for ( int i = 0; i < nbResponses; i++ )
+        {
+            assertEquals( i, listener.responses.get( i ).getMessageId() );
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.future;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the ResponseQueue.
+ * 
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ResponseQueueTest
+{
+    @Test
+    public void testOfferPoll()
+    {
+        ResponseQueue<String> queue = new ResponseQueue<String>();
+
+        assertTrue( queue.isEmpty() );
+        assertNull( queue.poll() );
+
+        queue.add( "a" );
+        queue.add( "b" );
+
+        assertEquals( 2, queue.size() );
+        assertEquals( "a", queue.peek() );
+        assertEquals( "a", queue.poll() );
+        assertEquals( "b", queue.poll() );
+        assertTrue( queue.isEmpty() );
+    }
+
+
+    @Test
+    public void testPollTimeout() throws InterruptedException
+    {
+        ResponseQueue<String> queue = new ResponseQueue<String>();
+
+        assertNull( queue.poll( 10, TimeUnit.MILLISECONDS ) );
+    }
+
+
+    @Test
+    public void testDrainTo()
+    {
+        ResponseQueue<String> queue = new ResponseQueue<String>();
+        queue.add( "a" );
+        queue.add( "b" );
+        queue.add( "c" );
+
+        List<String> drained = new ArrayList<String>();
+
+        assertEquals( 2, queue.drainTo( drained, 2 ) );
+        assertEquals( 1, queue.drainTo( drained ) );
+        assertEquals( 3, drained.size() );
+        assertTrue( queue.isEmpty() );
+    }
+
+
+    /**
+     * Check that a consumer waiting for the elements gets all of them, in order
+     */
+    @Test
+    public void testWaitingConsumer() throws InterruptedException
+    {
+        final ResponseQueue<Integer> queue = new ResponseQueue<Integer>();
+        final int nbElements = 100000;
+
+        Thread producer = new Thread()
+        {
+            public void run()
+            {
+                for ( int i = 0; i < nbElements; i++ )
+                {
+                    queue.add( i );
+                }
+            }
+        };
+
+        producer.start();
+
+        for ( int i = 0; i < nbElements; i += 2 )
+        {
+            assertEquals( Integer.valueOf( i ), queue.take() );
+            assertEquals( Integer.valueOf( i + 1 ), queue.poll( 10, TimeUnit.SECONDS ) );
+        }
+
+        producer.join();
+
+        assertTrue( queue.isEmpty() );
+    }
+
+
+    @Test
+    public void testIterator()
+    {
+        ResponseQueue<Integer> queue = new ResponseQueue<Integer>();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            queue.add( i );
+        }
+
+        assertEquals( Integer.valueOf( 0 ), queue.poll() );
+
+        int expected = 1;
+
+        for ( Integer element : queue )
+        {
+            assertEquals( Integer.valueOf( expected++ ), element );
+        }
+
+        assertEquals( 100, expected );
+        assertEquals( 99, queue.size() );
+    }
+
+
+    /**
+     * Check that the elements added by several producers are all consumed, in the order
+     * they have been added by each producer
+     */
+    @Test
+    public void testConcurrentProducers() throws InterruptedException
+    {
+        final ResponseQueue<int[]> queue = new ResponseQueue<int[]>();
+        final int nbProducers = 4;
+        final int nbElements = 50000;
+        Thread[] producers = new Thread[nbProducers];
+
+        for ( int p = 0; p < nbProducers; p++ )
+        {
+            final int producer = p;
+
+            producers[p] = new Thread()
+            {
+                public void run()
+                {
+                    for ( int i = 0; i < nbElements; i++ )
+                    {
+                        queue.add( new int[]
+                            { producer, i } );
+                    }
+                }
+            };
+
+            producers[p].start();
+        }
+
+        int[] next = new int[nbProducers];
+
+        for ( int i = 0; i < nbProducers * nbElements; i++ )
+        {
+            int[] element = queue.poll( 10, TimeUnit.SECONDS );
+
+            assertEquals( next[element[0]]++, element[1] );
+        }
+
+        for ( Thread producer : producers )
+        {
+            producer.join();
+        }
+
+        assertTrue( queue.isEmpty() );
+    }
+
+
+    /**
+     * Check that each waiting consumer is woken up when an element is added
+     */
+    @Test
+    public void testWaitingConsumers() throws InterruptedException
+    {
+        final ResponseQueue<Integer> queue = new ResponseQueue<Integer>();
+        final int nbConsumers = 4;
+        final AtomicInteger consumed = new AtomicInteger();
+        Thread[] consumers = new Thread[nbConsumers];
+
+        for ( int c = 0; c < nbConsumers; c++ )
+        {
+            consumers[c] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        queue.take();
+                        consumed.incrementAndGet();
+                    }
+                    catch ( InterruptedException ie )
+                    {
+                        // Nothing to do
+                    }
+                }
+            };
+
+            consumers[c].start();
+        }
+
+        for ( int c = 0; c < nbConsumers; c++ )
+        {
+            queue.add( c );
+        }
+
+        for ( Thread consumer : consumers )
+        {
+            consumer.join( 10000L );
+        }
+
+        assertEquals( nbConsumers, consumed.get() );
+        assertTrue( queue.isEmpty() );
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.future;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.message.Response;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.SearchResultDoneImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntryImpl;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.SearchCursorImpl;
+import org.apache.mina.core.session.IoSession;
+import org.junit.Test;
+
+
+/**
+ * Tests the SearchFuture flow control.
+ * 
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SearchFutureTest
+{
+    /**
+     * Check that the reads are suspended when the queue is full, and resumed when
+     * half of the results have been consumed
+     */
+    @Test
+    public void testSuspendResumeRead() throws InterruptedException
+    {
+        IoSession session = mock( IoSession.class );
+        SearchFuture future = new SearchFuture( mock( LdapConnection.class ), 1, session, 4 );
+        SearchResultEntry entry = new SearchResultEntryImpl( 1 );
+
+        for ( int i = 0; i < 3; i++ )
+        {
+            future.set( entry );
+        }
+
+        verify( session, never() ).suspendRead();
+
+        // The fourth result fills the queue
+        future.set( entry );
+        verify( session, times( 1 ) ).suspendRead();
+
+        // The results already read are still queued
+        future.set( entry );
+        verify( session, times( 1 ) ).suspendRead();
+
+        // 5 results queued, the reads are resumed when 2 are left
+        for ( int i = 0; i < 2; i++ )
+        {
+            assertEquals( entry, future.get() );
+        }
+
+        verify( session, never() ).resumeRead();
+
+        assertEquals( entry, future.get( 1, TimeUnit.SECONDS ) );
+        verify( session, times( 1 ) ).resumeRead();
+
+        assertEquals( entry, future.get() );
+        assertEquals( entry, future.get() );
+        verify( session, times( 1 ) ).resumeRead();
+    }
+
+
+    /**
+     * Check that the reads are resumed when a search is abandoned
+     */
+    @Test
+    public void testCancelResumesRead() throws InterruptedException
+    {
+        IoSession session = mock( IoSession.class );
+        SearchFuture future = new SearchFuture( mock( LdapConnection.class ), 1, session, 2 );
+        SearchResultEntry entry = new SearchResultEntryImpl( 1 );
+
+        future.set( entry );
+        future.set( entry );
+        verify( session, times( 1 ) ).suspendRead();
+
+        future.cancel( true );
+        verify( session, times( 1 ) ).resumeRead();
+    }
+
+
+    /**
+     * Check that the reads are resumed when the results are consumed by a listener
+     */
+    @Test
+    public void testListenerResumesRead() throws InterruptedException
+    {
+        IoSession session = mock( IoSession.class );
+        SearchFuture future = new SearchFuture( mock( LdapConnection.class ), 1, session, 2 );
+        SearchResultEntry entry = new SearchResultEntryImpl( 1 );
+
+        future.set( entry );
+        future.set( entry );
+        verify( session, times( 1 ) ).suspendRead();
+
+        future.setListener( new ResponseListener<Response>()
+        {
+            public void responseReceived( Response response )
+            {
+            }
+        } );
+
+        verify( session, times( 1 ) ).resumeRead();
+
+        future.set( entry );
+        future.set( entry );
+        verify( session, times( 1 ) ).suspendRead();
+    }
+
+
+    /**
+     * Check that the reads are resumed when the search is completed, even if the
+     * results have not been consumed yet
+     */
+    @Test
+    public void testCompletionResumesRead() throws InterruptedException
+    {
+        IoSession session = mock( IoSession.class );
+        SearchFuture future = new SearchFuture( mock( LdapConnection.class ), 1, new ResponseQueue<Response>(),
+            session, 2 );
+        SearchResultEntry entry = new SearchResultEntryImpl( 1 );
+
+        future.set( entry );
+        future.set( entry );
+        verify( session, times( 1 ) ).suspendRead();
+
+        future.set( new SearchResultDoneImpl( 1 ) );
+        verify( session, times( 1 ) ).resumeRead();
+
+        assertEquals( entry, future.get() );
+        assertEquals( entry, future.get() );
+        assertTrue( future.get() instanceof SearchResultDone );
+        verify( session, times( 1 ) ).suspendRead();
+        verify( session, times( 1 ) ).resumeRead();
+    }
+
+
+    /**
+     * Check that a flow controlled search is cancelled when its cursor is garbage collected
+     * without having been closed
+     */
+    @Test
+    public void testCollectedCursorCancelsSearch() throws InterruptedException
+    {
+        IoSession session = mock( IoSession.class );
+        SearchFuture future = new SearchFuture( mock( LdapConnection.class ), 1, session, 2 );
+        SearchResultEntry entry = new SearchResultEntryImpl( 1 );
+
+        future.set( entry );
+        future.set( entry );
+        verify( session, times( 1 ) ).suspendRead();
+
+        new SearchCursorImpl( future, 1000L, TimeUnit.MILLISECONDS );
+
+        for ( int i = 0; ( i < 100 ) && !future.isCancelled(); i++ )
+        {
+            System.gc();
+            System.runFinalization();
+            Thread.sleep( 10L );
+        }
+
+        assertTrue( future.isCancelled() );
+        verify( session, times( 1 ) ).resumeRead();
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.api.SearchResultEntryListener;
 import org.apache.directory.api.ldap.codec.decorators.SearchResultEntryDecorator;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.util.Strings;
@@ -84,7 +85,19 @@ public class AddAttributeType extends GrammarAction<LdapMessageContainer<SearchR
         {
             try
             {
-                searchResultEntry.addAttribute( tlv.getValue().getData() );
+                SearchResultEntryListener listener = container.getSearchResultEntryListener();
+
+                if ( listener == null )
+                {
+                    searchResultEntry.addAttribute( tlv.getValue().getData() );
+                }
+                else
+                {
+                    // The attribute is not stored, its values will be streamed to the listener
+                    searchResultEntry.streamAttribute( tlv.getValue().getData() );
+                    listener.attributeStarted( container.getMessageId(),
+                        searchResultEntry.getCurrentAttribute().getUpId() );
+                }
             }
             catch ( LdapException ine )
             {
@@ -23,7 +23,11 @@ package org.apache.directory.api.ldap.codec.actions.searchResultEntry;
 import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
 import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.api.SearchResultEntryListener;
 import org.apache.directory.api.ldap.codec.decorators.SearchResultEntryDecorator;
+import org.apache.directory.api.ldap.model.entry.BinaryValue;
+import org.apache.directory.api.ldap.model.entry.StringValue;
+import org.apache.directory.api.ldap.model.entry.Value;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.util.Strings;
 import org.slf4j.Logger;
@@ -71,38 +75,60 @@ public class StoreSearchResultAttributeValue extends GrammarAction<LdapMessageCo
         // Store the value
         Object value = null;
 
-        try
+        if ( tlv.getLength() == 0 )
         {
-            if ( tlv.getLength() == 0 )
+            value = "";
+
+            LOG.debug( "The attribute value is null" );
+        }
+        else
+        {
+            if ( container.isBinary( searchResultEntry.getCurrentAttribute().getId() ) )
             {
-                searchResultEntry.addAttributeValue( "" );
+                value = tlv.getValue().getData();
 
-                LOG.debug( "The attribute value is null" );
+                if ( IS_DEBUG )
+                {
+                    LOG.debug( "Attribute value {}", Strings.dumpBytes( ( byte[] ) value ) );
+                }
             }
             else
             {
-                if ( container.isBinary( searchResultEntry.getCurrentAttribute().getId() ) )
-                {
-                    value = tlv.getValue().getData();
+                value = Strings.utf8ToString( tlv.getValue().getData() );
 
-                    if ( IS_DEBUG )
-                    {
-                        LOG.debug( "Attribute value {}", Strings.dumpBytes( ( byte[] ) value ) );
-                    }
-                }
-                else
-                {
-                    value = Strings.utf8ToString( tlv.getValue().getData() );
+                LOG.debug( "Attribute value {}", value );
+            }
+        }
 
-                    LOG.debug( "Attribute value {}", value );
-                }
+        SearchResultEntryListener listener = container.getSearchResultEntryListener();
 
-                searchResultEntry.addAttributeValue( value );
+        if ( listener != null )
+        {
+            // Stream the value instead of storing it into the entry
+            Value<?> streamedValue;
+
+            if ( value instanceof String )
+            {
+                streamedValue = new StringValue( ( String ) value );
+            }
+            else
+            {
+                streamedValue = new BinaryValue( ( byte[] ) value );
             }
+
+            listener.valueDecoded( container.getMessageId(), searchResultEntry.getCurrentAttribute().getUpId(),
+                streamedValue );
         }
-        catch ( LdapException le )
+        else
         {
-            // Just swallow the exception, it can't occur here
+            try
+            {
+                searchResultEntry.addAttributeValue( value );
+            }
+            catch ( LdapException le )
+            {
+                // Just swallow the exception, it can't occur here
+            }
         }
 
         // We can have an END transition
@@ -24,6 +24,7 @@ import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
 import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.api.SearchResultEntryListener;
 import org.apache.directory.api.ldap.codec.decorators.SearchResultEntryDecorator;
 import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
 import org.apache.directory.api.ldap.model.name.Dn;
@@ -98,6 +99,13 @@ public class StoreSearchResultEntryObjectName extends GrammarAction<LdapMessageC
             searchResultEntry.setObjectName( objectName );
         }
 
+        SearchResultEntryListener listener = container.getSearchResultEntryListener();
+
+        if ( listener != null )
+        {
+            listener.entryStarted( container.getMessageId(), objectName );
+        }
+
         if ( IS_DEBUG )
         {
             LOG.debug( "Search Result Entry Dn found : {}", searchResultEntry.getObjectName() );
@@ -54,6 +54,9 @@ public class LdapDecoder
     /** The maximum PDU size, stored into the LDAPSession's attribute */
     public static final String MAX_PDU_SIZE_ATTR = "LDAP-maxPduSize";
 
+    /** The value slicing flag, stored into the LDAPSession's attribute */
+    public static final String VALUE_SLICING_ATTR = "LDAP-valueSlicing";
+
 
     /**
      * Creates an instance of a Ldap Decoder implementation.
@@ -64,6 +67,29 @@ public class LdapDecoder
     }
 
 
+    /**
+     * Tells if the primitive values are sliced from the decoded buffers instead of being copied.
+     *
+     * @return <code>true</code> if the value slicing is enabled
+     */
+    public boolean isValueSlicingEnabled()
+    {
+        return asn1Decoder.isValueSlicingEnabled();
+    }
+
+
+    /**
+     * Enable or disable the value slicing of the underlying ASN.1 decoder.
+     *
+     * @param valueSlicing <code>true</code> to enable the value slicing
+     * @see Asn1Decoder#setValueSlicing(boolean)
+     */
+    public void setValueSlicing( boolean valueSlicing )
+    {
+        asn1Decoder.setValueSlicing( valueSlicing );
+    }
+
+
     /**
      * Decodes a PDU from an input stream into a Ldap message container. We can only
      * decode one complete message.
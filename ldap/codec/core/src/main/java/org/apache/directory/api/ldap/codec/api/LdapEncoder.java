@@ -160,15 +160,47 @@ public class LdapEncoder
         int length = computeMessageLength( decorator );
         ByteBuffer buffer = ByteBuffer.allocate( length );
 
+        encodeMessage( buffer, decorator );
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+
+    /**
+     * Generate the PDU of a decorated message into a buffer provided by the caller, which
+     * can be a direct or a pooled buffer. This is the second phase of the encoding :
+     * {@link #computeMessageLength(MessageDecorator)} must have been called first, and the
+     * buffer must have at least as many remaining bytes as the returned length. The PDU is
+     * written at the buffer's current position, and the buffer is not flipped.
+     * 
+     * @param buffer The buffer to write the PDU into
+     * @param decorator The decorated message, which length has been computed
+     * @return The buffer
+     * @throws EncoderException If the buffer is too small, or if anything goes wrong.
+     */
+    public ByteBuffer encodeMessage( ByteBuffer buffer, MessageDecorator<? extends Message> decorator )
+        throws EncoderException
+    {
+        Message message = decorator.getDecorated();
+        int messageLength = decorator.getMessageLength();
+
         try
         {
+            // Check that the PDU will fit in the buffer
+            if ( buffer.remaining() < 1 + TLV.getNbBytes( messageLength ) + messageLength )
+            {
+                throw new EncoderException( I18n.err( I18n.ERR_04005 ) );
+            }
+
             try
             {
                 // The LdapMessage Sequence
                 buffer.put( UniversalTag.SEQUENCE.getValue() );
 
                 // The length has been calculated by the computeLength method
-                buffer.put( TLV.getBytes( decorator.getMessageLength() ) );
+                buffer.put( TLV.getBytes( messageLength ) );
             }
             catch ( BufferOverflowException boe )
             {
@@ -214,8 +246,6 @@ public class LdapEncoder
             throw new MessageEncoderException( message.getMessageId(), ee.getMessage(), ee );
         }
 
-        buffer.flip();
-
         return buffer;
     }
 
@@ -233,10 +263,14 @@ public class LdapEncoder
      * L1 = length(ProtocolOp) 
      * LdapMessage length = Length(0x30) + Length(L1) + MessageId length + L1
      * </pre>
+     * This is the first phase of the encoding : the computed lengths are stored
+     * in the decorator, which can then be encoded by
+     * {@link #encodeMessage(ByteBuffer, MessageDecorator)}.
      * 
      * @param messageDecorator the decorated Message who's length is to be encoded
+     * @return The PDU length
      */
-    private int computeMessageLength( MessageDecorator<? extends Message> messageDecorator )
+    public int computeMessageLength( MessageDecorator<? extends Message> messageDecorator )
     {
         // The length of the MessageId. It's the sum of
         // - the tag (0x02), 1 byte
@@ -20,6 +20,8 @@
 package org.apache.directory.api.ldap.codec.api;
 
 
+import java.util.Map;
+
 import org.apache.directory.api.asn1.ber.AbstractContainer;
 import org.apache.directory.api.ldap.codec.LdapMessageGrammar;
 import org.apache.directory.api.ldap.codec.LdapStatesEnum;
@@ -53,6 +55,9 @@ public class LdapMessageContainer<E extends MessageDecorator<? extends Message>>
     /** The codec service */
     private final LdapApiService codec;
 
+    /** The listeners the SearchResultEntry elements are streamed to, per search request message ID */
+    private Map<Integer, SearchResultEntryListener> searchResultEntryListeners;
+
 
     /**
      * Creates a new LdapMessageContainer object. We will store ten grammars,
@@ -196,4 +201,33 @@ public class LdapMessageContainer<E extends MessageDecorator<? extends Message>>
     {
         return binaryAttributeDetector;
     }
+
+
+    /**
+     * Sets the listeners the SearchResultEntry attributes and values will be streamed to,
+     * per search request message ID. The values of the entries returned for a search which
+     * has a listener are not stored in the SearchResultEntry, the entries returned for any
+     * other request are decoded as usual. The map may be modified while messages are decoded,
+     * so it must be thread safe.
+     * 
+     * @param searchResultEntryListeners the listeners, or null to store all the values in the entries
+     */
+    public void setSearchResultEntryListeners( Map<Integer, SearchResultEntryListener> searchResultEntryListeners )
+    {
+        this.searchResultEntryListeners = searchResultEntryListeners;
+    }
+
+
+    /**
+     * @return the listener the elements of the SearchResultEntry being decoded are streamed to, if any
+     */
+    public SearchResultEntryListener getSearchResultEntryListener()
+    {
+        if ( ( searchResultEntryListeners == null ) || searchResultEntryListeners.isEmpty() )
+        {
+            return null;
+        }
+
+        return searchResultEntryListeners.get( getMessageId() );
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.api;
+
+
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.name.Dn;
+
+
+/**
+ * A listener which is informed of the SearchResultEntry elements as soon as they are
+ * decoded. When such a listener is registered in the {@link LdapMessageContainer} for the
+ * message ID of a search, the attribute values of its entries are not stored into the
+ * decoded entry : they are only passed to the listener, so that an entry with huge
+ * multi-valued attributes can be processed without holding all of its values in memory. The SearchResultEntry message is still produced once
+ * fully decoded, with its Dn but without any attribute, and marks the end of the entry.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface SearchResultEntryListener
+{
+    /**
+     * Called when the name of a SearchResultEntry has been decoded
+     *
+     * @param messageId The SearchResultEntry message ID
+     * @param dn The entry's Dn
+     */
+    void entryStarted( int messageId, Dn dn );
+
+
+    /**
+     * Called when the type of an attribute has been decoded
+     *
+     * @param messageId The SearchResultEntry message ID
+     * @param attributeType The attribute's type, as sent by the server
+     */
+    void attributeStarted( int messageId, String attributeType );
+
+
+    /**
+     * Called when a value of the current attribute has been decoded
+     *
+     * @param messageId The SearchResultEntry message ID
+     * @param attributeType The attribute's type, as sent by the server
+     * @param value The decoded value, either a StringValue or a BinaryValue
+     */
+    void valueDecoded( int messageId, String attributeType, Value<?> value );
+}
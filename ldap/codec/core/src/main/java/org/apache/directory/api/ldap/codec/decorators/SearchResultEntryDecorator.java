@@ -121,6 +121,19 @@ public class SearchResultEntryDecorator extends MessageDecorator<SearchResultEnt
     }
 
 
+    /**
+     * Create a new attribute which is not stored in the entry. This is used when the
+     * attribute values are streamed to a listener instead of being kept in memory.
+     * 
+     * @param type The attribute's type
+     * @throws LdapException If the type is invalid
+     */
+    public void streamAttribute( byte[] type ) throws LdapException
+    {
+        currentAttribute = new DefaultAttribute( type );
+    }
+
+
     /**
      * Add a new value to the current attribute
      * 
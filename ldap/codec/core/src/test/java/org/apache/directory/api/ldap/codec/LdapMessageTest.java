@@ -350,4 +350,48 @@ public class LdapMessageTest extends AbstractCodecServiceTest
             fail( ee.getMessage() );
         }
     }
+
+
+    /**
+     * Test the encoding of a LdapMessage into a caller supplied direct buffer
+     */
+    @Test
+    public void testEncodeUnBindRequestIntoDirectBuffer() throws EncoderException
+    {
+        UnbindRequest unbindRequest = new UnbindRequestImpl();
+        unbindRequest.setMessageId( 500 );
+
+        MessageDecorator<? extends Message> decorator = MessageDecorator.getDecorator( codec, unbindRequest );
+        int length = encoder.computeMessageLength( decorator );
+
+        assertEquals( 0x08, length );
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect( length );
+        encoder.encodeMessage( buffer, decorator );
+        assertEquals( 0x08, buffer.position() );
+        buffer.flip();
+
+        byte[] encoded = new byte[buffer.remaining()];
+        buffer.get( encoded );
+
+        ByteBuffer expected = encoder.encodeMessage( unbindRequest );
+
+        assertEquals( Strings.dumpBytes( expected.array() ), Strings.dumpBytes( encoded ) );
+    }
+
+
+    /**
+     * Test the encoding of a LdapMessage into a too small buffer
+     */
+    @Test(expected = EncoderException.class)
+    public void testEncodeUnBindRequestBufferTooSmall() throws EncoderException
+    {
+        UnbindRequest unbindRequest = new UnbindRequestImpl();
+        unbindRequest.setMessageId( 500 );
+
+        MessageDecorator<? extends Message> decorator = MessageDecorator.getDecorator( codec, unbindRequest );
+        encoder.computeMessageLength( decorator );
+
+        encoder.encodeMessage( ByteBuffer.allocate( 0x07 ), decorator );
+    }
 }
@@ -25,7 +25,11 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.naming.NamingException;
 
@@ -34,12 +38,15 @@ import org.apache.directory.api.asn1.EncoderException;
 import org.apache.directory.api.asn1.ber.Asn1Decoder;
 import org.apache.directory.api.ldap.codec.api.CodecControl;
 import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.api.SearchResultEntryListener;
 import org.apache.directory.api.ldap.codec.decorators.SearchResultEntryDecorator;
 import org.apache.directory.api.ldap.codec.osgi.AbstractCodecServiceTest;
 import org.apache.directory.api.ldap.model.entry.Attribute;
 import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
 import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.util.Strings;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -1996,4 +2003,119 @@ public class SearchResultEntryTest extends AbstractCodecServiceTest
             fail( ee.getMessage() );
         }
     }
+
+
+    /**
+     * Creates a SearchResultEntry PDU with a multi-valued attribute
+     */
+    private static ByteBuffer createStreamedEntryPdu()
+    {
+        ByteBuffer stream = ByteBuffer.allocate( 0x24 );
+
+        stream.put( new byte[]
+            {
+                0x30, 0x22,                         // LDAPMessage ::=SEQUENCE {
+                  0x02, 0x01, 0x01,                 // messageID MessageID
+                  0x64, 0x1D,                       // CHOICE { ..., searchResEntry SearchResultEntry,
+                    0x04, 0x04,                     // objectName LDAPDN,
+                      'c', 'n', '=', 'g',
+                    0x30, 0x15,                     // attributes PartialAttributeList }
+                      0x30, 0x13,
+                        0x04, 0x06,                 // type AttributeDescription,
+                          'm', 'e', 'm', 'b', 'e', 'r',
+                        0x31, 0x09,                 // vals SET OF AttributeValue }
+                          0x04, 0x01, 'a',
+                          0x04, 0x01, 'b',
+                          0x04, 0x01, 'c'
+            } );
+
+        stream.flip();
+
+        return stream;
+    }
+
+
+    /**
+     * A listener storing the events it receives
+     */
+    private static class EventsListener implements SearchResultEntryListener
+    {
+        private final List<String> events = new ArrayList<String>();
+
+
+        public void entryStarted( int messageId, Dn dn )
+        {
+            events.add( messageId + ":" + dn );
+        }
+
+
+        public void attributeStarted( int messageId, String attributeType )
+        {
+            events.add( messageId + ":" + attributeType );
+        }
+
+
+        public void valueDecoded( int messageId, String attributeType, Value<?> value )
+        {
+            events.add( messageId + ":" + attributeType + ":" + value.getString() );
+        }
+    }
+
+
+    /**
+     * Test the decoding of a SearchResultEntry which values are streamed to a listener
+     */
+    @Test
+    public void testDecodeSearchResultEntryStreamed() throws DecoderException
+    {
+        Asn1Decoder ldapDecoder = new Asn1Decoder();
+
+        EventsListener listener = new EventsListener();
+        Map<Integer, SearchResultEntryListener> listeners = new ConcurrentHashMap<Integer, SearchResultEntryListener>();
+        listeners.put( 1, listener );
+
+        LdapMessageContainer<SearchResultEntryDecorator> ldapMessageContainer =
+            new LdapMessageContainer<SearchResultEntryDecorator>( codec );
+        ldapMessageContainer.setSearchResultEntryListeners( listeners );
+
+        ldapDecoder.decode( createStreamedEntryPdu(), ldapMessageContainer );
+
+        assertEquals( Arrays.asList( "1:cn=g", "1:member", "1:member:a", "1:member:b", "1:member:c" ),
+            listener.events );
+
+        // The entry has been decoded, but the values are not stored
+        SearchResultEntry searchResultEntry = ldapMessageContainer.getMessage();
+
+        assertEquals( 1, searchResultEntry.getMessageId() );
+        assertEquals( "cn=g", searchResultEntry.getObjectName().toString() );
+        assertEquals( 0, searchResultEntry.getEntry().size() );
+    }
+
+
+    /**
+     * Test that the entries of a request which has no listener are not streamed
+     */
+    @Test
+    public void testDecodeSearchResultEntryNotStreamedForOtherRequest() throws DecoderException
+    {
+        Asn1Decoder ldapDecoder = new Asn1Decoder();
+
+        EventsListener listener = new EventsListener();
+        Map<Integer, SearchResultEntryListener> listeners = new ConcurrentHashMap<Integer, SearchResultEntryListener>();
+        listeners.put( 2, listener );
+
+        LdapMessageContainer<SearchResultEntryDecorator> ldapMessageContainer =
+            new LdapMessageContainer<SearchResultEntryDecorator>( codec );
+        ldapMessageContainer.setSearchResultEntryListeners( listeners );
+
+        ldapDecoder.decode( createStreamedEntryPdu(), ldapMessageContainer );
+
+        assertTrue( listener.events.isEmpty() );
+
+        // The entry is fully decoded
+        SearchResultEntry searchResultEntry = ldapMessageContainer.getMessage();
+
+        assertEquals( 1, searchResultEntry.getMessageId() );
+        assertEquals( 3, searchResultEntry.getEntry().get( "member" ).size() );
+    }
 }
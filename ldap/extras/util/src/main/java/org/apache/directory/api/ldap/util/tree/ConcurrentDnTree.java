@@ -0,0 +1,726 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.util.tree;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapUnwillingToPerformException;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.Rdn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A concurrent variant of the {@link DnNode} tree, for read-mostly usages like the
+ * routing of the operations by naming context.<br>
+ * The tree is made of immutable nodes. The readers walk the current version of the
+ * tree without taking any lock, while the writers, serialized on the tree, build a
+ * new version by copying the nodes on the path of the modified Dn and publish it
+ * atomically. A reader always sees a consistent version of the tree : either the
+ * one before, or the one after a modification.<br>
+ * As the nodes are shared between the versions, they have no link to their parent.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ * @param <N> The type of element we store
+ */
+public class ConcurrentDnTree<N>
+{
+    /** The logger for this class */
+    private static final Logger LOG = LoggerFactory.getLogger( ConcurrentDnTree.class );
+
+    /** The current version of the tree */
+    private volatile Node<N> root;
+
+
+    /**
+     * An immutable node of the tree. A node is referenced by its Rdn in its parent,
+     * and holds the full Dn corresponding to its position. It may have no element.
+     *
+     * @param <N> The type of element we store
+     */
+    public static final class Node<N>
+    {
+        /** The node's Dn */
+        private final Dn nodeDn;
+
+        /** The node's key */
+        private final Rdn nodeRdn;
+
+        /** The stored element */
+        private final N nodeElement;
+
+        /** The children, never modified once the node is created */
+        private final Map<Rdn, Node<N>> children;
+
+
+        private Node( Dn dn, Rdn rdn, N element, Map<Rdn, Node<N>> children )
+        {
+            this.nodeDn = dn;
+            this.nodeRdn = rdn;
+            this.nodeElement = element;
+            this.children = children;
+        }
+
+
+        /**
+         * Creates a copy of this node, with an added or replaced child
+         */
+        private Node<N> withChild( Node<N> child )
+        {
+            Map<Rdn, Node<N>> newChildren = new HashMap<>( children );
+            newChildren.put( child.nodeRdn, child );
+
+            return new Node<>( nodeDn, nodeRdn, nodeElement, newChildren );
+        }
+
+
+        /**
+         * @return the dn
+         */
+        public Dn getDn()
+        {
+            return nodeDn;
+        }
+
+
+        /**
+         * @return The Node's Rdn
+         */
+        public Rdn getRdn()
+        {
+            return nodeRdn;
+        }
+
+
+        /**
+         * @return The node's depth in the tree
+         */
+        public int getDepth()
+        {
+            return nodeDn.size();
+        }
+
+
+        /**
+         * @return Return the stored element, if any
+         */
+        public N getElement()
+        {
+            return nodeElement;
+        }
+
+
+        /**
+         * @return True if the Node stores an element. BranchNode may not hold any
+         * element.
+         */
+        public boolean hasElement()
+        {
+            return nodeElement != null;
+        }
+
+
+        /**
+         * @return <code>true</code> if the node has some children
+         */
+        public boolean hasChildren()
+        {
+            return !children.isEmpty();
+        }
+
+
+        /**
+         * @return <code>true</code> if the node has no children
+         */
+        public boolean isLeaf()
+        {
+            return children.isEmpty();
+        }
+
+
+        /**
+         * @return An unmodifiable view of the node's children
+         */
+        public Map<Rdn, Node<N>> getChildren()
+        {
+            return Collections.unmodifiableMap( children );
+        }
+
+
+        /**
+         * Get's a child using an rdn.
+         *
+         * @param rdn the rdn to use as the node key
+         * @return the child node corresponding to the rdn, or null
+         */
+        public Node<N> getChild( Rdn rdn )
+        {
+            return children.get( rdn );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder();
+
+            sb.append( isLeaf() ? "Leaf[" : "Branch[" ).append( nodeDn ).append( "]" );
+
+            if ( nodeElement != null )
+            {
+                sb.append( ": '" ).append( nodeElement ).append( "'" );
+            }
+
+            return sb.toString();
+        }
+    }
+
+
+    /**
+     * Creates a new, empty, instance of ConcurrentDnTree.
+     */
+    public ConcurrentDnTree()
+    {
+        root = new Node<>( Dn.EMPTY_DN, Rdn.EMPTY_RDN, null, Collections.<Rdn, Node<N>> emptyMap() );
+    }
+
+
+    //-------------------------------------------------------------------------
+    // Helper methods
+    //-------------------------------------------------------------------------
+    /**
+     * Check that the Dn is not null
+     */
+    private void checkDn( Dn dn ) throws LdapException
+    {
+        if ( ( dn == null ) || dn.isEmpty() )
+        {
+            String message = "Cannot process an empty Dn";
+            LOG.error( message );
+            throw new LdapUnwillingToPerformException( ResultCodeEnum.UNWILLING_TO_PERFORM, message );
+        }
+    }
+
+
+    /**
+     * Compute the Dns of the nodes on the path of a Dn. The Dn at position i
+     * is the one of the node at depth i in the tree.
+     */
+    private Dn[] getPath( Dn dn )
+    {
+        Dn[] path = new Dn[dn.size() + 1];
+        Dn current = dn;
+        path[0] = Dn.EMPTY_DN;
+
+        for ( int i = dn.size(); i > 0; i-- )
+        {
+            path[i] = current;
+            current = current.getParent();
+        }
+
+        return path;
+    }
+
+
+    //-------------------------------------------------------------------------
+    // Read operations
+    //-------------------------------------------------------------------------
+    /**
+     * Returns the current version of the tree. The returned root node, and all
+     * its descendants, won't be modified by the following updates, so it can be
+     * used to do many lookups against the same version of the tree.
+     *
+     * @return The root node of the tree
+     */
+    public Node<N> getRoot()
+    {
+        return root;
+    }
+
+
+    /**
+     * Returns the number of nodes in the tree, including the root node.
+     *
+     * @return The number of nodes
+     */
+    public int size()
+    {
+        return size( root );
+    }
+
+
+    /**
+     * recursively count the nodes
+     */
+    private int size( Node<N> node )
+    {
+        int size = 1;
+
+        for ( Node<N> child : node.children.values() )
+        {
+            size += size( child );
+        }
+
+        return size;
+    }
+
+
+    /**
+     * Get the Node for a given Dn, if present in the tree.<br>
+     * For instance, if we have stored dc=acme, dc=org into the tree,
+     * the Dn: ou=example, dc=acme, dc=org will have a parent, and
+     * dc=acme, dc=org will be returned.
+     * <br>For the Dn ou=apache, dc=org, there is no parent, so null will be returned.
+     *
+     * @param dn the normalized distinguished name to resolve to a parent
+     * @return the Node associated with the normalized dn
+     */
+    public Node<N> getNode( Dn dn )
+    {
+        List<Rdn> rdns = dn.getRdns();
+
+        Node<N> currentNode = root;
+        Node<N> parentNode = null;
+
+        // Iterate through all the Rdn until we find the associated node
+        for ( int i = rdns.size() - 1; i >= 0; i-- )
+        {
+            currentNode = currentNode.children.get( rdns.get( i ) );
+
+            if ( currentNode == null )
+            {
+                break;
+            }
+
+            parentNode = currentNode;
+        }
+
+        return parentNode;
+    }
+
+
+    /**
+     * @return Return the element stored in the Node found for a Dn, if any
+     * @param dn The Dn we want to get the element for
+     */
+    public N getElement( Dn dn )
+    {
+        Node<N> node = getNode( dn );
+
+        if ( node == null )
+        {
+            return null;
+        }
+
+        return node.nodeElement;
+    }
+
+
+    /**
+     * @return True if the Node found for a Dn stores an element.
+     * @param dn The Dn we want to get the element for
+     */
+    public boolean hasElement( Dn dn )
+    {
+        Node<N> node = getNode( dn );
+
+        return ( node != null ) && ( node.nodeElement != null );
+    }
+
+
+    /**
+     * Tells if a node has some children or not.
+     *
+     * @param dn the node's Dn
+     * @return <code>true</code> if the node has some children
+     * @throws LdapException if the Dn is null or empty
+     */
+    public boolean hasChildren( Dn dn ) throws LdapException
+    {
+        checkDn( dn );
+
+        Node<N> node = getNode( dn );
+
+        return ( node != null ) && node.hasChildren();
+    }
+
+
+    /**
+     * Tells if the node found for a Dn is a leaf node.
+     *
+     * @param dn The Dn we want to check
+     * @return <code>true</code> if this is a leaf node, false otherwise.
+     */
+    public boolean isLeaf( Dn dn )
+    {
+        Node<N> node = getNode( dn );
+
+        return ( node != null ) && node.isLeaf();
+    }
+
+
+    /**
+     * Tells if one of the nodes on the path of a Dn, including the node of
+     * the Dn itself, has an element.
+     *
+     * @param dn the normalized distinguished name to check
+     * @return true if one of the nodes on the path has an element
+     */
+    public boolean hasParentElement( Dn dn )
+    {
+        List<Rdn> rdns = dn.getRdns();
+
+        Node<N> currentNode = root;
+
+        // Iterate through all the Rdn until we find an element
+        for ( int i = rdns.size() - 1; i >= 0; i-- )
+        {
+            currentNode = currentNode.children.get( rdns.get( i ) );
+
+            if ( currentNode == null )
+            {
+                break;
+            }
+
+            if ( currentNode.nodeElement != null )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Get the closest Node for a given Dn which has an element, if present in the tree.<br>
+     * For instance, if we have stored dc=acme, dc=org into the tree,
+     * the Dn: ou=example, dc=acme, dc=org will have a parent, and
+     * dc=acme, dc=org will be returned if it has an associated element.
+     * <br>For the Dn ou=apache, dc=org, there is no parent, so null will be returned.
+     *
+     * @param dn the normalized distinguished name to resolve to a parent
+     * @return the Node associated with the normalized dn
+     */
+    public Node<N> getParentWithElement( Dn dn )
+    {
+        List<Rdn> rdns = dn.getRdns();
+
+        Node<N> currentNode = root;
+        Node<N> element = null;
+
+        // Iterate through all the Rdn until we find the associated node
+        for ( int i = rdns.size() - 1; i >= 1; i-- )
+        {
+            currentNode = currentNode.children.get( rdns.get( i ) );
+
+            if ( currentNode == null )
+            {
+                break;
+            }
+
+            if ( currentNode.nodeElement != null )
+            {
+                element = currentNode;
+            }
+        }
+
+        return element;
+    }
+
+
+    /**
+     * @return True if one of the node below the node of the given Dn has one element,
+     * False otherwise
+     * @param dn The Dn we want to get the element for
+     */
+    public boolean hasDescendantElement( Dn dn )
+    {
+        Node<N> node = getNode( dn );
+
+        // We must be at the right place in the tree
+        if ( ( node == null ) || ( node.getDepth() != dn.size() ) )
+        {
+            return false;
+        }
+
+        for ( Node<N> child : node.children.values() )
+        {
+            if ( hasDescendantElement( child ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * recursively check if the node has a descendant having an element
+     */
+    private boolean hasDescendantElement( Node<N> node )
+    {
+        if ( node.nodeElement != null )
+        {
+            return true;
+        }
+
+        for ( Node<N> child : node.children.values() )
+        {
+            if ( hasDescendantElement( child ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * @return The elements of the closest nodes having an element below the
+     * node of the given Dn
+     * @param dn The Dn we want to get the elements for
+     */
+    public List<N> getDescendantElements( Dn dn )
+    {
+        List<N> descendants = new ArrayList<>();
+
+        Node<N> node = getNode( dn );
+
+        // We must be at the right place in the tree
+        if ( ( node == null ) || ( node.getDepth() != dn.size() ) )
+        {
+            return descendants;
+        }
+
+        for ( Node<N> child : node.children.values() )
+        {
+            getDescendantElements( child, descendants );
+        }
+
+        return descendants;
+    }
+
+
+    /**
+     * recursively get all the elements from nodes having an element
+     */
+    private void getDescendantElements( Node<N> node, List<N> descendants )
+    {
+        if ( node.nodeElement != null )
+        {
+            descendants.add( node.nodeElement );
+
+            // Stop here
+            return;
+        }
+
+        for ( Node<N> child : node.children.values() )
+        {
+            getDescendantElements( child, descendants );
+        }
+    }
+
+
+    //-------------------------------------------------------------------------
+    // Write operations
+    //-------------------------------------------------------------------------
+    /**
+     * Add a new node in the tree. The added node won't have any element.
+     *
+     * @param dn The node's Dn
+     * @return the corresponding node
+     * @throws LdapException if the Dn is null or empty
+     */
+    public Node<N> add( Dn dn ) throws LdapException
+    {
+        return add( dn, null );
+    }
+
+
+    /**
+     * Add a new node in the tree, creating the missing intermediate nodes. We
+     * can't add a node if its Dn is empty. The added element is attached to the
+     * node, which is named by the Dn's Rdn.<br>
+     *
+     * @param dn The node's Dn
+     * @param element The element to associate with this Node. Can be null.
+     * @return the corresponding node
+     * @throws LdapException if the Dn is null or empty, or if the node already exists
+     */
+    public synchronized Node<N> add( Dn dn, N element ) throws LdapException
+    {
+        checkDn( dn );
+
+        root = add( root, getPath( dn ), 1, element );
+
+        return getNode( dn );
+    }
+
+
+    /**
+     * Recursively copy the nodes on the path of the added Dn, starting from the
+     * node at depth - 1, and returns the copy of this node.
+     */
+    private Node<N> add( Node<N> node, Dn[] path, int depth, N element ) throws LdapException
+    {
+        Dn dn = path[depth];
+        Rdn rdn = dn.getRdn();
+        Node<N> child = node.children.get( rdn );
+        Node<N> newChild;
+
+        if ( depth < path.length - 1 )
+        {
+            if ( child == null )
+            {
+                child = new Node<>( dn, rdn, null, Collections.<Rdn, Node<N>> emptyMap() );
+            }
+
+            newChild = add( child, path, depth + 1, element );
+        }
+        else if ( child == null )
+        {
+            newChild = new Node<>( dn, rdn, element, Collections.<Rdn, Node<N>> emptyMap() );
+        }
+        else if ( child.hasElement() )
+        {
+            // That means the added Dn is already present, with an element
+            String message = "Cannot add a node to a node already having an element";
+            LOG.error( message );
+            throw new LdapUnwillingToPerformException( ResultCodeEnum.UNWILLING_TO_PERFORM, message );
+        }
+        else if ( element == null )
+        {
+            // We may try to add twice the same Dn, without any element
+            String message = "Cannot add a node with no element if it already exists";
+            LOG.error( message );
+            throw new LdapUnwillingToPerformException( ResultCodeEnum.UNWILLING_TO_PERFORM, message );
+        }
+        else
+        {
+            // All is fine : we are just injecting some data into an existing node
+            newChild = new Node<>( child.nodeDn, child.nodeRdn, element, child.children );
+        }
+
+        return node.withChild( newChild );
+    }
+
+
+    /**
+     * Removes a node from the tree. The node is removed only if it has no
+     * children. The parent nodes which have no element and no other children
+     * are removed too.
+     *
+     * @param dn the node's Dn
+     * @throws LdapException if the Dn is null or empty
+     */
+    public synchronized void remove( Dn dn ) throws LdapException
+    {
+        checkDn( dn );
+
+        Node<N> node = getNode( dn );
+
+        // Check that the node exists, and that there is no children
+        if ( ( node == null ) || ( node.getDepth() != dn.size() ) || node.hasChildren() )
+        {
+            return;
+        }
+
+        Node<N> newRoot = remove( root, getPath( dn ), 1 );
+
+        if ( newRoot == null )
+        {
+            newRoot = new Node<>( Dn.EMPTY_DN, Rdn.EMPTY_RDN, null, Collections.<Rdn, Node<N>> emptyMap() );
+        }
+
+        root = newRoot;
+    }
+
+
+    /**
+     * Recursively copy the nodes on the path of the removed Dn, starting from the
+     * node at depth - 1, and returns the copy of this node, or null if it has
+     * to be removed too.
+     */
+    private Node<N> remove( Node<N> node, Dn[] path, int depth )
+    {
+        Rdn rdn = path[depth].getRdn();
+        Node<N> newChild = null;
+
+        if ( depth < path.length - 1 )
+        {
+            newChild = remove( node.children.get( rdn ), path, depth + 1 );
+        }
+
+        if ( newChild != null )
+        {
+            return node.withChild( newChild );
+        }
+
+        if ( ( node.children.size() == 1 ) && ( node.nodeElement == null ) )
+        {
+            // The node is now empty, remove it
+            return null;
+        }
+
+        Map<Rdn, Node<N>> newChildren = new HashMap<>( node.children );
+        newChildren.remove( rdn );
+
+        return new Node<>( node.nodeDn, node.nodeRdn, node.nodeElement, newChildren );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+
+        toString( sb, root, "" );
+
+        return sb.toString();
+    }
+
+
+    private void toString( StringBuilder sb, Node<N> node, String tabs )
+    {
+        sb.append( tabs ).append( node ).append( '\n' );
+
+        for ( Node<N> child : node.children.values() )
+        {
+            toString( sb, child, tabs + "    " );
+        }
+    }
+}
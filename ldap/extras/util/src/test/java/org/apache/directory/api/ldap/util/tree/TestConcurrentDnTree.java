@@ -0,0 +1,273 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.util.tree;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapUnwillingToPerformException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.junit.Test;
+
+
+/**
+ * Test the ConcurrentDnTree
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class TestConcurrentDnTree
+{
+    /**
+     * Test the addition of a null Dn
+     */
+    @Test(expected = LdapUnwillingToPerformException.class)
+    public void testAddNullDn() throws LdapException
+    {
+        ConcurrentDnTree<Dn> tree = new ConcurrentDnTree<Dn>();
+
+        tree.add( null );
+    }
+
+
+    /**
+     * Test the addition of a Dn with three Rdn, and the lookups
+     */
+    @Test
+    public void testAddAndGet() throws LdapException
+    {
+        ConcurrentDnTree<Dn> tree = new ConcurrentDnTree<Dn>();
+        Dn dn = new Dn( "dc=c,dc=b,dc=a" );
+
+        ConcurrentDnTree.Node<Dn> node = tree.add( dn, dn );
+
+        assertNotNull( node );
+        assertEquals( dn, node.getDn() );
+        assertEquals( 3, node.getDepth() );
+        assertEquals( 4, tree.size() );
+
+        assertSame( dn, tree.getElement( dn ) );
+        assertSame( dn, tree.getElement( new Dn( "ou=people,dc=c,dc=b,dc=a" ) ) );
+        assertNull( tree.getElement( new Dn( "dc=b,dc=a" ) ) );
+        assertNull( tree.getElement( new Dn( "dc=e" ) ) );
+
+        assertTrue( tree.hasElement( dn ) );
+        assertFalse( tree.hasElement( new Dn( "dc=b,dc=a" ) ) );
+        assertTrue( tree.hasChildren( new Dn( "dc=b,dc=a" ) ) );
+        assertTrue( tree.isLeaf( dn ) );
+    }
+
+
+    /**
+     * Test that adding an existing node is rejected, unless we set its element
+     */
+    @Test
+    public void testAddExisting() throws LdapException
+    {
+        ConcurrentDnTree<String> tree = new ConcurrentDnTree<String>();
+        Dn dn = new Dn( "dc=b,dc=a" );
+
+        tree.add( new Dn( "dc=c,dc=b,dc=a" ), "c" );
+
+        try
+        {
+            tree.add( dn );
+            fail();
+        }
+        catch ( LdapUnwillingToPerformException lutpe )
+        {
+            assertTrue( true );
+        }
+
+        tree.add( dn, "b" );
+
+        assertEquals( "b", tree.getElement( dn ) );
+        assertEquals( "c", tree.getElement( new Dn( "dc=c,dc=b,dc=a" ) ) );
+
+        try
+        {
+            tree.add( dn, "b2" );
+            fail();
+        }
+        catch ( LdapUnwillingToPerformException lutpe )
+        {
+            assertEquals( "b", tree.getElement( dn ) );
+        }
+    }
+
+
+    /**
+     * Test the lookups of the parent elements
+     */
+    @Test
+    public void testParentElement() throws LdapException
+    {
+        ConcurrentDnTree<String> tree = new ConcurrentDnTree<String>();
+        tree.add( new Dn( "dc=b,dc=a" ), "b" );
+        tree.add( new Dn( "ou=people,dc=b,dc=a" ) );
+        tree.add( new Dn( "dc=d,dc=c" ), "d" );
+
+        Dn dn = new Dn( "cn=test,ou=people,dc=b,dc=a" );
+
+        assertTrue( tree.hasParentElement( dn ) );
+        assertTrue( tree.hasParentElement( new Dn( "dc=b,dc=a" ) ) );
+        assertFalse( tree.hasParentElement( new Dn( "dc=c" ) ) );
+        assertFalse( tree.hasParentElement( new Dn( "dc=x" ) ) );
+
+        assertEquals( "b", tree.getParentWithElement( dn ).getElement() );
+        assertNull( tree.getParentWithElement( new Dn( "dc=b,dc=a" ) ) );
+        assertNull( tree.getParentWithElement( new Dn( "dc=x,dc=c" ) ) );
+    }
+
+
+    /**
+     * Test the lookups of the descendant elements
+     */
+    @Test
+    public void testDescendantElements() throws LdapException
+    {
+        ConcurrentDnTree<String> tree = new ConcurrentDnTree<String>();
+        tree.add( new Dn( "dc=b,dc=a" ), "b" );
+        tree.add( new Dn( "dc=c,dc=a" ), "c" );
+        tree.add( new Dn( "dc=e,dc=c,dc=a" ), "e" );
+        tree.add( new Dn( "dc=x" ) );
+
+        assertTrue( tree.hasDescendantElement( new Dn( "dc=a" ) ) );
+        assertFalse( tree.hasDescendantElement( new Dn( "dc=x" ) ) );
+        assertFalse( tree.hasDescendantElement( new Dn( "dc=y,dc=x" ) ) );
+
+        List<String> descendants = tree.getDescendantElements( new Dn( "dc=a" ) );
+
+        assertEquals( 2, descendants.size() );
+        assertTrue( descendants.contains( "b" ) );
+        assertTrue( descendants.contains( "c" ) );
+    }
+
+
+    /**
+     * Test the removal of nodes, and the pruning of the empty parents
+     */
+    @Test
+    public void testRemove() throws LdapException
+    {
+        ConcurrentDnTree<String> tree = new ConcurrentDnTree<String>();
+        tree.add( new Dn( "dc=a" ), "a" );
+        tree.add( new Dn( "dc=d,dc=c,dc=b,dc=a" ), "d" );
+        tree.add( new Dn( "dc=e,dc=a" ), "e" );
+
+        assertEquals( 6, tree.size() );
+
+        // A node with children can't be removed
+        tree.remove( new Dn( "dc=a" ) );
+        assertEquals( 6, tree.size() );
+
+        // The empty parents are removed, not the ones with an element
+        tree.remove( new Dn( "dc=d,dc=c,dc=b,dc=a" ) );
+        assertEquals( 3, tree.size() );
+        assertEquals( "a", tree.getElement( new Dn( "dc=b,dc=a" ) ) );
+
+        tree.remove( new Dn( "dc=e,dc=a" ) );
+        tree.remove( new Dn( "dc=a" ) );
+        assertEquals( 1, tree.size() );
+        assertFalse( tree.getRoot().hasChildren() );
+    }
+
+
+    /**
+     * Test that the nodes of a version of the tree are not modified by the
+     * following updates
+     */
+    @Test
+    public void testSnapshot() throws LdapException
+    {
+        ConcurrentDnTree<String> tree = new ConcurrentDnTree<String>();
+        tree.add( new Dn( "dc=b,dc=a" ), "b" );
+
+        ConcurrentDnTree.Node<String> root = tree.getRoot();
+
+        tree.add( new Dn( "dc=c,dc=a" ), "c" );
+        tree.remove( new Dn( "dc=b,dc=a" ) );
+
+        assertEquals( 1, root.getChildren().size() );
+        assertEquals( "b", root.getChildren().values().iterator().next().getChildren().values().iterator().next()
+            .getElement() );
+        assertEquals( "c", tree.getElement( new Dn( "dc=c,dc=a" ) ) );
+        assertNull( tree.getElement( new Dn( "dc=b,dc=a" ) ) );
+    }
+
+
+    /**
+     * Test the lookups done while the tree is updated
+     */
+    @Test
+    public void testConcurrentLookups() throws Exception
+    {
+        final ConcurrentDnTree<String> tree = new ConcurrentDnTree<String>();
+        final Dn dn = new Dn( "dc=b,dc=a" );
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        tree.add( dn, "b" );
+
+        Thread[] readers = new Thread[4];
+
+        for ( int i = 0; i < readers.length; i++ )
+        {
+            readers[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for ( int j = 0; j < 100000; j++ )
+                    {
+                        if ( !"b".equals( tree.getElement( dn ) ) )
+                        {
+                            failure.set( "Lost the dc=b,dc=a element" );
+                        }
+                    }
+                }
+            };
+
+            readers[i].start();
+        }
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            Dn child = new Dn( "ou=" + i + ",dc=c,dc=a" );
+            tree.add( child, "c" );
+            tree.remove( child );
+        }
+
+        for ( Thread reader : readers )
+        {
+            reader.join();
+        }
+
+        assertNull( failure.get() );
+        assertEquals( 3, tree.size() );
+    }
+}
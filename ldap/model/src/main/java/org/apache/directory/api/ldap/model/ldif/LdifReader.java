@@ -32,10 +32,12 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -251,6 +253,27 @@ public class LdifReader implements Iterable<LdifEntry>, Closeable
     /** A counter used to create facked OIDs */
     private int oidCounter = 0;
 
+    /** The size of the attribute IDs cache, a power of 2 */
+    private static final int ATTRIBUTE_IDS_SIZE = 256;
+
+    /** The bytes being parsed by the byte level parser */
+    private ByteBuffer ldifBytes;
+
+    /** The position of the next line in the parsed bytes */
+    private int ldifPos;
+
+    /** The unfolded line being parsed by the byte level parser */
+    private byte[] lineBytes;
+
+    /** The length of the unfolded line */
+    private int lineLength;
+
+    /** The position following the last line read by the byte level parser */
+    private int lineEnd;
+
+    /** The interned attribute IDs, indexed by the hash of their bytes */
+    private String[] attributeIds;
+
 
     /**
      * Constructors
@@ -981,6 +1004,23 @@ public class LdifReader implements Iterable<LdifEntry>, Closeable
 
         Object attributeValue = parseValue( attributeType, line, colonIndex );
 
+        addAttributeValue( entry, attributeType, attributeValue );
+    }
+
+
+    /**
+     * Add a parsed value to an entry, converting it to a String or a byte[]
+     * depending on the attribute type syntax.
+     *
+     * @param entry The entry where to store the value
+     * @param attributeType The lowercased attribute ID
+     * @param value The value, a String or a byte[]
+     * @throws LdapException If anything goes wrong
+     */
+    private void addAttributeValue( LdifEntry entry, String attributeType, Object value ) throws LdapException
+    {
+        Object attributeValue = value;
+
         if ( schemaManager != null )
         {
             AttributeType at = schemaManager.getAttributeType( attributeType );
@@ -1399,38 +1439,7 @@ public class LdifReader implements Iterable<LdifEntry>, Closeable
 
         lineNumber -= ( lines.size() - 1 );
 
-        String name = parseDn( line );
-
-        Dn dn = null;
-        
-        try
-        {
-            dn = new Dn( schemaManager, name );
-        }
-        catch ( LdapInvalidDnException lide )
-        {
-            // Deal with the RDN whihc is not in the schema
-            // First parse the DN without the schema
-            dn = new Dn( name );
-            
-            Rdn rdn = dn.getRdn();
-            
-            // Process each Ava
-            for ( Ava ava : rdn )
-            {
-                if ( ( schemaManager != null ) && ( schemaManager.getAttributeType( ava.getType() ) == null ) 
-                    && schemaManager.isRelaxed() )
-                {
-                    // Not found : create a new one
-                    MutableAttributeType newAttributeType = new MutableAttributeType( "1.3.6.1.4.1.18060.0.9999." + oidCounter++ );
-                    newAttributeType.setNames( ava.getType() );
-                    newAttributeType.setSyntax( schemaManager.getLdapSyntaxRegistry().get( SchemaConstants.DIRECTORY_STRING_SYNTAX ) );
-                    schemaManager.add( newAttributeType );
-                }
-            }
-            
-            dn = new Dn( schemaManager, name );
-        }
+        Dn dn = createDn( parseDn( line ) );
 
         // Ok, we have found a Dn
         LdifEntry entry = createLdifEntry( schemaManager );
@@ -1565,6 +1574,47 @@ public class LdifReader implements Iterable<LdifEntry>, Closeable
     }
 
 
+    /**
+     * Creates the Dn of an entry. In relaxed mode, the unknown attribute types
+     * of its Rdn are added to the schema.
+     */
+    private Dn createDn( String name ) throws LdapException
+    {
+        Dn dn = null;
+        
+        try
+        {
+            dn = new Dn( schemaManager, name );
+        }
+        catch ( LdapInvalidDnException lide )
+        {
+            // Deal with the RDN whihc is not in the schema
+            // First parse the DN without the schema
+            dn = new Dn( name );
+            
+            Rdn rdn = dn.getRdn();
+            
+            // Process each Ava
+            for ( Ava ava : rdn )
+            {
+                if ( ( schemaManager != null ) && ( schemaManager.getAttributeType( ava.getType() ) == null ) 
+                    && schemaManager.isRelaxed() )
+                {
+                    // Not found : create a new one
+                    MutableAttributeType newAttributeType = new MutableAttributeType( "1.3.6.1.4.1.18060.0.9999." + oidCounter++ );
+                    newAttributeType.setNames( ava.getType() );
+                    newAttributeType.setSyntax( schemaManager.getLdapSyntaxRegistry().get( SchemaConstants.DIRECTORY_STRING_SYNTAX ) );
+                    schemaManager.add( newAttributeType );
+                }
+            }
+            
+            dn = new Dn( schemaManager, name );
+        }
+
+        return dn;
+    }
+
+
     /**
      * Parse the version from the ldif input.
      *
@@ -1588,35 +1638,9 @@ public class LdifReader implements Iterable<LdifEntry>, Closeable
         String line = lines.get( 0 );
 
         // <ldif-file> ::= "version:" <fill> <number>
-        char[] document = line.toCharArray();
-        String versionNumber;
-
         if ( line.startsWith( "version:" ) )
         {
-            position += "version:".length();
-            parseFill( document );
-
-            // Version number. Must be '1' in this version
-            versionNumber = parseNumber( document );
-
-            // We should not have any other chars after the number
-            if ( position != document.length )
-            {
-                LOG.error( I18n.err( I18n.ERR_12060_VERSION_NOT_A_NUMBER, lineNumber ) );
-                throw new LdapLdifException( I18n.err( I18n.ERR_12061_LDIF_PARSING_ERROR ) );
-            }
-
-            try
-            {
-                ver = Integer.parseInt( versionNumber );
-            }
-            catch ( NumberFormatException nfe )
-            {
-                LOG.error( I18n.err( I18n.ERR_12060_VERSION_NOT_A_NUMBER, lineNumber ) );
-                throw new LdapLdifException( I18n.err( I18n.ERR_12061_LDIF_PARSING_ERROR ), nfe );
-            }
-
-            LOG.debug( "Ldif version : {}", versionNumber );
+            ver = parseVersionLine( line );
 
             // We have found the version, just discard the line from the list
             lines.remove( 0 );
@@ -1641,6 +1665,40 @@ public class LdifReader implements Iterable<LdifEntry>, Closeable
     }
 
 
+    /**
+     * Parse the version number of a "version:" line
+     */
+    private int parseVersionLine( String line ) throws LdapLdifException
+    {
+        char[] document = line.toCharArray();
+
+        position += "version:".length();
+        parseFill( document );
+
+        // Version number. Must be '1' in this version
+        String versionNumber = parseNumber( document );
+
+        // We should not have any other chars after the number
+        if ( position != document.length )
+        {
+            LOG.error( I18n.err( I18n.ERR_12060_VERSION_NOT_A_NUMBER, lineNumber ) );
+            throw new LdapLdifException( I18n.err( I18n.ERR_12061_LDIF_PARSING_ERROR ) );
+        }
+
+        try
+        {
+            LOG.debug( "Ldif version : {}", versionNumber );
+
+            return Integer.parseInt( versionNumber );
+        }
+        catch ( NumberFormatException nfe )
+        {
+            LOG.error( I18n.err( I18n.ERR_12060_VERSION_NOT_A_NUMBER, lineNumber ) );
+            throw new LdapLdifException( I18n.err( I18n.ERR_12061_LDIF_PARSING_ERROR ), nfe );
+        }
+    }
+
+
     /**
      * gets a line from the underlying data store
      *
@@ -1871,6 +1929,427 @@ public class LdifReader implements Iterable<LdifEntry>, Closeable
     }
 
 
+    // ------------------------------------------------------------------------
+    // Byte level parsing
+    // ------------------------------------------------------------------------
+    /**
+     * Parses UTF-8 encoded LDIF bytes, from the buffer position to its limit, and
+     * returns the list of entries.<br>
+     * The content records are parsed directly from the bytes : the lines are unfolded
+     * into a reused buffer, the base64 values are decoded from it, and the only
+     * Strings created are the Dn, the String values and the attribute IDs, which
+     * are interned. The change records are parsed as with the other parseLdif methods.
+     * The buffer position is not modified.
+     *
+     * @param ldif The LDIF bytes
+     * @return A list of entries, or an empty List
+     * @throws LdapException If the LDIF is invalid
+     */
+    public List<LdifEntry> parseLdif( ByteBuffer ldif ) throws LdapException
+    {
+        List<LdifEntry> entries = new ArrayList<>();
+
+        ldifBytes = ldif;
+        ldifPos = ldif.position();
+
+        if ( lineBytes == null )
+        {
+            lineBytes = new byte[256];
+            attributeIds = new String[ATTRIBUTE_IDS_SIZE];
+        }
+
+        boolean isFirstLine = true;
+
+        // The first record includes the version line and the comments preceding it
+        int recordStart = ldifPos;
+
+        try
+        {
+            while ( ldifPos < ldif.limit() )
+            {
+                if ( !readLine() )
+                {
+                    // An empty line between two records
+                    if ( !entries.isEmpty() )
+                    {
+                        recordStart = ldifPos;
+                    }
+
+                    continue;
+                }
+
+                if ( isFirstLine )
+                {
+                    isFirstLine = false;
+
+                    if ( startsWith( "version:" ) )
+                    {
+                        position = 0;
+                        version = parseVersionLine( lineString() );
+
+                        continue;
+                    }
+                }
+
+                entries.add( parseRecord( recordStart ) );
+                recordStart = ldifPos;
+            }
+        }
+        finally
+        {
+            ldifBytes = null;
+        }
+
+        return entries;
+    }
+
+
+    /**
+     * Parses a record, the current line being its dn line.
+     */
+    private LdifEntry parseRecord( int recordStart ) throws LdapException
+    {
+        String dnLine = lineString();
+        String name = parseDn( dnLine );
+
+        boolean hasLine = readLine();
+
+        if ( hasLine && ( startsWith( "control:" ) || startsWith( "changetype:" ) ) )
+        {
+            // A change record : gather its lines and parse them
+            lines.clear();
+            lines.add( dnLine );
+
+            do
+            {
+                lines.add( lineString() );
+            }
+            while ( readLine() );
+
+            entryOffset = recordStart;
+            entryLen = lineEnd - recordStart;
+
+            return parseEntry();
+        }
+
+        Dn dn = createDn( name );
+
+        LdifEntry entry = createLdifEntry( schemaManager );
+        entry.setOffset( recordStart );
+        entry.setDn( dn );
+
+        if ( hasLine )
+        {
+            if ( containsChanges )
+            {
+                LOG.error( I18n.err( I18n.ERR_12004_CHANGE_NOT_ALLOWED, lineNumber ) );
+                throw new LdapLdifException( I18n.err( I18n.ERR_12005_NO_CHANGE ) );
+            }
+
+            containsEntries = true;
+
+            do
+            {
+                parseAttributeValue( entry );
+            }
+            while ( readLine() );
+        }
+
+        entry.setLengthBeforeParsing( lineEnd - recordStart );
+
+        LOG.debug( "Read an entry : {}", entry );
+
+        return entry;
+    }
+
+
+    /**
+     * Parse the AttributeType/AttributeValue of the current line
+     */
+    private void parseAttributeValue( LdifEntry entry ) throws LdapException
+    {
+        int colonIndex = 0;
+
+        while ( ( colonIndex < lineLength ) && ( lineBytes[colonIndex] != ':' ) )
+        {
+            colonIndex++;
+        }
+
+        if ( ( colonIndex == 0 ) || ( colonIndex == lineLength ) )
+        {
+            // Invalid attribute Value
+            LOG.error( I18n.err( I18n.ERR_12056, lineNumber ) );
+            throw new LdapLdifException( I18n.err( I18n.ERR_12057_BAD_ATTRIBUTE ) );
+        }
+
+        String attributeType = getAttributeId( colonIndex );
+
+        // We should *not* have a Dn twice
+        if ( "dn".equals( attributeType ) )
+        {
+            LOG.error( I18n.err( I18n.ERR_12002_ENTRY_WITH_TWO_DNS, lineNumber ) );
+            throw new LdapLdifException( I18n.err( I18n.ERR_12003_LDIF_ENTRY_WITH_TWO_DNS ) );
+        }
+
+        Object attributeValue = null;
+        int start = colonIndex + 1;
+
+        if ( start < lineLength )
+        {
+            if ( lineBytes[start] == ':' )
+            {
+                // A base64 encoded value, decoded straight from the line
+                attributeValue = getValue( attributeType, Base64.decode( lineBytes, start + 1, lineLength ) );
+            }
+            else if ( lineBytes[start] == '<' )
+            {
+                // A file contained value
+                attributeValue = parseValue( attributeType, lineString(), colonIndex );
+            }
+            else
+            {
+                // Skip the <fill>, and remove the trailing spaces, unless escaped
+                while ( ( start < lineLength ) && ( lineBytes[start] == ' ' ) )
+                {
+                    start++;
+                }
+
+                int end = lineLength;
+
+                while ( ( end > start + 1 ) && ( lineBytes[end - 1] == ' ' ) && ( lineBytes[end - 2] != '\\' ) )
+                {
+                    end--;
+                }
+
+                attributeValue = Strings.utf8ToString( lineBytes, start, end - start );
+            }
+        }
+
+        addAttributeValue( entry, attributeType, attributeValue );
+    }
+
+
+    /**
+     * Reads the next unfolded line of the current record, skipping the comments. As
+     * with a BufferedReader, the lines are terminated by a LF, a CR, or a CR LF.
+     *
+     * @return true if a line has been read, false if the record is ended by an
+     * empty line or by the end of the bytes
+     */
+    private boolean readLine() throws LdapLdifException
+    {
+        int limit = ldifBytes.limit();
+        boolean hasLine = false;
+        boolean insideComment = false;
+
+        lineLength = 0;
+
+        while ( ldifPos < limit )
+        {
+            byte first = ldifBytes.get( ldifPos );
+
+            if ( hasLine && ( first != ' ' ) )
+            {
+                // The next line is not a continuation line
+                return true;
+            }
+
+            lineNumber++;
+
+            switch ( first )
+            {
+                case '\n':
+                case '\r':
+                    // An empty line : the record is ended
+                    skipLine();
+
+                    return false;
+
+                case '#':
+                    insideComment = true;
+                    skipLine();
+                    lineEnd = ldifPos;
+                    break;
+
+                case ' ':
+                    if ( insideComment )
+                    {
+                        skipLine();
+                    }
+                    else if ( !hasLine )
+                    {
+                        LOG.error( I18n.err( I18n.ERR_12062_EMPTY_CONTINUATION_LINE, lineNumber ) );
+                        throw new LdapLdifException( I18n.err( I18n.ERR_12061_LDIF_PARSING_ERROR ) );
+                    }
+                    else
+                    {
+                        appendLine( ldifPos + 1 );
+                    }
+
+                    lineEnd = ldifPos;
+                    break;
+
+                default:
+                    hasLine = true;
+                    insideComment = false;
+                    appendLine( ldifPos );
+                    lineEnd = ldifPos;
+                    break;
+            }
+        }
+
+        return hasLine;
+    }
+
+
+    /**
+     * Appends a physical line, starting at a given position, to the unfolded line,
+     * and moves to the next line
+     */
+    private void appendLine( int start )
+    {
+        int end = start;
+        int limit = ldifBytes.limit();
+
+        while ( end < limit )
+        {
+            byte b = ldifBytes.get( end );
+
+            if ( ( b == '\n' ) || ( b == '\r' ) )
+            {
+                break;
+            }
+
+            end++;
+        }
+
+        int length = end - start;
+
+        if ( lineLength + length > lineBytes.length )
+        {
+            lineBytes = Arrays.copyOf( lineBytes, Math.max( lineBytes.length * 2, lineLength + length ) );
+        }
+
+        for ( int i = start; i < end; i++ )
+        {
+            lineBytes[lineLength++] = ldifBytes.get( i );
+        }
+
+        ldifPos = end;
+        skipLine();
+    }
+
+
+    /**
+     * Moves to the next physical line
+     */
+    private void skipLine()
+    {
+        int limit = ldifBytes.limit();
+
+        while ( ldifPos < limit )
+        {
+            byte b = ldifBytes.get( ldifPos++ );
+
+            if ( b == '\n' )
+            {
+                return;
+            }
+
+            if ( b == '\r' )
+            {
+                if ( ( ldifPos < limit ) && ( ldifBytes.get( ldifPos ) == '\n' ) )
+                {
+                    ldifPos++;
+                }
+
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Tells if the unfolded line starts with a lowercase prefix, ignoring the case
+     */
+    private boolean startsWith( String prefix )
+    {
+        if ( lineLength < prefix.length() )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < prefix.length(); i++ )
+        {
+            if ( Character.toLowerCase( lineBytes[i] ) != prefix.charAt( i ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * @return The unfolded line, as a String
+     */
+    private String lineString()
+    {
+        return Strings.utf8ToString( lineBytes, 0, lineLength );
+    }
+
+
+    /**
+     * Gets the lowercased, interned, ID of the attribute whose name is stored at the
+     * beginning of the unfolded line. The IDs are cached by the hash of their bytes,
+     * so that we don't create a String for each value.
+     */
+    private String getAttributeId( int length )
+    {
+        int hash = 0;
+
+        for ( int i = 0; i < length; i++ )
+        {
+            hash = 31 * hash + Character.toLowerCase( lineBytes[i] & 0xFF );
+        }
+
+        int index = ( hash ^ ( hash >>> 16 ) ) & ( ATTRIBUTE_IDS_SIZE - 1 );
+        String attributeId = attributeIds[index];
+
+        if ( ( attributeId != null ) && ( attributeId.length() == length ) )
+        {
+            boolean isSame = true;
+
+            for ( int i = 0; i < length; i++ )
+            {
+                if ( attributeId.charAt( i ) != Character.toLowerCase( lineBytes[i] & 0xFF ) )
+                {
+                    isSame = false;
+                    break;
+                }
+            }
+
+            if ( isSame )
+            {
+                return attributeId;
+            }
+        }
+
+        char[] chars = new char[length];
+
+        for ( int i = 0; i < length; i++ )
+        {
+            chars[i] = ( char ) Character.toLowerCase( lineBytes[i] & 0xFF );
+        }
+
+        attributeId = new String( chars ).intern();
+        attributeIds[index] = attributeId;
+
+        return attributeId;
+    }
+
+
     // ------------------------------------------------------------------------
     // Iterator Methods
     // ------------------------------------------------------------------------
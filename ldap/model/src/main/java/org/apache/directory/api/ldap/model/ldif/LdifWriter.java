@@ -0,0 +1,590 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.ldif;
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Modification;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * A streaming LDIF writer. Entries, change records and their controls are
+ * written straight into an internal byte buffer which is flushed to the
+ * underlying stream when full : lines are folded and values are base64 encoded
+ * while they are written, so no intermediate String is built per entry or per
+ * value. The produced LDIF is equivalent to the one {@link LdifUtils} generates.
+ * <br>
+ * Records are separated by an empty line. A typical export looks like :
+ * <pre>
+ * try ( LdifWriter writer = new LdifWriter( new File( "export.ldif" ) ) )
+ * {
+ *     writer.writeVersion();
+ *
+ *     for ( Entry entry : cursor )
+ *     {
+ *         writer.write( entry );
+ *     }
+ * }
+ * </pre>
+ * This class is not thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifWriter implements Closeable, Flushable
+{
+    /** The default length for a line in a ldif file */
+    public static final int DEFAULT_LINE_LENGTH = 80;
+
+    /** The default size of the internal buffer */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** The base64 alphabet */
+    private static final byte[] BASE64_ALPHABET = Strings
+        .getBytesUtf8( "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/" );
+
+    /** The underlying stream */
+    private final OutputStream out;
+
+    /** The buffer in which the LDIF is written before being flushed */
+    private final byte[] buffer;
+
+    /** The current position in the buffer */
+    private int pos;
+
+    /** The maximum length of a line, after which it is folded */
+    private final int lineLength;
+
+    /** The number of bytes written on the current line */
+    private int column;
+
+    /** Tells if a record has already been written */
+    private boolean hasRecord;
+
+
+    /**
+     * Creates a new LdifWriter writing into a stream, with the default line length.
+     *
+     * @param out The stream to write into
+     */
+    public LdifWriter( OutputStream out )
+    {
+        this( out, DEFAULT_LINE_LENGTH, DEFAULT_BUFFER_SIZE );
+    }
+
+
+    /**
+     * Creates a new LdifWriter writing into a stream.
+     *
+     * @param out The stream to write into
+     * @param lineLength The maximum line length. Longer lines are folded.
+     */
+    public LdifWriter( OutputStream out, int lineLength )
+    {
+        this( out, lineLength, DEFAULT_BUFFER_SIZE );
+    }
+
+
+    /**
+     * Creates a new LdifWriter writing into a stream.
+     *
+     * @param out The stream to write into
+     * @param lineLength The maximum line length. Longer lines are folded.
+     * @param bufferSize The size of the internal buffer
+     */
+    public LdifWriter( OutputStream out, int lineLength, int bufferSize )
+    {
+        if ( lineLength < 2 )
+        {
+            throw new IllegalArgumentException( I18n.err( I18n.ERR_12084 ) );
+        }
+
+        this.out = out;
+        this.lineLength = lineLength;
+        buffer = new byte[Math.max( bufferSize, 16 )];
+    }
+
+
+    /**
+     * Creates a new LdifWriter writing into a file, with the default line length.
+     * The file is created, or truncated if it already exists.
+     *
+     * @param file The file to write into
+     * @throws IOException If the file can't be opened
+     */
+    public LdifWriter( File file ) throws IOException
+    {
+        this( new FileOutputStream( file ) );
+    }
+
+
+    /**
+     * Writes the version line. It should be written first.
+     *
+     * @throws IOException If the LDIF can't be written
+     */
+    public void writeVersion() throws IOException
+    {
+        writeAscii( "version: 1" );
+        writeNewLine();
+    }
+
+
+    /**
+     * Writes an Entry as an LDIF content record. The Dn is written if the entry has one.
+     *
+     * @param entry The entry to write
+     * @throws IOException If the LDIF can't be written
+     */
+    public void write( Entry entry ) throws IOException
+    {
+        startRecord();
+
+        if ( entry.getDn() != null )
+        {
+            writeDn( entry.getDn() );
+        }
+
+        for ( Attribute attribute : entry )
+        {
+            write( attribute );
+        }
+    }
+
+
+    /**
+     * Writes an LdifEntry, either as a content record or as a change record,
+     * including its controls.
+     *
+     * @param entry The LdifEntry to write
+     * @throws LdapException If the LdifEntry is inconsistent with its change type
+     * @throws IOException If the LDIF can't be written
+     */
+    public void write( LdifEntry entry ) throws LdapException, IOException
+    {
+        ChangeType changeType = entry.getChangeType();
+
+        // Check the entry before writing anything, so that we don't leave a partial record
+        switch ( changeType )
+        {
+            case None:
+            case Add:
+                if ( entry.getEntry() == null )
+                {
+                    throw new LdapException( I18n.err( I18n.ERR_12082 ) );
+                }
+
+                break;
+
+            case Delete:
+                if ( entry.getEntry() != null )
+                {
+                    throw new LdapException( I18n.err( I18n.ERR_12081 ) );
+                }
+
+                break;
+
+            case ModDn:
+            case ModRdn:
+                if ( entry.getEntry() != null )
+                {
+                    throw new LdapException( I18n.err( I18n.ERR_12083 ) );
+                }
+
+                break;
+
+            case Modify:
+                break;
+
+            default:
+                throw new IllegalArgumentException( "Unexpected ChangeType: " + changeType );
+        }
+
+        startRecord();
+        writeDn( entry.getDn() );
+
+        if ( changeType != ChangeType.None )
+        {
+            if ( entry.hasControls() )
+            {
+                for ( LdifControl control : entry.getControls().values() )
+                {
+                    write( control );
+                }
+            }
+
+            writeAscii( "changetype: " );
+            writeAscii( Strings.toLowerCaseAscii( changeType.toString() ) );
+            writeNewLine();
+        }
+
+        switch ( changeType )
+        {
+            case None:
+            case Add:
+                for ( Attribute attribute : entry.getEntry() )
+                {
+                    write( attribute );
+                }
+
+                break;
+
+            case ModDn:
+            case ModRdn:
+                writeValue( "newrdn", entry.getNewRdn() );
+
+                writeAscii( "deleteoldrdn: " );
+                writeByte( entry.isDeleteOldRdn() ? ( byte ) '1' : ( byte ) '0' );
+                writeNewLine();
+
+                if ( !Strings.isEmpty( entry.getNewSuperior() ) )
+                {
+                    writeValue( "newsuperior", entry.getNewSuperior() );
+                }
+
+                break;
+
+            case Modify:
+                for ( Modification modification : entry.getModifications() )
+                {
+                    switch ( modification.getOperation() )
+                    {
+                        case ADD_ATTRIBUTE:
+                            writeAscii( "add: " );
+                            break;
+
+                        case REMOVE_ATTRIBUTE:
+                            writeAscii( "delete: " );
+                            break;
+
+                        case REPLACE_ATTRIBUTE:
+                            writeAscii( "replace: " );
+                            break;
+
+                        default:
+                            throw new IllegalArgumentException( "Unexpected ModificationOperation: "
+                                + modification.getOperation() );
+                    }
+
+                    writeUtf8( modification.getAttribute().getUpId() );
+                    writeNewLine();
+
+                    write( modification.getAttribute() );
+
+                    writeByte( ( byte ) '-' );
+                    writeNewLine();
+                }
+
+                break;
+
+            default:
+                // Delete : nothing but the Dn and the changetype
+                break;
+        }
+    }
+
+
+    /**
+     * Writes all the values of an Attribute, one line per value, into the current record.
+     *
+     * @param attribute The Attribute to write
+     * @throws IOException If the LDIF can't be written
+     */
+    public void write( Attribute attribute ) throws IOException
+    {
+        String upId = attribute.getUpId();
+
+        for ( Value<?> value : attribute )
+        {
+            writeUtf8( upId );
+
+            if ( value.isNull() )
+            {
+                writeByte( ( byte ) ':' );
+            }
+            else if ( value.isHumanReadable() )
+            {
+                writeValue( value.getString() );
+            }
+            else
+            {
+                writeByte( ( byte ) ':' );
+                writeByte( ( byte ) ':' );
+                writeByte( ( byte ) ' ' );
+                writeBase64( value.getBytes() );
+            }
+
+            writeNewLine();
+        }
+    }
+
+
+    /**
+     * Writes a control line.
+     */
+    private void write( LdifControl control ) throws IOException
+    {
+        writeAscii( "control: " );
+        writeUtf8( control.getOid() );
+        writeAscii( control.isCritical() ? " true" : " false" );
+
+        if ( control.hasValue() )
+        {
+            writeByte( ( byte ) ':' );
+            writeByte( ( byte ) ':' );
+            writeBase64( control.getValue() );
+        }
+
+        writeNewLine();
+    }
+
+
+    /**
+     * Writes the Dn line of a record
+     */
+    private void writeDn( Dn dn ) throws IOException
+    {
+        writeValue( "dn", dn.getName() );
+    }
+
+
+    /**
+     * Writes a whole line containing a String value
+     */
+    private void writeValue( String id, String value ) throws IOException
+    {
+        writeAscii( id );
+        writeValue( value );
+        writeNewLine();
+    }
+
+
+    /**
+     * Writes the separator and the String value, base64 encoding it if it's not LDIF safe.
+     */
+    private void writeValue( String value ) throws IOException
+    {
+        if ( LdifUtils.isLDIFSafe( value ) )
+        {
+            writeByte( ( byte ) ':' );
+
+            if ( value != null )
+            {
+                writeByte( ( byte ) ' ' );
+
+                // A safe value only contains ASCII chars
+                writeAscii( value );
+            }
+        }
+        else
+        {
+            writeByte( ( byte ) ':' );
+            writeByte( ( byte ) ':' );
+            writeByte( ( byte ) ' ' );
+
+            // force encoding using UTF-8 charset, as required in RFC2849 note 7
+            writeBase64( Strings.getBytesUtf8( value ) );
+        }
+    }
+
+
+    /**
+     * Writes a String we know contains only ASCII chars
+     */
+    private void writeAscii( String str ) throws IOException
+    {
+        for ( int i = 0; i < str.length(); i++ )
+        {
+            writeByte( ( byte ) str.charAt( i ) );
+        }
+    }
+
+
+    /**
+     * Writes a String as UTF-8, without allocating anything if it only contains ASCII chars
+     */
+    private void writeUtf8( String str ) throws IOException
+    {
+        for ( int i = 0; i < str.length(); i++ )
+        {
+            if ( str.charAt( i ) > 0x7F )
+            {
+                byte[] bytes = Strings.getBytesUtf8( str );
+
+                for ( byte b : bytes )
+                {
+                    writeByte( b );
+                }
+
+                return;
+            }
+        }
+
+        writeAscii( str );
+    }
+
+
+    /**
+     * Base64 encodes some bytes, 3 bytes at a time, directly into the buffer
+     */
+    private void writeBase64( byte[] data ) throws IOException
+    {
+        int i = 0;
+        int end = data.length - data.length % 3;
+
+        for ( ; i < end; i += 3 )
+        {
+            int val = ( ( data[i] & 0xFF ) << 16 ) | ( ( data[i + 1] & 0xFF ) << 8 ) | ( data[i + 2] & 0xFF );
+
+            writeByte( BASE64_ALPHABET[( val >>> 18 ) & 0x3F] );
+            writeByte( BASE64_ALPHABET[( val >>> 12 ) & 0x3F] );
+            writeByte( BASE64_ALPHABET[( val >>> 6 ) & 0x3F] );
+            writeByte( BASE64_ALPHABET[val & 0x3F] );
+        }
+
+        switch ( data.length - end )
+        {
+            case 1:
+                int val = ( data[i] & 0xFF ) << 16;
+
+                writeByte( BASE64_ALPHABET[( val >>> 18 ) & 0x3F] );
+                writeByte( BASE64_ALPHABET[( val >>> 12 ) & 0x3F] );
+                writeByte( ( byte ) '=' );
+                writeByte( ( byte ) '=' );
+                break;
+
+            case 2:
+                val = ( ( data[i] & 0xFF ) << 16 ) | ( ( data[i + 1] & 0xFF ) << 8 );
+
+                writeByte( BASE64_ALPHABET[( val >>> 18 ) & 0x3F] );
+                writeByte( BASE64_ALPHABET[( val >>> 12 ) & 0x3F] );
+                writeByte( BASE64_ALPHABET[( val >>> 6 ) & 0x3F] );
+                writeByte( ( byte ) '=' );
+                break;
+
+            default:
+                break;
+        }
+    }
+
+
+    /**
+     * Writes the empty line separating two records, if needed
+     */
+    private void startRecord() throws IOException
+    {
+        if ( hasRecord )
+        {
+            writeNewLine();
+        }
+
+        hasRecord = true;
+    }
+
+
+    /**
+     * Writes one byte, folding the line if it's already full
+     */
+    private void writeByte( byte b ) throws IOException
+    {
+        if ( pos + 3 > buffer.length )
+        {
+            flushBuffer();
+        }
+
+        if ( column == lineLength )
+        {
+            buffer[pos++] = '\n';
+            buffer[pos++] = ' ';
+            column = 1;
+        }
+
+        buffer[pos++] = b;
+        column++;
+    }
+
+
+    /**
+     * Ends the current line
+     */
+    private void writeNewLine() throws IOException
+    {
+        if ( pos == buffer.length )
+        {
+            flushBuffer();
+        }
+
+        buffer[pos++] = '\n';
+        column = 0;
+    }
+
+
+    /**
+     * Writes the buffer content into the underlying stream
+     */
+    private void flushBuffer() throws IOException
+    {
+        if ( pos > 0 )
+        {
+            out.write( buffer, 0, pos );
+            pos = 0;
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        flushBuffer();
+        out.flush();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flushBuffer();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
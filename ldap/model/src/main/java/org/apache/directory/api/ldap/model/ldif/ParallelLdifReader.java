@@ -0,0 +1,652 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.ldif;
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A LDIF reader for large files, which parses the entries using all the cores.<br>
+ * The file is memory mapped, and split into chunks of about {@link #getChunkSize()}
+ * bytes, each chunk ending on an empty line, which is always an entry boundary. The
+ * chunks are parsed in parallel on a {@link ForkJoinPool}, directly from the mapped
+ * bytes by a {@link LdifReader} per chunk, a limited number of chunks being parsed
+ * ahead of the consumer.<br>
+ * The entries can be read in the file order with {@link #iterator()}, or in the
+ * order the chunks are parsed with {@link #unorderedIterator()}. A file can only
+ * be iterated once.<br>
+ * The file must be encoded in UTF-8, as mandated by RFC 2849. If a chunk can't be
+ * parsed, the iteration stops and the error is available through {@link #getError()}.
+ * As with a {@link LdifReader}, a file mixing content records and change records is
+ * rejected, and the line numbers in the error messages are counted from the start of
+ * the file : the invalid chunk is parsed again once the kind of records and the number
+ * of lines of the preceding chunks are known.<br>
+ * This reader differs from a {@link LdifReader} in a few ways :
+ * <ul>
+ *   <li>The entries of the chunks preceding an invalid chunk have already been returned
+ *   when the error is detected.</li>
+ *   <li>With {@link #unorderedIterator()}, a mix of content and change records is
+ *   reported on the chunk consumed last, which may follow the first offending record
+ *   in the file order.</li>
+ *   <li>A version line is accepted at the start of any chunk, and not only at the start
+ *   of the file.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ParallelLdifReader implements Iterable<LdifEntry>, Closeable
+{
+    /** A logger */
+    private static final Logger LOG = LoggerFactory.getLogger( ParallelLdifReader.class );
+
+    /** The default size of a chunk */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /** The size of the windows mapped to find the chunk boundaries */
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    /** The channel on the LDIF file */
+    private final FileChannel channel;
+
+    /** The LDIF file size */
+    private final long fileSize;
+
+    /** The SchemaManager used to create the entries, if any */
+    private final SchemaManager schemaManager;
+
+    /** The pool parsing the chunks */
+    private final ForkJoinPool pool;
+
+    /** Tells if the pool has been created by this reader, and must be shutdown when it's closed */
+    private final boolean isPoolOwned;
+
+    /** The minimal size of a chunk */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /** The maximum number of chunks being parsed ahead of the consumer */
+    private int maxPendingChunks;
+
+    /** The position of the next chunk to parse */
+    private long nextChunkStart;
+
+    /** Tells if the file is being iterated */
+    private boolean isIterated;
+
+    /** The exception that occurred while reading or parsing a chunk */
+    private volatile LdapException error;
+
+
+    /**
+     * Creates a new instance of ParallelLdifReader, parsing the chunks on a
+     * new pool using all the available processors.
+     *
+     * @param file The LDIF file
+     * @throws LdapLdifException If the file can't be read
+     */
+    public ParallelLdifReader( File file ) throws LdapLdifException
+    {
+        this( file, null );
+    }
+
+
+    /**
+     * Creates a new schema aware instance of ParallelLdifReader, parsing the chunks
+     * on a new pool using all the available processors.
+     *
+     * @param file The LDIF file
+     * @param schemaManager The SchemaManager instance to use
+     * @throws LdapLdifException If the file can't be read
+     */
+    public ParallelLdifReader( File file, SchemaManager schemaManager ) throws LdapLdifException
+    {
+        this( file, schemaManager, null );
+    }
+
+
+    /**
+     * Creates a new schema aware instance of ParallelLdifReader, parsing the chunks
+     * on the given pool.
+     *
+     * @param file The LDIF file
+     * @param schemaManager The SchemaManager instance to use
+     * @param pool The pool to use to parse the chunks. If null, a pool using all the
+     * available processors is created, and shutdown when the reader is closed.
+     * @throws LdapLdifException If the file can't be read
+     */
+    public ParallelLdifReader( File file, SchemaManager schemaManager, ForkJoinPool pool ) throws LdapLdifException
+    {
+        if ( !file.exists() )
+        {
+            String msg = I18n.err( I18n.ERR_12010_CANNOT_FIND_FILE, file.getAbsoluteFile() );
+            LOG.error( msg );
+            throw new LdapLdifException( msg );
+        }
+
+        if ( !file.canRead() )
+        {
+            String msg = I18n.err( I18n.ERR_12011_CANNOT_READ_FILE, file.getName() );
+            LOG.error( msg );
+            throw new LdapLdifException( msg );
+        }
+
+        try
+        {
+            channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+            fileSize = channel.size();
+        }
+        catch ( IOException ioe )
+        {
+            throw new LdapLdifException( ioe.getMessage(), ioe );
+        }
+
+        this.schemaManager = schemaManager;
+        isPoolOwned = pool == null;
+        this.pool = isPoolOwned ? new ForkJoinPool() : pool;
+        maxPendingChunks = this.pool.getParallelism() * 2;
+    }
+
+
+    /**
+     * @return The minimal size of a chunk, in bytes
+     */
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+
+    /**
+     * Sets the minimal size of a chunk. A chunk ends on the first empty line found
+     * after this size.
+     *
+     * @param chunkSize The minimal size of a chunk, in bytes
+     */
+    public void setChunkSize( int chunkSize )
+    {
+        this.chunkSize = chunkSize;
+    }
+
+
+    /**
+     * @return The maximum number of chunks being parsed ahead of the consumer
+     */
+    public int getMaxPendingChunks()
+    {
+        return maxPendingChunks;
+    }
+
+
+    /**
+     * Sets the maximum number of chunks being parsed ahead of the consumer. It
+     * defaults to twice the pool parallelism.
+     *
+     * @param maxPendingChunks The maximum number of chunks being parsed
+     */
+    public void setMaxPendingChunks( int maxPendingChunks )
+    {
+        this.maxPendingChunks = maxPendingChunks;
+    }
+
+
+    /**
+     * @return An iterator returning the entries in the file order
+     */
+    @Override
+    public Iterator<LdifEntry> iterator()
+    {
+        return new ChunkIterator( false );
+    }
+
+
+    /**
+     * @return An iterator returning the entries in the order the chunks are parsed. The
+     * entries of a chunk are returned in the file order.
+     */
+    public Iterator<LdifEntry> unorderedIterator()
+    {
+        return new ChunkIterator( true );
+    }
+
+
+    /**
+     * @return True if an error occurred while reading or parsing the file
+     */
+    public boolean hasError()
+    {
+        return error != null;
+    }
+
+
+    /**
+     * @return The exception that occurred while reading or parsing the file
+     */
+    public LdapException getError()
+    {
+        return error;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if ( isPoolOwned )
+        {
+            pool.shutdownNow();
+        }
+
+        channel.close();
+    }
+
+
+    /**
+     * Find the end of the chunk starting at a given position, which is the position
+     * following the first empty line found after the chunk size, or the end of file.
+     */
+    private long findChunkEnd( long start ) throws IOException
+    {
+        long position = start + chunkSize;
+
+        // The scan may start in the middle of a line
+        boolean atLineStart = false;
+
+        while ( position < fileSize )
+        {
+            int length = ( int ) Math.min( WINDOW_SIZE, fileSize - position );
+            MappedByteBuffer window = channel.map( MapMode.READ_ONLY, position, length );
+
+            for ( int i = 0; i < length; i++ )
+            {
+                byte b = window.get( i );
+
+                if ( b == '\n' )
+                {
+                    if ( atLineStart )
+                    {
+                        // An empty line
+                        return position + i + 1;
+                    }
+
+                    atLineStart = true;
+                }
+                else if ( b != '\r' )
+                {
+                    atLineStart = false;
+                }
+            }
+
+            position += length;
+        }
+
+        return fileSize;
+    }
+
+
+    /**
+     * Count the lines preceding a given position, which is at the start of a line. As
+     * with a BufferedReader, the lines are terminated by a LF, a CR, or a CR LF.
+     */
+    private int countLines( long end ) throws IOException
+    {
+        int nbLines = 0;
+        boolean afterCr = false;
+        long position = 0L;
+
+        while ( position < end )
+        {
+            int length = ( int ) Math.min( WINDOW_SIZE, end - position );
+            MappedByteBuffer window = channel.map( MapMode.READ_ONLY, position, length );
+
+            for ( int i = 0; i < length; i++ )
+            {
+                byte b = window.get( i );
+
+                if ( b == '\r' )
+                {
+                    nbLines++;
+                    afterCr = true;
+                }
+                else
+                {
+                    if ( ( b == '\n' ) && !afterCr )
+                    {
+                        nbLines++;
+                    }
+
+                    afterCr = false;
+                }
+            }
+
+            position += length;
+        }
+
+        return nbLines;
+    }
+
+
+    /**
+     * An iterator over the entries of the parsed chunks, which submits the next
+     * chunks to the pool as the entries are consumed.
+     */
+    private class ChunkIterator implements Iterator<LdifEntry>
+    {
+        /** The chunks being parsed, in the file order */
+        private final Deque<ChunkTask> pendingChunks = new ArrayDeque<>();
+
+        /** The parsed chunks, in the completion order. Null if the entries are read in the file order */
+        private final BlockingQueue<ChunkTask> parsedChunks;
+
+        /** The entries of the chunk being consumed */
+        private Iterator<LdifEntry> entries = Collections.emptyIterator();
+
+        /** Tells if the consumed chunks contain content records */
+        private boolean containsEntries;
+
+        /** Tells if the consumed chunks contain change records */
+        private boolean containsChanges;
+
+
+        private ChunkIterator( boolean isUnordered )
+        {
+            synchronized ( ParallelLdifReader.this )
+            {
+                if ( isIterated )
+                {
+                    throw new IllegalStateException( "The LDIF file has already been iterated" );
+                }
+
+                isIterated = true;
+            }
+
+            parsedChunks = isUnordered ? new LinkedBlockingQueue<ChunkTask>() : null;
+            submitChunks();
+        }
+
+
+        /**
+         * Submit chunks to the pool, until we have enough chunks being parsed
+         */
+        private void submitChunks()
+        {
+            try
+            {
+                while ( ( pendingChunks.size() < maxPendingChunks ) && ( nextChunkStart < fileSize ) )
+                {
+                    long chunkEnd = findChunkEnd( nextChunkStart );
+                    ChunkTask chunk = new ChunkTask( nextChunkStart, chunkEnd, parsedChunks );
+                    nextChunkStart = chunkEnd;
+
+                    pendingChunks.add( chunk );
+                    pool.execute( chunk );
+                }
+            }
+            catch ( IOException ioe )
+            {
+                LOG.error( I18n.err( I18n.ERR_12063_ERROR_WHILE_READING_LDIF_LINE ) );
+                error = new LdapLdifException( I18n.err( I18n.ERR_12063_ERROR_WHILE_READING_LDIF_LINE ), ioe );
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext()
+        {
+            while ( !entries.hasNext() )
+            {
+                if ( ( error != null ) || pendingChunks.isEmpty() )
+                {
+                    return false;
+                }
+
+                ChunkTask chunk;
+
+                if ( parsedChunks == null )
+                {
+                    chunk = pendingChunks.poll();
+                }
+                else
+                {
+                    try
+                    {
+                        chunk = parsedChunks.take();
+                    }
+                    catch ( InterruptedException ie )
+                    {
+                        Thread.currentThread().interrupt();
+                        error = new LdapLdifException( ie.getMessage(), ie );
+
+                        return false;
+                    }
+
+                    pendingChunks.remove( chunk );
+                }
+
+                chunk.join();
+
+                // A LdifReader rejects a file mixing content and change records
+                boolean isMixed = ( containsEntries && chunk.containsChanges )
+                    || ( containsChanges && chunk.containsEntries );
+
+                if ( ( chunk.error != null ) || isMixed )
+                {
+                    error = chunk.parseAgain( containsEntries, containsChanges );
+
+                    return false;
+                }
+
+                containsEntries |= chunk.containsEntries;
+                containsChanges |= chunk.containsChanges;
+                entries = chunk.entries.iterator();
+                submitChunks();
+            }
+
+            return true;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public LdifEntry next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+
+            return entries.next();
+        }
+
+
+        /**
+         * Always throws UnsupportedOperationException!
+         */
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+    /**
+     * The parsing of a chunk
+     */
+    private class ChunkTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        /** The chunk start position in the file */
+        private final long start;
+
+        /** The chunk end position in the file */
+        private final long end;
+
+        /** The queue to which the chunk is added once parsed, if any */
+        private final transient BlockingQueue<ChunkTask> parsedChunks;
+
+        /** The parsed entries */
+        private transient List<LdifEntry> entries;
+
+        /** The exception thrown while parsing the chunk, if any */
+        private LdapException error;
+
+        /** Tells if the chunk contains content records */
+        private boolean containsEntries;
+
+        /** Tells if the chunk contains change records */
+        private boolean containsChanges;
+
+
+        private ChunkTask( long start, long end, BlockingQueue<ChunkTask> parsedChunks )
+        {
+            this.start = start;
+            this.end = end;
+            this.parsedChunks = parsedChunks;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute()
+        {
+            try
+            {
+                LdifReader reader = new LdifReader( schemaManager );
+
+                entries = parse( reader );
+                containsEntries = reader.containsEntries;
+                containsChanges = reader.containsChanges;
+            }
+            catch ( IOException ioe )
+            {
+                error = new LdapLdifException( I18n.err( I18n.ERR_12063_ERROR_WHILE_READING_LDIF_LINE ), ioe );
+            }
+            catch ( LdapException | RuntimeException e )
+            {
+                error = parseError( e );
+            }
+            finally
+            {
+                if ( parsedChunks != null )
+                {
+                    parsedChunks.add( this );
+                }
+            }
+        }
+
+
+        /**
+         * Parses the chunk with the given reader
+         */
+        private List<LdifEntry> parse( LdifReader reader ) throws IOException, LdapException
+        {
+            MappedByteBuffer buffer = channel.map( MapMode.READ_ONLY, start, end - start );
+
+            List<LdifEntry> parsedEntries = reader.parseLdif( buffer );
+
+            // The offsets are relative to the chunk
+            for ( LdifEntry entry : parsedEntries )
+            {
+                entry.setOffset( start + entry.getOffset() );
+            }
+
+            return parsedEntries;
+        }
+
+
+        /**
+         * Parses the chunk again, as a LdifReader which has read the preceding chunks
+         * would do. The chunk is invalid, or its records can't follow the ones of the
+         * preceding chunks.
+         *
+         * @param hasEntries Tells if the preceding chunks contain content records
+         * @param hasChanges Tells if the preceding chunks contain change records
+         * @return The exception thrown by the LdifReader
+         */
+        private LdapException parseAgain( boolean hasEntries, boolean hasChanges )
+        {
+            LdifReader reader = new LdifReader( schemaManager );
+            reader.containsEntries = hasEntries;
+            reader.containsChanges = hasChanges;
+
+            try
+            {
+                // The line numbers are counted from the start of the file
+                reader.lineNumber = countLines( start );
+                parse( reader );
+            }
+            catch ( IOException ioe )
+            {
+                return new LdapLdifException( I18n.err( I18n.ERR_12063_ERROR_WHILE_READING_LDIF_LINE ), ioe );
+            }
+            catch ( LdapException | RuntimeException e )
+            {
+                return parseError( e );
+            }
+
+            // Can't happen, the chunk has already been rejected
+            return error;
+        }
+
+
+        /**
+         * Creates the exception for an error while parsing the chunk
+         */
+        private LdapException parseError( Exception e )
+        {
+            String msg = "Error while parsing the LDIF chunk [" + start + ", " + end + "[ : " + e.getMessage();
+            LOG.error( msg );
+
+            return new LdapLdifException( msg, e );
+        }
+    }
+}
@@ -155,64 +155,70 @@ public abstract class AbstractAnonymizer<K> implements Anonymizer<K>
      */
     protected String computeNewValue( String valStr )
     {
-        int length = valStr.length();
-        String latestString = getLatestStringMap().get( length );
-        char[] charMap;
-        
-        if ( caseSensitive )
-        {
-            charMap = SENSITIVE_MAP;
-        }
-        else
+        // The latest value map may be shared by many anonymizers, running concurrently
+        Map<Integer, String> latestStringMap = getLatestStringMap();
+
+        synchronized ( latestStringMap )
         {
-            charMap = NOT_SENSITIVE_MAP;
-        }
+            int length = valStr.length();
+            String latestString = latestStringMap.get( length );
+            char[] charMap;
+        
+            if ( caseSensitive )
+            {
+                charMap = SENSITIVE_MAP;
+            }
+            else
+            {
+                charMap = NOT_SENSITIVE_MAP;
+            }
         
-        int lastMapChar = charMap.length - 1;
+            int lastMapChar = charMap.length - 1;
 
-        if ( latestString == null )
-        {
-            // No previous value : create a new one
-            char[] newValue = new char[length];
+            if ( latestString == null )
+            {
+                // No previous value : create a new one
+                char[] newValue = new char[length];
             
-            Arrays.fill( newValue, charMap[0] );
+                Arrays.fill( newValue, charMap[0] );
             
-            String anonymizedValue = new String( newValue );
-            getLatestStringMap().put( length, anonymizedValue );
+                String anonymizedValue = new String( newValue );
+                latestStringMap.put( length, anonymizedValue );
             
-            return anonymizedValue;
-        }
-        else
-        {
-            // Compute a new value
-            char[] latest = latestString.toCharArray();
-            boolean overflow = true;
-            
-            for ( int i = length - 1; i >= 0; i-- )
+                return anonymizedValue;
+            }
+            else
             {
-                if ( latest[i] == charMap[lastMapChar] )
+                // Compute a new value
+                char[] latest = latestString.toCharArray();
+                boolean overflow = true;
+            
+                for ( int i = length - 1; i >= 0; i-- )
                 {
-                    latest[i] = charMap[0];
+                    if ( latest[i] == charMap[lastMapChar] )
+                    {
+                        latest[i] = charMap[0];
+                    }
+                    else
+                    {
+                        latest[i] = charMap[CHAR_MAP[latest[i]] + 1];
+                        overflow = false;
+                        break;
+                    }
                 }
-                else
+            
+                String anonymizedValue = new String( latest );
+            
+                if ( overflow )
                 {
-                    latest[i] = charMap[CHAR_MAP[latest[i]] + 1];
-                    overflow = false;
-                    break;
+                    // We have exhausted all the possible values...
+                    throw new RuntimeException( "Cannot compute a new value for " + anonymizedValue );
                 }
-            }
             
-            String anonymizedValue = new String( latest );
+                latestStringMap.put( length, anonymizedValue );
             
-            if ( overflow )
-            {
-                // We have exhausted all the possible values...
-                throw new RuntimeException( "Cannot compute a new value for " + anonymizedValue );
+                return anonymizedValue;
             }
-            
-            getLatestStringMap().put( length, anonymizedValue );
-            
-            return anonymizedValue;
         }
     }
     
@@ -225,46 +231,52 @@ public abstract class AbstractAnonymizer<K> implements Anonymizer<K>
      */
     protected byte[] computeNewValue( byte[] valBytes )
     {
-        int length = valBytes.length;
-        byte[] latestBytes = getLatestBytesMap().get( length );
-        
-        if ( latestBytes == null )
+        // The latest value map may be shared by many anonymizers, running concurrently
+        Map<Integer, byte[]> latestBytesMap = getLatestBytesMap();
+
+        synchronized ( latestBytesMap )
         {
-            // No previous value : create a new one
-            byte[] newValue = new byte[length];
-            
-            Arrays.fill( newValue, ( byte ) 'A' );
+            int length = valBytes.length;
+            byte[] latestBytes = latestBytesMap.get( length );
+        
+            if ( latestBytes == null )
+            {
+                // No previous value : create a new one
+                byte[] newValue = new byte[length];
             
-            getLatestBytesMap().put( length, newValue );
+                Arrays.fill( newValue, ( byte ) 'A' );
             
-            return newValue;
-        }
-        else
-        {
-            // Compute a new value
-            boolean overflow = true;
+                latestBytesMap.put( length, newValue );
             
-            for ( int i = length - 1; i >= 0; i-- )
+                return newValue.clone();
+            }
+            else
             {
-                if ( latestBytes[i] == ( byte ) 'Z' )
+                // Compute a new value
+                boolean overflow = true;
+            
+                for ( int i = length - 1; i >= 0; i-- )
                 {
-                    latestBytes[i] = ( byte ) 'A';
+                    if ( latestBytes[i] == ( byte ) 'Z' )
+                    {
+                        latestBytes[i] = ( byte ) 'A';
+                    }
+                    else
+                    {
+                        latestBytes[i]++;
+                        overflow = false;
+                        break;
+                    }
                 }
-                else
+            
+                if ( overflow )
                 {
-                    latestBytes[i]++;
-                    overflow = false;
-                    break;
+                    // We have exhausted all the possible values...
+                    throw new RuntimeException( "Cannot compute a new value for " + latestBytes );
                 }
-            }
             
-            if ( overflow )
-            {
-                // We have exhausted all the possible values...
-                throw new RuntimeException( "Cannot compute a new value for " + latestBytes );
+                return latestBytes.clone();
             }
-            
-            return latestBytes;
         }
     }
 }
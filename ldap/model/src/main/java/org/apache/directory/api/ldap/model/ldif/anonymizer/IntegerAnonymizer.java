@@ -145,58 +145,61 @@ public class IntegerAnonymizer extends AbstractAnonymizer<String>
      */
     private String computeNewIntegerValue( String valStr )
     {
-        int length = valStr.length();
-        String latestInteger = latestIntegerMap.get( length );
-        
-        if ( latestInteger == null )
+        synchronized ( latestIntegerMap )
         {
-            // No previous value : create a new one
-            char[] newValue = new char[length];
-            
-            Arrays.fill( newValue, '9' );
+            int length = valStr.length();
+            String latestInteger = latestIntegerMap.get( length );
+        
+            if ( latestInteger == null )
+            {
+                // No previous value : create a new one
+                char[] newValue = new char[length];
             
-            String anonymizedValue = new String( newValue );
-            latestIntegerMap.put( length, anonymizedValue );
+                Arrays.fill( newValue, '9' );
             
-            return anonymizedValue;
-        }
-        else
-        {
-            // Compute a new value
-            char[] latest = latestInteger.toCharArray();
-            boolean overflow = true;
+                String anonymizedValue = new String( newValue );
+                latestIntegerMap.put( length, anonymizedValue );
             
-            for ( int i = length - 1; i >= 0; i-- )
+                return anonymizedValue;
+            }
+            else
             {
-                if ( latest[i] == '0' )
+                // Compute a new value
+                char[] latest = latestInteger.toCharArray();
+                boolean overflow = true;
+            
+                for ( int i = length - 1; i >= 0; i-- )
                 {
-                    latest[i] = '9';
+                    if ( latest[i] == '0' )
+                    {
+                        latest[i] = '9';
+                    }
+                    else
+                    {
+                        latest[i]--;
+                        overflow = false;
+                        break;
+                    }
                 }
-                else
+            
+                // Corner case : we can't have a value starting with '0' unless its length is 1
+                if ( ( length > 1 ) && ( latest[0] == '0' ) )
                 {
-                    latest[i]--;
-                    overflow = false;
-                    break;
+                    throw new RuntimeException( "Overflow for " + valStr );
                 }
-            }
-            
-            // Corner case : we can't have a value starting with '0' unless its length is 1
-            if ( ( length > 1 ) && ( latest[0] == '0' ) )
-            {
-                throw new RuntimeException( "Overflow for " + valStr );
-            }
             
-            String anonymizedValue = new String( latest );
+                String anonymizedValue = new String( latest );
             
-            if ( overflow )
-            {
-                // We have exhausted all the possible values...
-                throw new RuntimeException( "Cannot compute a new value for " + anonymizedValue );
-            }
+                if ( overflow )
+                {
+                    // We have exhausted all the possible values...
+                    throw new RuntimeException( "Cannot compute a new value for " + anonymizedValue );
+                }
             
-            latestIntegerMap.put( length, anonymizedValue );
+                latestIntegerMap.put( length, anonymizedValue );
             
-            return anonymizedValue;
+                return anonymizedValue;
+            }
         }
     }
 }
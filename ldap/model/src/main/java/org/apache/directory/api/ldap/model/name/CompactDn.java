@@ -0,0 +1,464 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.name;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * A compact and immutable representation of a normalized Dn, meant to be kept in memory
+ * in large numbers, for instance in indexes. It only stores the UTF-8 bytes of the
+ * normalized name, and the position of each Rdn in these bytes : there is no Rdn nor Ava
+ * instance, nor any String. The Rdns are created from the bytes when requested, and
+ * are not kept.
+ * <br>
+ * The comparisons, the hierarchy checks and the parent are computed on the bytes. They
+ * rely on the normalized form, so a CompactDn should be created from a schema aware Dn :
+ * two Dns which are equal only once their values have been normalized by a SchemaManager
+ * are not equal as CompactDns otherwise.
+ * <br>
+ * The Avas of a multi-valued Rdn are stored sorted by their normalized type and value,
+ * so that the order in which they were given does not matter.
+ * <br>
+ * The user provided form of the Dn is not kept.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class CompactDn implements Comparable<CompactDn>
+{
+    /** Orders the Avas of a multi-valued Rdn on their normalized type, then on their normalized value */
+    private static final Comparator<Ava> AVA_COMPARATOR = new Comparator<Ava>()
+    {
+        @Override
+        public int compare( Ava ava1, Ava ava2 )
+        {
+            int comp = ava1.getNormType().compareTo( ava2.getNormType() );
+
+            if ( comp != 0 )
+            {
+                return comp;
+            }
+
+            return ava1.getNormName().compareTo( ava2.getNormName() );
+        }
+    };
+
+    /** The SchemaManager used to create the Rdns */
+    private final SchemaManager schemaManager;
+
+    /** The UTF-8 bytes of the normalized name */
+    private final byte[] bytes;
+
+    /** The position of each Rdn in the bytes, starting with the leftmost one */
+    private final int[] offsets;
+
+    /** The hash code, computed on demand */
+    private int h;
+
+
+    /**
+     * Creates a new CompactDn from a Dn, using its normalized form.
+     *
+     * @param dn The Dn to store
+     */
+    public CompactDn( Dn dn )
+    {
+        schemaManager = dn.getSchemaManager();
+        offsets = new int[dn.size()];
+
+        byte[][] rdnBytes = new byte[dn.size()][];
+        int length = 0;
+        int pos = 0;
+
+        for ( Rdn rdn : dn.getRdns() )
+        {
+            rdnBytes[pos] = Strings.getBytesUtf8( getNormName( rdn ) );
+            offsets[pos] = length;
+            length += rdnBytes[pos].length + 1;
+            pos++;
+        }
+
+        bytes = new byte[Math.max( 0, length - 1 )];
+
+        for ( int i = 0; i < rdnBytes.length; i++ )
+        {
+            System.arraycopy( rdnBytes[i], 0, bytes, offsets[i], rdnBytes[i].length );
+
+            if ( i < rdnBytes.length - 1 )
+            {
+                bytes[offsets[i + 1] - 1] = ',';
+            }
+        }
+    }
+
+
+    /**
+     * Get the normalized name of a Rdn, with its Avas sorted if it has more than one.
+     */
+    private static String getNormName( Rdn rdn )
+    {
+        if ( rdn.size() < 2 )
+        {
+            return rdn.getNormName();
+        }
+
+        List<Ava> avas = new ArrayList<>( rdn.size() );
+
+        for ( Ava ava : rdn )
+        {
+            avas.add( ava );
+        }
+
+        Collections.sort( avas, AVA_COMPARATOR );
+
+        StringBuilder sb = new StringBuilder();
+
+        for ( Ava ava : avas )
+        {
+            if ( sb.length() > 0 )
+            {
+                sb.append( '+' );
+            }
+
+            sb.append( ava.getNormName() );
+        }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Creates a new CompactDn parsing and normalizing a String.
+     *
+     * @param schemaManager The SchemaManager used to normalize the Dn
+     * @param name The Dn to parse
+     * @throws LdapInvalidDnException If the name is not a valid Dn
+     */
+    public CompactDn( SchemaManager schemaManager, String name ) throws LdapInvalidDnException
+    {
+        this( new Dn( schemaManager, name ) );
+    }
+
+
+    /**
+     * Creates a CompactDn from its internal representation.
+     */
+    private CompactDn( SchemaManager schemaManager, byte[] bytes, int[] offsets )
+    {
+        this.schemaManager = schemaManager;
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+
+    /**
+     * @return The number of Rdns
+     */
+    public int size()
+    {
+        return offsets.length;
+    }
+
+
+    /**
+     * @return <code>true</code> if the Dn has no Rdn
+     */
+    public boolean isEmpty()
+    {
+        return offsets.length == 0;
+    }
+
+
+    /**
+     * @return The SchemaManager used to create the Rdns and the Dn
+     */
+    public SchemaManager getSchemaManager()
+    {
+        return schemaManager;
+    }
+
+
+    /**
+     * @return The normalized name
+     */
+    public String getNormName()
+    {
+        return Strings.utf8ToString( bytes );
+    }
+
+
+    /**
+     * @return A copy of the UTF-8 bytes of the normalized name
+     */
+    public byte[] getBytes()
+    {
+        return bytes.clone();
+    }
+
+
+    /**
+     * @return The number of bytes of the normalized name
+     */
+    public int getNbBytes()
+    {
+        return bytes.length;
+    }
+
+
+    /**
+     * Get the position just after the last byte of a Rdn
+     */
+    private int end( int pos )
+    {
+        return pos < offsets.length - 1 ? offsets[pos + 1] - 1 : bytes.length;
+    }
+
+
+    /**
+     * Creates the Rdn at a given position, the leftmost Rdn being at position 0. A new
+     * instance is created at each call.
+     *
+     * @param pos The Rdn position
+     * @return The Rdn
+     * @throws LdapInvalidDnException If the Rdn can't be created
+     */
+    public Rdn getRdn( int pos ) throws LdapInvalidDnException
+    {
+        if ( ( pos < 0 ) || ( pos >= offsets.length ) )
+        {
+            throw new IllegalArgumentException( "Invalid position : " + pos );
+        }
+
+        return new Rdn( schemaManager, Strings.utf8ToString( bytes, offsets[pos], end( pos ) - offsets[pos] ) );
+    }
+
+
+    /**
+     * Creates the leftmost Rdn. A new instance is created at each call.
+     *
+     * @return The leftmost Rdn, or the empty Rdn if the Dn is empty
+     * @throws LdapInvalidDnException If the Rdn can't be created
+     */
+    public Rdn getRdn() throws LdapInvalidDnException
+    {
+        if ( offsets.length == 0 )
+        {
+            return Rdn.EMPTY_RDN;
+        }
+
+        return getRdn( 0 );
+    }
+
+
+    /**
+     * Creates a Dn from this CompactDn. Its user provided name is the normalized name.
+     *
+     * @return The Dn
+     * @throws LdapInvalidDnException If the Dn can't be created
+     */
+    public Dn toDn() throws LdapInvalidDnException
+    {
+        return new Dn( schemaManager, getNormName() );
+    }
+
+
+    /**
+     * Get the parent of this Dn, which is this Dn without its leftmost Rdn. The
+     * parent of an empty Dn is the empty Dn.
+     *
+     * @return The parent
+     */
+    public CompactDn getParent()
+    {
+        if ( offsets.length == 0 )
+        {
+            return this;
+        }
+
+        if ( offsets.length == 1 )
+        {
+            return new CompactDn( schemaManager, Strings.EMPTY_BYTES, new int[0] );
+        }
+
+        int start = offsets[1];
+        byte[] parentBytes = Arrays.copyOfRange( bytes, start, bytes.length );
+        int[] parentOffsets = new int[offsets.length - 1];
+
+        for ( int i = 0; i < parentOffsets.length; i++ )
+        {
+            parentOffsets[i] = offsets[i + 1] - start;
+        }
+
+        return new CompactDn( schemaManager, parentBytes, parentOffsets );
+    }
+
+
+    /**
+     * Tells if this Dn is a descendant of another one, or equal to it. Any Dn is a
+     * descendant of the empty Dn.
+     *
+     * @param ancestor The Dn which may be an ancestor
+     * @return <code>true</code> if this Dn is a descendant of the given Dn
+     */
+    public boolean isDescendantOf( CompactDn ancestor )
+    {
+        if ( ( ancestor == null ) || ( ancestor.offsets.length == 0 ) )
+        {
+            return true;
+        }
+
+        int nbRdns = offsets.length - ancestor.offsets.length;
+
+        if ( nbRdns < 0 )
+        {
+            return false;
+        }
+
+        int start = offsets[nbRdns];
+
+        if ( bytes.length - start != ancestor.bytes.length )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < ancestor.bytes.length; i++ )
+        {
+            if ( bytes[start + i] != ancestor.bytes[i] )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Tells if this Dn is an ancestor of another one, or equal to it.
+     *
+     * @param descendant The Dn which may be a descendant
+     * @return <code>true</code> if this Dn is an ancestor of the given Dn
+     */
+    public boolean isAncestorOf( CompactDn descendant )
+    {
+        return descendant != null && descendant.isDescendantOf( this );
+    }
+
+
+    /**
+     * Compare two CompactDns, Rdn by Rdn starting from the rightmost one. The Rdns are
+     * compared on their normalized bytes. An ancestor is always lower than its descendants,
+     * and all the descendants of a Dn are ordered before the next Dn at the same level.
+     *
+     * @param that The CompactDn to compare to
+     * @return A negative value if this Dn is lower, 0 if both are equal, a positive value otherwise
+     */
+    @Override
+    public int compareTo( CompactDn that )
+    {
+        int pos = offsets.length - 1;
+        int thatPos = that.offsets.length - 1;
+
+        while ( ( pos >= 0 ) && ( thatPos >= 0 ) )
+        {
+            int start = offsets[pos];
+            int end = end( pos );
+            int thatStart = that.offsets[thatPos];
+            int thatEnd = that.end( thatPos );
+
+            int length = Math.min( end - start, thatEnd - thatStart );
+
+            for ( int i = 0; i < length; i++ )
+            {
+                int b = bytes[start + i] & 0xFF;
+                int thatB = that.bytes[thatStart + i] & 0xFF;
+
+                if ( b != thatB )
+                {
+                    return b - thatB;
+                }
+            }
+
+            if ( end - start != thatEnd - thatStart )
+            {
+                return ( end - start ) - ( thatEnd - thatStart );
+            }
+
+            pos--;
+            thatPos--;
+        }
+
+        return offsets.length - that.offsets.length;
+    }
+
+
+    /**
+     * @see Object#hashCode()
+     */
+    @Override
+    public int hashCode()
+    {
+        if ( h == 0 )
+        {
+            h = Arrays.hashCode( bytes );
+        }
+
+        return h;
+    }
+
+
+    /**
+     * @see Object#equals(Object)
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( !( obj instanceof CompactDn ) )
+        {
+            return false;
+        }
+
+        return Arrays.equals( bytes, ( ( CompactDn ) obj ).bytes );
+    }
+
+
+    /**
+     * @return The normalized name
+     */
+    @Override
+    public String toString()
+    {
+        return getNormName();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.name;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.util.ConcurrentLRUMap;
+
+
+/**
+ * A bounded, concurrent cache of parsed and normalized Dns, keyed by the user provided
+ * String. All the Dns are created using the SchemaManager the cache has been created with,
+ * so an application should use one cache per SchemaManager.
+ * <br>
+ * The cached Dns are shared : they must not be modified, which means no call to
+ * {@link Dn#apply(SchemaManager, boolean)} on a returned Dn. All the other Dn operations
+ * return new instances.
+ * <br>
+ * The Dns are stored in a {@link ConcurrentLRUMap} : the lookups are done without any lock,
+ * and the least recently used Dns are evicted when the cache is full.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DnCache
+{
+    /** The default maximum number of cached Dns */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /** The SchemaManager used to normalize the Dns */
+    private final SchemaManager schemaManager;
+
+    /** The cached Dns, keyed by their user provided name */
+    private final ConcurrentLRUMap<String, Dn> cache;
+
+    /** The number of lookups which found a cached Dn */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** The number of lookups which had to parse the Dn */
+    private final AtomicLong misses = new AtomicLong();
+
+
+    /**
+     * Creates a new DnCache, holding at most {@link #DEFAULT_MAX_SIZE} Dns.
+     *
+     * @param schemaManager The SchemaManager used to normalize the Dns. May be null.
+     */
+    public DnCache( SchemaManager schemaManager )
+    {
+        this( schemaManager, DEFAULT_MAX_SIZE );
+    }
+
+
+    /**
+     * Creates a new DnCache.
+     *
+     * @param schemaManager The SchemaManager used to normalize the Dns. May be null.
+     * @param maxSize The maximum number of cached Dns. A size lower than 1 is changed to 1.
+     */
+    public DnCache( SchemaManager schemaManager, int maxSize )
+    {
+        this.schemaManager = schemaManager;
+        cache = new ConcurrentLRUMap<>( Math.max( maxSize, 1 ) );
+    }
+
+
+    /**
+     * Get the Dn for a String, parsing and normalizing it only if it's not already cached.
+     *
+     * @param name The Dn as a String
+     * @return The parsed and normalized Dn
+     * @throws LdapInvalidDnException If the String is not a valid Dn
+     */
+    public Dn getDn( String name ) throws LdapInvalidDnException
+    {
+        if ( name == null )
+        {
+            return new Dn( schemaManager );
+        }
+
+        Dn dn = cache.get( name );
+
+        if ( dn != null )
+        {
+            hits.incrementAndGet();
+
+            return dn;
+        }
+
+        misses.incrementAndGet();
+        dn = new Dn( schemaManager, name );
+
+        // Don't keep the Dns a relaxed SchemaManager has not been able to parse
+        if ( ( schemaManager == null ) || dn.isSchemaAware() )
+        {
+            cache.put( name, dn );
+        }
+
+        return dn;
+    }
+
+
+    /**
+     * @return The SchemaManager used to normalize the Dns
+     */
+    public SchemaManager getSchemaManager()
+    {
+        return schemaManager;
+    }
+
+
+    /**
+     * @return The number of cached Dns
+     */
+    public int size()
+    {
+        return cache.size();
+    }
+
+
+    /**
+     * @return The number of lookups which found a cached Dn
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+
+    /**
+     * @return The number of lookups which had to parse the Dn
+     */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+
+    /**
+     * @return The ratio of lookups which found a cached Dn, between 0 and 1
+     */
+    public double getHitRatio()
+    {
+        long nbHits = hits.get();
+        long total = nbHits + misses.get();
+
+        if ( total == 0 )
+        {
+            return 0d;
+        }
+
+        return ( double ) nbHits / total;
+    }
+
+
+    /**
+     * Remove all the cached Dns and reset the statistics.
+     */
+    public void clear()
+    {
+        cache.clear();
+        hits.set( 0L );
+        misses.set( 0L );
+    }
+
+
+    /**
+     * @return a String representation of the cache size and statistics
+     */
+    @Override
+    public String toString()
+    {
+        return "DnCache[size=" + size() + ", hits=" + hits.get() + ", misses=" + misses.get() + "]";
+    }
+}
@@ -255,6 +255,13 @@ public final class PrepareString
             case CASE_EXACT:
             case CASE_EXACT_IA5:
             case DIRECTORY_STRING:
+                String normalized = insignifiantSpacesPrintableAscii( str, CASE_SENSITIVE );
+
+                if ( normalized != null )
+                {
+                    return normalized;
+                }
+
                 try
                 {
                     return insignifiantSpacesStringAscii( str, CASE_SENSITIVE );
@@ -267,6 +274,13 @@ public final class PrepareString
             case CASE_IGNORE_IA5:
             case CASE_IGNORE_LIST:
             case CASE_IGNORE:
+                normalized = insignifiantSpacesPrintableAscii( str, IGNORE_CASE );
+
+                if ( normalized != null )
+                {
+                    return normalized;
+                }
+
                 try
                 {
                     return insignifiantSpacesStringAscii( str, IGNORE_CASE );
@@ -5023,6 +5037,84 @@ public final class PrepareString
     }
 
 
+    /**
+     * A fast path for the most common values, made of printable ASCII chars only, with
+     * no escape and no quote. For those values, the map step only lowercases the upper
+     * case letters, nothing is prohibited nor needs to be unescaped : we just have to
+     * remove the leading and trailing spaces, and to replace the inner runs of spaces
+     * with a single space, all in one pass.
+     * 
+     * @param str The String to modify
+     * @param caseSensitive A flag telling if the chars must be lower cased
+     * @return The normalized String, or null if the String is null or contains any other
+     * char and must go through the full preparation
+     */
+    private static String insignifiantSpacesPrintableAscii( String str, boolean caseSensitive )
+    {
+        if ( str == null )
+        {
+            return null;
+        }
+
+        int length = str.length();
+
+        if ( length == 0 )
+        {
+            return "";
+        }
+
+        char[] array = new char[length];
+        int pos = 0;
+        boolean spaceSeen = false;
+        boolean modified = false;
+
+        for ( int i = 0; i < length; i++ )
+        {
+            char c = str.charAt( i );
+
+            if ( c == ' ' )
+            {
+                // Leading spaces are dropped, inner ones are kept only if followed by a char
+                spaceSeen = pos > 0;
+                continue;
+            }
+
+            if ( ( c < 0x21 ) || ( c > 0x7E ) || ( c == '\\' ) || ( c == '"' ) )
+            {
+                return null;
+            }
+
+            if ( spaceSeen )
+            {
+                array[pos++] = ' ';
+                spaceSeen = false;
+            }
+
+            if ( !caseSensitive && ( c >= 'A' ) && ( c <= 'Z' ) )
+            {
+                c |= 0x20;
+                modified = true;
+            }
+
+            array[pos++] = c;
+        }
+
+        if ( pos == 0 )
+        {
+            // we only have spaces, we keep only one
+            return " ";
+        }
+
+        // No space has been dropped and no char lowercased : keep the original String
+        if ( !modified && ( pos == length ) )
+        {
+            return str;
+        }
+
+        return new String( array, 0, pos );
+    }
+
+
     /**
      * Remove all insignificant spaces in a Ascii string. We don't remove escaped spaces.
      * 
@@ -50,6 +50,6 @@ public class CachingDnNormalizer extends CachingNormalizer
     @Override
     public void setSchemaManager( SchemaManager schemaManager )
     {
-        super.normalizer.setSchemaManager( schemaManager );
+        super.setSchemaManager( schemaManager );
     }
 }
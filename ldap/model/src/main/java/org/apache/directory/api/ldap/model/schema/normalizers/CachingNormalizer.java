@@ -20,14 +20,29 @@
 package org.apache.directory.api.ldap.model.schema.normalizers;
 
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.directory.api.ldap.model.entry.StringValue;
 import org.apache.directory.api.ldap.model.entry.Value;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.schema.Normalizer;
 import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.util.ConcurrentLRUMap;
 
 
 /**
  * Caches previously normalized values.
+ * <br>
+ * The cache is a {@link ConcurrentLRUMap} : it is bounded, the lookups take no lock, and
+ * the least recently used values are evicted first.
+ * <br>
+ * Only the human readable values are cached, the binary values are always normalized by
+ * the decorated Normalizer.
+ * <br>
+ * Neither the cached values nor the statistics are serialized : a deserialized
+ * CachingNormalizer starts with an empty cache.
  * 
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -40,6 +55,18 @@ public class CachingNormalizer extends Normalizer
     /** The underlying decorated Normalizer */
     protected final Normalizer normalizer;
 
+    /** The maximum number of cached values */
+    private final int cacheSize;
+
+    /** The normalized values, keyed by the values to normalize */
+    private transient ConcurrentLRUMap<String, String> cache;
+
+    /** The number of lookups which found a cached value */
+    private transient AtomicLong hits;
+
+    /** The number of lookups which had to normalize the value */
+    private transient AtomicLong misses;
+
 
     // ------------------------------------------------------------------------
     // C O N S T R U C T O R S
@@ -62,12 +89,36 @@ public class CachingNormalizer extends Normalizer
      * specified cache size.
      * 
      * @param normalizer the underlying Normalizer being decorated
-     * @param cacheSz the maximum size of the name cache
+     * @param cacheSz the maximum size of the name cache. A size lower than 1 is
+     * changed to 1.
      */
     public CachingNormalizer( Normalizer normalizer, int cacheSz )
     {
         super( normalizer.getOid() );
         this.normalizer = normalizer;
+        cacheSize = Math.max( cacheSz, 1 );
+        createCache();
+    }
+
+
+    /**
+     * Creates the empty cache and resets the statistics.
+     */
+    private void createCache()
+    {
+        cache = new ConcurrentLRUMap<>( cacheSize );
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+    }
+
+
+    /**
+     * Restores the decorated Normalizer, and creates an empty cache.
+     */
+    private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        createCache();
     }
 
 
@@ -106,7 +157,29 @@ public class CachingNormalizer extends Normalizer
             return null;
         }
 
-        return normalizer.normalize( value );
+        if ( !value.isHumanReadable() )
+        {
+            return normalizer.normalize( value );
+        }
+
+        String key = value.getString();
+        String normalized = get( key );
+
+        if ( normalized != null )
+        {
+            // The Values are not immutable, we can't share them
+            return new StringValue( normalized );
+        }
+
+        misses.incrementAndGet();
+        Value<?> normalizedValue = normalizer.normalize( value );
+
+        if ( ( normalizedValue != null ) && normalizedValue.isHumanReadable() )
+        {
+            cache.put( key, normalizedValue.getString() );
+        }
+
+        return normalizedValue;
     }
 
 
@@ -121,12 +194,42 @@ public class CachingNormalizer extends Normalizer
             return null;
         }
 
-        return normalizer.normalize( value );
+        String normalized = get( value );
+
+        if ( normalized == null )
+        {
+            misses.incrementAndGet();
+            normalized = normalizer.normalize( value );
+
+            if ( normalized != null )
+            {
+                cache.put( value, normalized );
+            }
+        }
+
+        return normalized;
     }
 
 
     /**
-     * Sets the SchemaManager
+     * Get a cached normalized value, counting the hit.
+     */
+    private String get( String value )
+    {
+        String normalized = cache.get( value );
+
+        if ( normalized != null )
+        {
+            hits.incrementAndGet();
+        }
+
+        return normalized;
+    }
+
+
+    /**
+     * Sets the SchemaManager. The cached values are dropped, as they may have been
+     * normalized using another SchemaManager.
      * 
      * @param schemaManager The SchemaManager
      */
@@ -134,5 +237,61 @@ public class CachingNormalizer extends Normalizer
     public void setSchemaManager( SchemaManager schemaManager )
     {
         normalizer.setSchemaManager( schemaManager );
+        clearCache();
+    }
+
+
+    /**
+     * @return The number of cached values
+     */
+    public int getCacheSize()
+    {
+        return cache.size();
+    }
+
+
+    /**
+     * @return The number of lookups which found a cached value
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+
+    /**
+     * @return The number of lookups which had to normalize the value
+     */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+
+    /**
+     * @return The ratio of lookups which found a cached value, between 0 and 1
+     */
+    public double getHitRatio()
+    {
+        long nbHits = hits.get();
+        long total = nbHits + misses.get();
+
+        if ( total == 0 )
+        {
+            return 0d;
+        }
+
+        return ( double ) nbHits / total;
+    }
+
+
+    /**
+     * Remove all the cached values and reset the statistics.
+     */
+    public void clearCache()
+    {
+        cache.clear();
+        hits.set( 0L );
+        misses.set( 0L );
     }
 }
@@ -2602,14 +2602,9 @@ public class Registries implements SchemaLoaderListener, Cloneable
             clone.globalOidRegistry.put( syntax );
         }
 
-        // Clone the schema list
-        clone.loadedSchemas = new HashMap<>();
-
-        for ( Map.Entry<String, Set<SchemaObjectWrapper>> entry : schemaObjects.entrySet() )
-        {
-            // We don't clone the schemas
-            clone.loadedSchemas.put( entry.getKey(), loadedSchemas.get( entry.getKey() ) );
-        }
+        // Clone the schema list. We don't clone the schemas, and we keep the unloaded
+        // schemas out of it, as the clone may replace this registries
+        clone.loadedSchemas = new HashMap<>( loadedSchemas );
 
         // Clone the Using and usedBy structures
         // They will be empty
@@ -33,6 +33,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -2526,4 +2527,85 @@ public class LdifReaderTest
         assertEquals( ldif, entry.toString() );
         reader.close();
     }
+
+
+    /**
+     * Test that the byte level parser returns the same entries than the String
+     * based one, for content and change records
+     */
+    @Test
+    public void testParseLdifBytes() throws Exception
+    {
+        String ldif =
+            "version: 1\n" +
+                "# A comment\n" +
+                " still a comment\n" +
+                "\n" +
+                "dn: cn=app1,ou=applications,\n" +
+                " ou=conf,dc=apache,dc=org\n" +
+                "cn: app1\n" +
+                "objectClass: top\n" +
+                "ObjectClass: apApplication\n" +
+                "displayName:   app1\n" +
+                "description: J\u00e9r\u00f4me\n" +
+                "jpegPhoto:: /9j/4AAQSkZJRgABAQEASABIAAD/2wBDABALDA4MChAODQ4SERATGC\n" +
+                " gZGBYWGDEjJR0oOjM9PDkzODdASFxOQERXRTc4UG1RV19iZ2hnPk1xeXBkeFxlZ2P/2wBDARESEhgVGC\n" +
+                "dependencies:\n" +
+                "\r\n" +
+                "\r\n" +
+                "dn: cn=app2,dc=apache,dc=org\r\n" +
+                "cn: app2\r\n";
+
+        String changes =
+            "dn: cn=app2,dc=apache,dc=org\r\n" +
+                "changetype: modify\r\n" +
+                "add: cn\r\n" +
+                "cn: app2\r\n" +
+                "-\r\n";
+
+        List<LdifEntry> expected = new LdifReader().parseLdif( ldif );
+        expected.addAll( new LdifReader().parseLdif( changes ) );
+
+        LdifReader reader = new LdifReader();
+        List<LdifEntry> entries = reader.parseLdif( ByteBuffer.wrap( Strings.getBytesUtf8( ldif ) ) );
+        reader.close();
+
+        assertEquals( 1, reader.getVersion() );
+
+        reader = new LdifReader();
+        entries.addAll( reader.parseLdif( ByteBuffer.wrap( Strings.getBytesUtf8( changes ) ) ) );
+        reader.close();
+
+        assertEquals( expected, entries );
+
+        LdifEntry entry = entries.get( 0 );
+        assertTrue( entry.isLdifContent() );
+        assertEquals( "cn=app1,ou=applications,ou=conf,dc=apache,dc=org", entry.getDn().getName() );
+        assertTrue( entry.get( "displayname" ).contains( "app1" ) );
+        assertTrue( entry.get( "description" ).contains( "J\u00e9r\u00f4me" ) );
+        assertEquals( 2, entry.get( "objectclass" ).size() );
+        assertEquals( 0, entry.getOffset() );
+
+        assertTrue( entries.get( 2 ).isLdifChange() );
+        assertEquals( ChangeType.Modify, entries.get( 2 ).getChangeType() );
+    }
+
+
+    /**
+     * Test that the byte level parser rejects a record without Dn
+     */
+    @Test(expected = LdapLdifException.class)
+    public void testParseLdifBytesNoDn() throws Exception
+    {
+        String ldif =
+            "dn: cn=app1,dc=apache,dc=org\n" +
+                "cn: app1\n" +
+                "\n" +
+                "cn: app2\n";
+
+        try ( LdifReader reader = new LdifReader() )
+        {
+            reader.parseLdif( ByteBuffer.wrap( Strings.getBytesUtf8( ldif ) ) );
+        }
+    }
 }
@@ -0,0 +1,175 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.ldif;
+
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.ModificationOperation;
+import org.apache.directory.api.ldap.model.message.controls.ManageDsaITImpl;
+import org.apache.directory.api.util.Strings;
+import org.junit.Test;
+
+
+/**
+ * Test the LdifWriter class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifWriterTest
+{
+    /**
+     * Test that an entry is written the same way LdifUtils converts it
+     */
+    @Test
+    public void testWriteEntry() throws Exception
+    {
+        Entry entry = new DefaultEntry(
+            "cn=test,ou=system",
+            "objectClass: top",
+            "objectClass: person",
+            "cn: test",
+            "sn: Jérôme",
+            "userPassword", Strings.getBytesUtf8( "secret" ) );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try ( LdifWriter writer = new LdifWriter( out ) )
+        {
+            writer.write( entry );
+        }
+
+        assertEquals( LdifUtils.convertToLdif( entry ), Strings.utf8ToString( out.toByteArray() ) );
+    }
+
+
+    /**
+     * Test that long lines and long base64 values are folded, and read back
+     */
+    @Test
+    public void testWriteFoldedLines() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            sb.append( "abcdefghij" );
+        }
+
+        byte[] bytes = new byte[1000];
+
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            bytes[i] = ( byte ) i;
+        }
+
+        Entry entry = new DefaultEntry(
+            "cn=test,ou=system",
+            "objectClass: top",
+            "description", sb.toString(),
+            "cn", "test",
+            "jpegPhoto", bytes );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try ( LdifWriter writer = new LdifWriter( out, 40 ) )
+        {
+            writer.writeVersion();
+            writer.write( entry );
+        }
+
+        String ldif = Strings.utf8ToString( out.toByteArray() );
+
+        for ( String line : ldif.split( "\n" ) )
+        {
+            assertEquals( true, line.length() <= 40 );
+        }
+
+        try ( LdifReader reader = new LdifReader() )
+        {
+            List<LdifEntry> entries = reader.parseLdif( ldif );
+
+            assertEquals( 1, entries.size() );
+            assertEquals( entry, entries.get( 0 ).getEntry() );
+        }
+    }
+
+
+    /**
+     * Test that change records and their controls are written and read back
+     */
+    @Test
+    public void testWriteChanges() throws Exception
+    {
+        LdifEntry add = new LdifEntry( "cn=test,ou=system", "changetype: add", "objectClass: top", "cn: test" );
+
+        LdifEntry delete = new LdifEntry( "cn=test,ou=system", "changetype: delete" );
+        delete.addControl( new ManageDsaITImpl() );
+
+        LdifEntry modify = new LdifEntry( "cn=test,ou=system", "changetype: modify" );
+        modify.addModification( ModificationOperation.ADD_ATTRIBUTE,
+            new DefaultAttribute( "description", "a description" ) );
+        modify.addModification( ModificationOperation.REMOVE_ATTRIBUTE, "sn" );
+        modify.addModification( ModificationOperation.REPLACE_ATTRIBUTE, new DefaultAttribute( "cn", "test2" ) );
+
+        LdifEntry modDn = new LdifEntry( "cn=test,ou=system",
+            "changetype: moddn",
+            "newrdn: cn=test2",
+            "deleteoldrdn: 1",
+            "newsuperior: ou=people,ou=system" );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try ( LdifWriter writer = new LdifWriter( out ) )
+        {
+            writer.write( add );
+            writer.write( delete );
+            writer.write( modify );
+            writer.write( modDn );
+        }
+
+        try ( LdifReader reader = new LdifReader() )
+        {
+            List<LdifEntry> entries = reader.parseLdif( Strings.utf8ToString( out.toByteArray() ) );
+
+            assertEquals( 4, entries.size() );
+            assertEquals( add, entries.get( 0 ) );
+            assertEquals( delete, entries.get( 1 ) );
+            assertEquals( modify, entries.get( 2 ) );
+            assertEquals( modDn, entries.get( 3 ) );
+        }
+    }
+
+
+    /**
+     * Test that a line length too small to fold lines is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLineLength()
+    {
+        new LdifWriter( new ByteArrayOutputStream(), 1 );
+    }
+}
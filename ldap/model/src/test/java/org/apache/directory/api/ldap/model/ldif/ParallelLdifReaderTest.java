@@ -0,0 +1,288 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.ldif;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+
+/**
+ * Test the ParallelLdifReader class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ParallelLdifReaderTest
+{
+    /** The number of entries in the test file */
+    private static final int NB_ENTRIES = 1000;
+
+    private static File ldifFile;
+
+
+    @BeforeClass
+    public static void createLdifFile() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "version: 1\n\n" );
+
+        for ( int i = 0; i < NB_ENTRIES; i++ )
+        {
+            sb.append( "# Entry " ).append( i ).append( '\n' );
+            sb.append( "dn: cn=user" ).append( i ).append( ",\n ou=people,dc=example,dc=com\n" );
+            sb.append( "objectClass: top\n" );
+            sb.append( "objectClass: person\n" );
+            sb.append( "cn: user" ).append( i ).append( '\n' );
+            sb.append( "sn: J\u00e9r\u00f4me\n" );
+            sb.append( "description: a folded\n  description\n" );
+
+            // Mix the line separators
+            sb.append( ( i % 3 == 0 ) ? "\r\n\n" : "\n" );
+        }
+
+        ldifFile = File.createTempFile( "parallel", ".ldif" );
+        Files.write( ldifFile.toPath(), sb.toString().getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+
+    @AfterClass
+    public static void deleteLdifFile()
+    {
+        ldifFile.delete();
+    }
+
+
+    /**
+     * Test that the entries are read in the file order, whatever the chunk size
+     */
+    @Test
+    public void testOrderedIteration() throws Exception
+    {
+        for ( int chunkSize : new int[]
+            { 1, 100, 4096, ParallelLdifReader.DEFAULT_CHUNK_SIZE } )
+        {
+            try ( ParallelLdifReader reader = new ParallelLdifReader( ldifFile ) )
+            {
+                reader.setChunkSize( chunkSize );
+                int i = 0;
+
+                for ( LdifEntry ldifEntry : reader )
+                {
+                    assertTrue( ldifEntry.isLdifContent() );
+                    assertEquals( "cn=user" + i + ",ou=people,dc=example,dc=com", ldifEntry.getDn().getName() );
+
+                    Entry entry = ldifEntry.getEntry();
+                    assertEquals( "J\u00e9r\u00f4me", entry.get( "sn" ).getString() );
+                    assertEquals( "a folded description", entry.get( "description" ).getString() );
+                    i++;
+                }
+
+                assertFalse( reader.hasError() );
+                assertEquals( NB_ENTRIES, i );
+            }
+        }
+    }
+
+
+    /**
+     * Test that all the entries are read by the unordered iterator
+     */
+    @Test
+    public void testUnorderedIteration() throws Exception
+    {
+        try ( ParallelLdifReader reader = new ParallelLdifReader( ldifFile ) )
+        {
+            reader.setChunkSize( 1024 );
+            Set<String> dns = new HashSet<>();
+            Iterator<LdifEntry> entries = reader.unorderedIterator();
+
+            while ( entries.hasNext() )
+            {
+                dns.add( entries.next().getDn().getName() );
+            }
+
+            assertFalse( reader.hasError() );
+            assertEquals( NB_ENTRIES, dns.size() );
+        }
+    }
+
+
+    /**
+     * Test that the entries are the ones read by the LdifReader
+     */
+    @Test
+    public void testSameEntriesAsLdifReader() throws Exception
+    {
+        List<LdifEntry> expected = new LdifReader().parseLdifFile( ldifFile.getPath(), "UTF-8" );
+
+        List<LdifEntry> entries = new ArrayList<>();
+
+        try ( ParallelLdifReader reader = new ParallelLdifReader( ldifFile ) )
+        {
+            reader.setChunkSize( 512 );
+
+            for ( LdifEntry entry : reader )
+            {
+                entries.add( entry );
+            }
+        }
+
+        assertEquals( expected, entries );
+    }
+
+
+    /**
+     * Test that a parsing error stops the iteration
+     */
+    @Test
+    public void testError() throws Exception
+    {
+        File file = File.createTempFile( "parallel", ".ldif" );
+
+        try
+        {
+            Files.write( file.toPath(), "dn: cn=a,dc=com\ncn: a\n\ncn: missing dn\n\n".getBytes( StandardCharsets.UTF_8 ) );
+
+            try ( ParallelLdifReader reader = new ParallelLdifReader( file ) )
+            {
+                reader.setChunkSize( 1 );
+                Iterator<LdifEntry> entries = reader.iterator();
+
+                assertTrue( entries.hasNext() );
+                assertEquals( "cn=a,dc=com", entries.next().getDn().getName() );
+                assertFalse( entries.hasNext() );
+                assertTrue( reader.hasError() );
+                assertNotNull( reader.getError() );
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+
+    /**
+     * Read the given LDIF with small chunks, and check that the iteration stops with
+     * the error a LdifReader reports
+     */
+    private LdapException assertLdifReaderError( String ldif, int nbEntries ) throws Exception
+    {
+        byte[] bytes = ldif.getBytes( StandardCharsets.UTF_8 );
+        LdapException expected = null;
+
+        try
+        {
+            new LdifReader().parseLdif( ByteBuffer.wrap( bytes ) );
+            fail();
+        }
+        catch ( LdapException le )
+        {
+            expected = le;
+        }
+
+        File file = File.createTempFile( "parallel", ".ldif" );
+
+        try
+        {
+            Files.write( file.toPath(), bytes );
+
+            try ( ParallelLdifReader reader = new ParallelLdifReader( file ) )
+            {
+                reader.setChunkSize( 1 );
+                int i = 0;
+
+                for ( Iterator<LdifEntry> entries = reader.iterator(); entries.hasNext(); entries.next() )
+                {
+                    i++;
+                }
+
+                assertEquals( nbEntries, i );
+                assertTrue( reader.hasError() );
+                assertEquals( expected.getMessage(), reader.getError().getCause().getMessage() );
+
+                return reader.getError();
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+
+    /**
+     * Test that a file mixing content and change records in different chunks is rejected
+     */
+    @Test
+    public void testMixedRecords() throws Exception
+    {
+        assertLdifReaderError( "dn: cn=a,dc=com\ncn: a\n\n"
+            + "dn: cn=b,dc=com\ncn: b\n\n"
+            + "dn: cn=a,dc=com\nchangetype: delete\n\n", 2 );
+
+        assertLdifReaderError( "dn: cn=a,dc=com\nchangetype: delete\n\n"
+            + "dn: cn=b,dc=com\ncn: b\n\n", 1 );
+    }
+
+
+    /**
+     * Test that the line numbers of the errors are counted from the start of the file
+     */
+    @Test
+    public void testErrorLineNumber() throws Exception
+    {
+        StringBuilder sb = new StringBuilder( "version: 1\n\n" );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            sb.append( "# Entry " ).append( i ).append( "\r\n" );
+            sb.append( "dn: cn=user" ).append( i ).append( ",\n dc=com\r" );
+            sb.append( "cn: user" ).append( i ).append( "\n\n" );
+        }
+
+        sb.append( "dn: cn=invalid,,dc=com\ncn: invalid\n\n" );
+
+        // The invalid Dn is on the 53rd line
+        LdapException error = assertLdifReaderError( sb.toString(), 10 );
+
+        assertTrue( error.getMessage().endsWith( "at line 53" ) );
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.name;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Test the CompactDn class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class CompactDnTest
+{
+    /**
+     * Test the creation of a CompactDn, and the Rdns and Dn created from it
+     */
+    @Test
+    public void testCreate() throws Exception
+    {
+        Dn dn = new Dn( "CN=John Doe, ou=people, dc=example,dc=com" );
+        CompactDn compactDn = new CompactDn( dn );
+
+        assertEquals( 4, compactDn.size() );
+        assertFalse( compactDn.isEmpty() );
+        assertEquals( dn.getNormName(), compactDn.getNormName() );
+        assertEquals( dn.getNormName(), compactDn.toString() );
+        assertEquals( dn.getNormName().length(), compactDn.getNbBytes() );
+        assertEquals( dn.getRdn(), compactDn.getRdn() );
+        assertEquals( dn.getRdn( 2 ), compactDn.getRdn( 2 ) );
+        assertEquals( dn, compactDn.toDn() );
+
+        CompactDn empty = new CompactDn( Dn.EMPTY_DN );
+
+        assertEquals( 0, empty.size() );
+        assertTrue( empty.isEmpty() );
+        assertEquals( "", empty.getNormName() );
+        assertEquals( Rdn.EMPTY_RDN, empty.getRdn() );
+    }
+
+
+    /**
+     * Test the parent and the hierarchy checks
+     */
+    @Test
+    public void testHierarchy() throws Exception
+    {
+        CompactDn dn = new CompactDn( null, "cn=test,ou=people,dc=example,dc=com" );
+        CompactDn parent = dn.getParent();
+
+        assertEquals( new CompactDn( null, "ou=people,dc=example,dc=com" ), parent );
+        assertEquals( 3, parent.size() );
+        assertEquals( new Rdn( "ou=people" ), parent.getRdn() );
+        assertEquals( new CompactDn( null, "dc=com" ), parent.getParent().getParent() );
+        assertTrue( parent.getParent().getParent().getParent().isEmpty() );
+
+        assertTrue( dn.isDescendantOf( parent ) );
+        assertTrue( dn.isDescendantOf( dn ) );
+        assertTrue( dn.isDescendantOf( new CompactDn( Dn.EMPTY_DN ) ) );
+        assertTrue( parent.isAncestorOf( dn ) );
+        assertFalse( parent.isDescendantOf( dn ) );
+        assertFalse( dn.isDescendantOf( new CompactDn( null, "ou=groups,dc=example,dc=com" ) ) );
+        assertFalse( dn.isDescendantOf( new CompactDn( null, "c=example,dc=com" ) ) );
+    }
+
+
+    /**
+     * Test equals, hashCode and compareTo
+     */
+    @Test
+    public void testCompare() throws Exception
+    {
+        CompactDn dn1 = new CompactDn( null, "ou=people,dc=example,dc=com" );
+        CompactDn dn2 = new CompactDn( null, "OU = people , dc=example, dc=com" );
+
+        assertEquals( dn1, dn2 );
+        assertEquals( dn1.hashCode(), dn2.hashCode() );
+        assertEquals( 0, dn1.compareTo( dn2 ) );
+        assertNotEquals( dn1, new CompactDn( null, "ou=groups,dc=example,dc=com" ) );
+
+        List<CompactDn> dns = new ArrayList<>();
+        dns.add( new CompactDn( null, "ou=people,dc=example,dc=org" ) );
+        dns.add( new CompactDn( null, "cn=b,ou=people,dc=example,dc=com" ) );
+        dns.add( new CompactDn( null, "ou=people,dc=example,dc=com" ) );
+        dns.add( new CompactDn( null, "ou=groups,dc=example,dc=com" ) );
+        dns.add( new CompactDn( null, "cn=a,ou=people,dc=example,dc=com" ) );
+        dns.add( new CompactDn( null, "dc=example,dc=com" ) );
+
+        Collections.sort( dns );
+
+        assertEquals( "dc=example,dc=com", dns.get( 0 ).getNormName() );
+        assertEquals( "ou=groups,dc=example,dc=com", dns.get( 1 ).getNormName() );
+        assertEquals( "ou=people,dc=example,dc=com", dns.get( 2 ).getNormName() );
+        assertEquals( "cn=a,ou=people,dc=example,dc=com", dns.get( 3 ).getNormName() );
+        assertEquals( "cn=b,ou=people,dc=example,dc=com", dns.get( 4 ).getNormName() );
+        assertEquals( "ou=people,dc=example,dc=org", dns.get( 5 ).getNormName() );
+    }
+
+
+    /**
+     * Test that the order of the Avas of a multi-valued Rdn does not matter, as for a Dn
+     */
+    @Test
+    public void testMultiValuedRdn() throws Exception
+    {
+        Dn dn1 = new Dn( "cn=John+sn=Doe+ou=people,dc=example,dc=com" );
+        Dn dn2 = new Dn( "SN=Doe + ou=people + cn=John,dc=example,dc=com" );
+        Dn child = new Dn( "uid=jdoe,ou=people+cn=John+sn=Doe,dc=example,dc=com" );
+
+        assertEquals( dn1, dn2 );
+        assertTrue( child.isDescendantOf( dn1 ) );
+
+        CompactDn compactDn1 = new CompactDn( dn1 );
+        CompactDn compactDn2 = new CompactDn( dn2 );
+        CompactDn compactChild = new CompactDn( child );
+
+        assertEquals( compactDn1, compactDn2 );
+        assertEquals( compactDn1.hashCode(), compactDn2.hashCode() );
+        assertEquals( 0, compactDn1.compareTo( compactDn2 ) );
+        assertEquals( "cn=John+ou=people+sn=Doe,dc=example,dc=com", compactDn2.getNormName() );
+        assertEquals( dn2.getRdn(), compactDn2.getRdn() );
+        assertEquals( dn1, compactDn2.toDn() );
+
+        assertTrue( compactChild.isDescendantOf( compactDn1 ) );
+        assertTrue( compactChild.isDescendantOf( compactDn2 ) );
+        assertTrue( compactDn2.isAncestorOf( compactChild ) );
+        assertEquals( compactDn1, compactChild.getParent() );
+
+        assertNotEquals( compactDn1, new CompactDn( null, "cn=John+sn=Doe,dc=example,dc=com" ) );
+    }
+}
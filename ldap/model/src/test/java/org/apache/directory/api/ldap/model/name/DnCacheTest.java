@@ -0,0 +1,131 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.name;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.junit.Test;
+
+
+/**
+ * Test the DnCache class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DnCacheTest
+{
+    /**
+     * Test that a cached Dn is returned for the same String
+     */
+    @Test
+    public void testGetDn() throws Exception
+    {
+        DnCache cache = new DnCache( null );
+
+        Dn dn = cache.getDn( "ou=People, dc=example,dc=com" );
+
+        assertEquals( new Dn( "ou=People, dc=example,dc=com" ), dn );
+        assertEquals( "ou=People, dc=example,dc=com", dn.getName() );
+        assertSame( dn, cache.getDn( "ou=People, dc=example,dc=com" ) );
+        assertNotSame( dn, cache.getDn( "ou=People,dc=example,dc=com" ) );
+
+        assertEquals( 2, cache.size() );
+        assertEquals( 1, cache.getHitCount() );
+        assertEquals( 2, cache.getMissCount() );
+        assertEquals( 1d / 3, cache.getHitRatio(), 0.0001d );
+
+        cache.clear();
+
+        assertEquals( 0, cache.size() );
+        assertEquals( 0, cache.getHitCount() );
+        assertEquals( 0, cache.getMissCount() );
+    }
+
+
+    /**
+     * Test that the cache is bounded, and keeps the Dns used recently
+     */
+    @Test
+    public void testBounded() throws Exception
+    {
+        DnCache cache = new DnCache( null, 100 );
+        Dn base = cache.getDn( "dc=example,dc=com" );
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            cache.getDn( "cn=user" + i + ",dc=example,dc=com" );
+            assertSame( base, cache.getDn( "dc=example,dc=com" ) );
+            assertTrue( cache.size() <= 100 );
+        }
+
+        assertEquals( 1001, cache.getMissCount() );
+        assertEquals( 1000, cache.getHitCount() );
+    }
+
+
+    /**
+     * Test that a cache size lower than 1 is changed to 1
+     */
+    @Test
+    public void testInvalidSize() throws Exception
+    {
+        DnCache cache = new DnCache( null, 0 );
+        Dn dn = cache.getDn( "dc=com" );
+
+        assertSame( dn, cache.getDn( "dc=com" ) );
+
+        cache.getDn( "dc=org" );
+
+        assertEquals( 1, cache.size() );
+        assertEquals( 1, cache.getHitCount() );
+    }
+
+
+    /**
+     * Test that an invalid Dn is rejected each time, and not cached
+     */
+    @Test
+    public void testInvalidDn() throws Exception
+    {
+        DnCache cache = new DnCache( null );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            try
+            {
+                cache.getDn( "this is not a dn" );
+                fail();
+            }
+            catch ( LdapInvalidDnException lide )
+            {
+                // Expected
+            }
+        }
+
+        assertEquals( 0, cache.size() );
+        assertEquals( 2, cache.getMissCount() );
+    }
+}
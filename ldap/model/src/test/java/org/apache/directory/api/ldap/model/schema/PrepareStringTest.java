@@ -40,4 +40,32 @@ public class PrepareStringTest
         String result = PrepareString.normalize( "C:\\a\\b\\c", PrepareString.StringType.DIRECTORY_STRING );
         System.out.println( result );
     }
+
+
+    @Test
+    public void testNormalizePrintableAscii() throws IOException
+    {
+        assertEquals( "a b c", PrepareString.normalize( "  a   b c  ", PrepareString.StringType.DIRECTORY_STRING ) );
+        assertEquals( "A b C", PrepareString.normalize( "A b C", PrepareString.StringType.CASE_EXACT ) );
+        assertEquals( "a b c", PrepareString.normalize( " A  B C ", PrepareString.StringType.CASE_IGNORE ) );
+        assertEquals( " ", PrepareString.normalize( "   ", PrepareString.StringType.CASE_IGNORE ) );
+        assertEquals( "", PrepareString.normalize( "", PrepareString.StringType.CASE_EXACT ) );
+    }
+
+
+    @Test
+    public void testNormalizePrintableAsciiUnchanged() throws IOException
+    {
+        String value = "abc def-123";
+
+        assertSame( value, PrepareString.normalize( value, PrepareString.StringType.CASE_EXACT ) );
+        assertSame( value, PrepareString.normalize( value, PrepareString.StringType.CASE_IGNORE ) );
+    }
+
+
+    @Test
+    public void testNormalizeNonPrintableAscii() throws IOException
+    {
+        assertEquals( "\u00e9t\u00e9", PrepareString.normalize( " \u00c9t\u00c9 ", PrepareString.StringType.CASE_IGNORE ) );
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.schema.normalizers;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.directory.api.ldap.model.entry.StringValue;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.junit.Test;
+
+
+/**
+ * Test the CachingNormalizer class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class CachingNormalizerTest
+{
+    @Test
+    public void testCachingNormalizerNull() throws LdapException
+    {
+        CachingNormalizer normalizer = new CachingDeepTrimToLowerNormalizer();
+
+        assertNull( normalizer.normalize( ( String ) null ) );
+        assertNull( normalizer.normalize( ( Value<?> ) null ) );
+        assertEquals( 0, normalizer.getCacheSize() );
+    }
+
+
+    @Test
+    public void testCachingNormalizerHits() throws LdapException
+    {
+        CachingNormalizer normalizer = new CachingDeepTrimToLowerNormalizer();
+
+        assertEquals( "a b c", normalizer.normalize( "  A  B   C " ) );
+        assertEquals( "a b c", normalizer.normalize( "  A  B   C " ) );
+        assertEquals( 1, normalizer.getHitCount() );
+        assertEquals( 1, normalizer.getMissCount() );
+
+        Value<?> value = new StringValue( "  A  B   C " );
+        Value<?> normalized = normalizer.normalize( value );
+
+        assertEquals( "a b c", normalized.getString() );
+        assertEquals( 2, normalizer.getHitCount() );
+
+        // The cached Values are never shared
+        assertNotSame( normalized, normalizer.normalize( value ) );
+        assertEquals( 0.75d, normalizer.getHitRatio(), 0d );
+
+        normalizer.clearCache();
+
+        assertEquals( 0, normalizer.getCacheSize() );
+        assertEquals( 0d, normalizer.getHitRatio(), 0d );
+    }
+
+
+    @Test
+    public void testCachingNormalizerBounded() throws LdapException
+    {
+        CachingNormalizer normalizer = new CachingNormalizer( new DeepTrimToLowerNormalizer(), 10 );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertEquals( "value" + i, normalizer.normalize( " Value" + i ) );
+        }
+
+        assertTrue( normalizer.getCacheSize() <= 10 );
+
+        // The last values are still cached
+        normalizer.normalize( " Value99" );
+        assertEquals( 1, normalizer.getHitCount() );
+    }
+
+
+    @Test
+    public void testCachingNormalizerInvalidSize() throws LdapException
+    {
+        CachingNormalizer normalizer = new CachingNormalizer( new DeepTrimToLowerNormalizer(), 0 );
+
+        assertEquals( "a", normalizer.normalize( " A" ) );
+        assertEquals( "b", normalizer.normalize( " B" ) );
+        assertEquals( "b", normalizer.normalize( " B" ) );
+        assertEquals( 1, normalizer.getCacheSize() );
+        assertEquals( 1, normalizer.getHitCount() );
+    }
+
+
+    @Test
+    public void testCachingNormalizerSerialization() throws Exception
+    {
+        CachingNormalizer normalizer = new CachingDnNormalizer();
+
+        assertEquals( "ou=people,dc=example,dc=com", normalizer.normalize( "ou=people, dc=example, dc=com" ) );
+        assertEquals( 1, normalizer.getCacheSize() );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try ( ObjectOutputStream out = new ObjectOutputStream( baos ) )
+        {
+            out.writeObject( normalizer );
+        }
+
+        CachingNormalizer deserialized;
+
+        try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) ) )
+        {
+            deserialized = ( CachingNormalizer ) in.readObject();
+        }
+
+        // The cache and the statistics are not serialized
+        assertEquals( normalizer.getOid(), deserialized.getOid() );
+        assertEquals( 0, deserialized.getCacheSize() );
+        assertEquals( 0, deserialized.getMissCount() );
+
+        assertEquals( "ou=people,dc=example,dc=com", deserialized.normalize( "ou=people, dc=example, dc=com" ) );
+        assertEquals( "ou=people,dc=example,dc=com", deserialized.normalize( "ou=people, dc=example, dc=com" ) );
+        assertEquals( 1, deserialized.getCacheSize() );
+        assertEquals( 1, deserialized.getHitCount() );
+    }
+}
@@ -59,6 +59,9 @@ public class LdapProtocolDecoder implements ProtocolDecoder
     /** The ASN 1 decoder instance */
     private Asn1Decoder asn1Decoder;
 
+    /** The ASN 1 decoder instance used for the sessions asking for the value slicing */
+    private Asn1Decoder slicingAsn1Decoder;
+
 
     /**
      * Creates a new instance of LdapProtocolEncoder.
@@ -66,6 +69,8 @@ public class LdapProtocolDecoder implements ProtocolDecoder
     public LdapProtocolDecoder()
     {
         asn1Decoder = new Asn1Decoder();
+        slicingAsn1Decoder = new Asn1Decoder();
+        slicingAsn1Decoder.setValueSlicing( true );
     }
 
 
@@ -87,10 +92,18 @@ public class LdapProtocolDecoder implements ProtocolDecoder
             messageContainer.setMaxPDUSize( maxPDUSize );
         }
 
+        // The sessions asking for it get their values sliced from the received buffer
+        Asn1Decoder decoder = asn1Decoder;
+
+        if ( Boolean.TRUE.equals( session.getAttribute( LdapDecoder.VALUE_SLICING_ATTR ) ) )
+        {
+            decoder = slicingAsn1Decoder;
+        }
+
         List<Message> decodedMessages = new ArrayList<>();
         ByteBuffer buf = in.buf();
 
-        decode( buf, messageContainer, decodedMessages );
+        decode( decoder, buf, messageContainer, decodedMessages );
 
         for ( Message message : decodedMessages )
         {
@@ -103,6 +116,7 @@ public class LdapProtocolDecoder implements ProtocolDecoder
      * Decode an incoming buffer into LDAP messages. The result can be 0, 1 or many
      * LDAP messages, which will be stored into the array the caller has created.
      * 
+     * @param decoder The ASN 1 decoder to use
      * @param buffer The incoming byte buffer
      * @param messageContainer The LdapMessageContainer which will be used to store the
      * message being decoded. If the message is not fully decoded, the ucrrent state
@@ -110,8 +124,9 @@ public class LdapProtocolDecoder implements ProtocolDecoder
      * @param decodedMessages The list of decoded messages
      * @throws Exception If the decoding failed
      */
-    private void decode( ByteBuffer buffer, LdapMessageContainer<MessageDecorator<? extends Message>> messageContainer,
-        List<Message> decodedMessages ) throws DecoderException
+    private void decode( Asn1Decoder decoder, ByteBuffer buffer,
+        LdapMessageContainer<MessageDecorator<? extends Message>> messageContainer, List<Message> decodedMessages )
+        throws DecoderException
     {
         buffer.mark();
 
@@ -141,7 +156,7 @@ public class LdapProtocolDecoder implements ProtocolDecoder
                     }
                 }
 
-                asn1Decoder.decode( buffer, messageContainer );
+                decoder.decode( buffer, messageContainer );
 
                 if ( messageContainer.getState() == TLVStateEnum.PDU_DECODED )
                 {
@@ -20,12 +20,10 @@
 package org.apache.directory.api.ldap.codec.protocol.mina;
 
 
-import java.nio.ByteBuffer;
-
-
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.codec.api.LdapApiServiceFactory;
 import org.apache.directory.api.ldap.codec.api.LdapEncoder;
+import org.apache.directory.api.ldap.codec.api.MessageDecorator;
 import org.apache.directory.api.ldap.model.constants.Loggers;
 import org.apache.directory.api.ldap.model.message.Message;
 import org.apache.directory.api.util.Strings;
@@ -39,6 +37,13 @@ import org.slf4j.LoggerFactory;
 
 /**
  * A LDAP message encoder. It is based on api-ldap encoder.
+ * <br>
+ * The PDUs are encoded directly into the {@link IoBuffer} written to the session,
+ * which is obtained from MINA's {@link org.apache.mina.core.buffer.IoBufferAllocator}.
+ * Installing a pooling allocator, like the thread-local, size-classed
+ * {@link org.apache.mina.core.buffer.CachedBufferAllocator}, and using direct buffers
+ * avoids the allocation of a heap array per message and the copy of the PDU into
+ * a direct buffer when it is written on the socket.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -53,6 +58,12 @@ public class LdapProtocolEncoder implements ProtocolEncoder
     /** The stateful encoder */
     private LdapEncoder encoder;
 
+    /** The LDAP service used to decorate the messages */
+    private LdapApiService ldapApiService;
+
+    /** Tells if the PDUs are encoded into direct buffers */
+    private boolean directBuffer;
+
 
     /**
      * Creates a new instance of LdapProtocolEncoder.
@@ -69,7 +80,21 @@ public class LdapProtocolEncoder implements ProtocolEncoder
      */
     public LdapProtocolEncoder( LdapApiService ldapApiService )
     {
+        this( ldapApiService, IoBuffer.isUseDirectBuffer() );
+    }
+
+
+    /**
+     * Creates a new instance of LdapProtocolEncoder.
+     *
+     * @param ldapApiService The Service to use
+     * @param directBuffer <code>true</code> if the PDUs must be encoded into direct buffers
+     */
+    public LdapProtocolEncoder( LdapApiService ldapApiService, boolean directBuffer )
+    {
+        this.ldapApiService = ldapApiService;
         this.encoder = new LdapEncoder( ldapApiService );
+        this.directBuffer = directBuffer;
     }
 
 
@@ -79,15 +104,21 @@ public class LdapProtocolEncoder implements ProtocolEncoder
     @Override
     public void encode( IoSession session, Object message, ProtocolEncoderOutput out ) throws Exception
     {
-        ByteBuffer buffer = encoder.encodeMessage( ( Message ) message );
+        MessageDecorator<? extends Message> decorator = MessageDecorator.getDecorator( ldapApiService,
+            ( Message ) message );
+
+        // Compute the PDU length, then encode it in a buffer of the exact size
+        int length = encoder.computeMessageLength( decorator );
+        IoBuffer ioBuffer = IoBuffer.allocate( length, directBuffer );
 
-        IoBuffer ioBuffer = IoBuffer.wrap( buffer );
+        encoder.encodeMessage( ioBuffer.buf(), decorator );
+        ioBuffer.flip();
 
         if ( IS_DEBUG )
         {
-            byte[] dumpBuffer = new byte[buffer.limit()];
-            buffer.get( dumpBuffer );
-            buffer.flip();
+            byte[] dumpBuffer = new byte[ioBuffer.limit()];
+            ioBuffer.get( dumpBuffer );
+            ioBuffer.flip();
             CODEC_LOG.debug( "Encoded message \n " + message + "\n : " + Strings.dumpBytes( dumpBuffer ) );
         }
 
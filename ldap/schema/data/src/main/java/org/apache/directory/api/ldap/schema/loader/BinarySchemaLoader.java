@@ -0,0 +1,749 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.schema.loader;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.registries.AbstractSchemaLoader;
+import org.apache.directory.api.ldap.model.schema.registries.DefaultSchema;
+import org.apache.directory.api.ldap.model.schema.registries.Schema;
+import org.apache.directory.api.ldap.model.schema.registries.SchemaLoader;
+import org.apache.directory.api.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A schema loader reading a binary snapshot of all the schema elements, produced at
+ * build time by {@link #writeSnapshot(SchemaLoader, long, OutputStream)} from any other loader.
+ * The snapshot holds the schemas and their elements already grouped by schema and by
+ * type, so loading it neither scans the classpath nor parses any LDIF.
+ * <br>
+ * The snapshot is a sequence of big endian values :
+ * <pre>
+ * snapshot   : MAGIC VERSION checksum nbSchemas schema*
+ * schema     : name owner? nbDependencies dependency* disabled ( nbEntries entry* ){11}
+ * entry      : dn nbAttributes ( upId nbValues ( humanReadable ( string | bytes ) )* )*
+ * string     : length UTF-8 bytes
+ * </pre>
+ * The checksum is the one of the LDIF files the snapshot has been created from, as
+ * computed by {@link #computeLdifChecksum()}, or 0 if it is unknown. It allows a stale
+ * snapshot to be detected and ignored.
+ * <br>
+ * The 11 lists of entries are stored in the order of the SchemaLoader load methods :
+ * attributeTypes, comparators, ditContentRules, ditStructureRules, matchingRules,
+ * matchingRuleUses, nameForms, normalizers, objectClasses, syntaxes and syntaxCheckers.
+ * <br>
+ * Running this class with a file name as an argument writes a snapshot of the schemas
+ * packaged in the api-ldap-schema-data jar. The build does it, so the jar contains the
+ * {@link #SNAPSHOT_RESOURCE} the default DefaultSchemaManager is loaded from, as long as
+ * its checksum matches the LDIF files found on the classpath.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class BinarySchemaLoader extends AbstractSchemaLoader
+{
+    /** The logger */
+    private static final Logger LOG = LoggerFactory.getLogger( BinarySchemaLoader.class );
+
+    /** The name of the snapshot resource used by the default DefaultSchemaManager */
+    public static final String SNAPSHOT_RESOURCE = "schema/schema-snapshot.bin";
+
+    /** The magic number starting a snapshot : "LDSC" */
+    public static final int MAGIC = 0x4C445343;
+
+    /** The current version of the snapshot format */
+    public static final int VERSION = 2;
+
+    /** The index listing the LDIF files of the schemas */
+    private static final String SCHEMA_INDEX = "META-INF/apacheds-schema.index";
+
+    /** The attributeTypes index */
+    private static final int ATTRIBUTE_TYPES = 0;
+
+    /** The comparators index */
+    private static final int COMPARATORS = 1;
+
+    /** The ditContentRules index */
+    private static final int DIT_CONTENT_RULES = 2;
+
+    /** The ditStructureRules index */
+    private static final int DIT_STRUCTURE_RULES = 3;
+
+    /** The matchingRules index */
+    private static final int MATCHING_RULES = 4;
+
+    /** The matchingRuleUses index */
+    private static final int MATCHING_RULE_USES = 5;
+
+    /** The nameForms index */
+    private static final int NAME_FORMS = 6;
+
+    /** The normalizers index */
+    private static final int NORMALIZERS = 7;
+
+    /** The objectClasses index */
+    private static final int OBJECT_CLASSES = 8;
+
+    /** The syntaxes index */
+    private static final int SYNTAXES = 9;
+
+    /** The syntaxCheckers index */
+    private static final int SYNTAX_CHECKERS = 10;
+
+    /** The number of schema element types */
+    private static final int NB_TYPES = 11;
+
+    /** The schema elements, per lower cased schema name then per type */
+    private final Map<String, List<List<Entry>>> schemaObjects = new HashMap<>();
+
+    /** The checksum of the LDIF files the snapshot has been created from */
+    private long checksum;
+
+
+    /**
+     * Creates a new BinarySchemaLoader reading a snapshot file.
+     *
+     * @param snapshotFile The snapshot file
+     * @throws IOException If the snapshot can't be read
+     * @throws LdapException If the snapshot contains an invalid entry
+     */
+    public BinarySchemaLoader( String snapshotFile ) throws IOException, LdapException
+    {
+        try ( InputStream in = Files.newInputStream( Paths.get( snapshotFile ) ) )
+        {
+            readSnapshot( in );
+        }
+    }
+
+
+    /**
+     * Creates a new BinarySchemaLoader reading a snapshot from an URL.
+     *
+     * @param snapshotUrl The snapshot URL
+     * @throws IOException If the snapshot can't be read
+     * @throws LdapException If the snapshot contains an invalid entry
+     */
+    public BinarySchemaLoader( URL snapshotUrl ) throws IOException, LdapException
+    {
+        try ( InputStream in = snapshotUrl.openStream() )
+        {
+            readSnapshot( in );
+        }
+    }
+
+
+    /**
+     * Creates a new BinarySchemaLoader reading a snapshot from a stream. The stream
+     * is not closed.
+     *
+     * @param in The stream containing the snapshot
+     * @throws IOException If the snapshot can't be read
+     * @throws LdapException If the snapshot contains an invalid entry
+     */
+    public BinarySchemaLoader( InputStream in ) throws IOException, LdapException
+    {
+        readSnapshot( in );
+    }
+
+
+    /**
+     * Read all the schemas and their elements from a snapshot
+     */
+    private void readSnapshot( InputStream in ) throws IOException, LdapException
+    {
+        DataInputStream input = new DataInputStream( new BufferedInputStream( in ) );
+
+        if ( input.readInt() != MAGIC )
+        {
+            throw new IOException( "Not a schema snapshot" );
+        }
+
+        int version = input.readInt();
+
+        if ( version != VERSION )
+        {
+            throw new IOException( "Unsupported schema snapshot version : " + version );
+        }
+
+        checksum = input.readLong();
+        int nbSchemas = input.readInt();
+
+        for ( int i = 0; i < nbSchemas; i++ )
+        {
+            String name = readString( input );
+            String owner = input.readBoolean() ? readString( input ) : null;
+            String[] dependencies = new String[input.readInt()];
+
+            for ( int j = 0; j < dependencies.length; j++ )
+            {
+                dependencies[j] = readString( input );
+            }
+
+            boolean disabled = input.readBoolean();
+            Schema schema = new DefaultSchema( this, name, owner, dependencies, disabled );
+            schemaMap.put( schema.getSchemaName(), schema );
+
+            List<List<Entry>> types = new ArrayList<>( NB_TYPES );
+
+            for ( int type = 0; type < NB_TYPES; type++ )
+            {
+                int nbEntries = input.readInt();
+                List<Entry> entries = new ArrayList<>( nbEntries );
+
+                for ( int j = 0; j < nbEntries; j++ )
+                {
+                    entries.add( readEntry( input ) );
+                }
+
+                types.add( entries );
+            }
+
+            schemaObjects.put( Strings.toLowerCaseAscii( schema.getSchemaName() ), types );
+        }
+
+        LOG.debug( "{} schemas loaded from the snapshot", nbSchemas );
+    }
+
+
+    /**
+     * Read an entry
+     */
+    private static Entry readEntry( DataInputStream input ) throws IOException, LdapException
+    {
+        Entry entry = new DefaultEntry( new Dn( readString( input ) ) );
+        int nbAttributes = input.readInt();
+
+        for ( int i = 0; i < nbAttributes; i++ )
+        {
+            Attribute attribute = new DefaultAttribute( readString( input ) );
+            int nbValues = input.readInt();
+
+            for ( int j = 0; j < nbValues; j++ )
+            {
+                if ( input.readBoolean() )
+                {
+                    attribute.add( readString( input ) );
+                }
+                else
+                {
+                    attribute.add( readBytes( input ) );
+                }
+            }
+
+            entry.put( attribute );
+        }
+
+        return entry;
+    }
+
+
+    /**
+     * Read a length prefixed byte[]
+     */
+    private static byte[] readBytes( DataInputStream input ) throws IOException
+    {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully( bytes );
+
+        return bytes;
+    }
+
+
+    /**
+     * Read a length prefixed UTF-8 String
+     */
+    private static String readString( DataInputStream input ) throws IOException
+    {
+        return Strings.utf8ToString( readBytes( input ) );
+    }
+
+
+    /**
+     * @return The checksum of the LDIF files the snapshot has been created from, 0 if it is unknown
+     */
+    public long getChecksum()
+    {
+        return checksum;
+    }
+
+
+    /**
+     * Compute a checksum of the LDIF files of the schemas available on the classpath : the
+     * CRC32 of the names and of the CRC32 of the files listed in the schema indexes. The CRC32
+     * of the files stored in a jar are read from the jar directory, so the files are not read.
+     *
+     * @return The checksum of the LDIF files
+     * @throws IOException If a LDIF file can't be read
+     */
+    public static long computeLdifChecksum() throws IOException
+    {
+        Enumeration<URL> indexes = BinarySchemaLoader.class.getClassLoader().getResources( SCHEMA_INDEX );
+        CRC32 checksum = new CRC32();
+
+        while ( indexes.hasMoreElements() )
+        {
+            URL index = indexes.nextElement();
+            URLConnection connection = index.openConnection();
+
+            if ( connection instanceof JarURLConnection )
+            {
+                // Don't close the jar shared with the class loader
+                connection.setUseCaches( false );
+
+                try ( JarFile jarFile = ( ( JarURLConnection ) connection ).getJarFile() )
+                {
+                    updateChecksum( checksum, index, jarFile );
+                }
+            }
+            else
+            {
+                updateChecksum( checksum, index, null );
+            }
+        }
+
+        return checksum.getValue();
+    }
+
+
+    /**
+     * Add the LDIF files listed in a schema index to a checksum. The files are read
+     * only if they are not stored in the given jar.
+     */
+    private static void updateChecksum( CRC32 checksum, URL index, JarFile jarFile ) throws IOException
+    {
+        try ( BufferedReader reader = new BufferedReader( new InputStreamReader( index.openStream(),
+            StandardCharsets.UTF_8 ) ) )
+        {
+            String line = reader.readLine();
+
+            while ( line != null )
+            {
+                long crc;
+
+                if ( jarFile != null )
+                {
+                    JarEntry entry = jarFile.getJarEntry( line );
+                    crc = entry == null ? -1L : entry.getCrc();
+                }
+                else
+                {
+                    // The index is stored in the META-INF directory, next to the schema directory
+                    crc = computeCrc( new URL( index, "../" + line ) );
+                }
+
+                checksum.update( Strings.getBytesUtf8( line ) );
+
+                for ( int shift = 56; shift >= 0; shift -= 8 )
+                {
+                    checksum.update( ( int ) ( crc >>> shift ) );
+                }
+
+                line = reader.readLine();
+            }
+        }
+    }
+
+
+    /**
+     * Compute the CRC32 of a file, -1 if it does not exist
+     */
+    private static long computeCrc( URL url ) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+
+        try ( InputStream in = url.openStream() )
+        {
+            int nbRead = in.read( buffer );
+
+            while ( nbRead != -1 )
+            {
+                crc.update( buffer, 0, nbRead );
+                nbRead = in.read( buffer );
+            }
+        }
+        catch ( FileNotFoundException fnfe )
+        {
+            return -1L;
+        }
+
+        return crc.getValue();
+    }
+
+
+    /**
+     * Write a snapshot of all the schemas known by a SchemaLoader, enabled or not, with
+     * all their elements. The stream is flushed but not closed.
+     *
+     * @param loader The SchemaLoader to read the schemas from
+     * @param checksum The checksum of the LDIF files the schemas are read from, 0 if it is unknown
+     * @param out The stream the snapshot is written to
+     * @throws IOException If the snapshot can't be written
+     * @throws LdapException If the loader can't load a schema element
+     */
+    public static void writeSnapshot( SchemaLoader loader, long checksum, OutputStream out ) throws IOException,
+        LdapException
+    {
+        DataOutputStream output = new DataOutputStream( new BufferedOutputStream( out ) );
+        Collection<Schema> schemas = loader.getAllSchemas();
+
+        output.writeInt( MAGIC );
+        output.writeInt( VERSION );
+        output.writeLong( checksum );
+        output.writeInt( schemas.size() );
+
+        for ( Schema schema : schemas )
+        {
+            writeString( output, schema.getSchemaName() );
+            output.writeBoolean( schema.getOwner() != null );
+
+            if ( schema.getOwner() != null )
+            {
+                writeString( output, schema.getOwner() );
+            }
+
+            String[] dependencies = schema.getDependencies();
+
+            if ( dependencies == null )
+            {
+                output.writeInt( 0 );
+            }
+            else
+            {
+                output.writeInt( dependencies.length );
+
+                for ( String dependency : dependencies )
+                {
+                    writeString( output, dependency );
+                }
+            }
+
+            output.writeBoolean( schema.isDisabled() );
+
+            for ( int type = 0; type < NB_TYPES; type++ )
+            {
+                List<Entry> entries = load( loader, type, schema );
+                output.writeInt( entries.size() );
+
+                for ( Entry entry : entries )
+                {
+                    writeEntry( output, entry );
+                }
+            }
+        }
+
+        output.flush();
+    }
+
+
+    /**
+     * Load the elements of a given type from a SchemaLoader
+     */
+    private static List<Entry> load( SchemaLoader loader, int type, Schema schema ) throws IOException,
+        LdapException
+    {
+        switch ( type )
+        {
+            case ATTRIBUTE_TYPES:
+                return loader.loadAttributeTypes( schema );
+
+            case COMPARATORS:
+                return loader.loadComparators( schema );
+
+            case DIT_CONTENT_RULES:
+                return loader.loadDitContentRules( schema );
+
+            case DIT_STRUCTURE_RULES:
+                return loader.loadDitStructureRules( schema );
+
+            case MATCHING_RULES:
+                return loader.loadMatchingRules( schema );
+
+            case MATCHING_RULE_USES:
+                return loader.loadMatchingRuleUses( schema );
+
+            case NAME_FORMS:
+                return loader.loadNameForms( schema );
+
+            case NORMALIZERS:
+                return loader.loadNormalizers( schema );
+
+            case OBJECT_CLASSES:
+                return loader.loadObjectClasses( schema );
+
+            case SYNTAXES:
+                return loader.loadSyntaxes( schema );
+
+            case SYNTAX_CHECKERS:
+                return loader.loadSyntaxCheckers( schema );
+
+            default:
+                throw new IllegalArgumentException( "Unknown schema element type : " + type );
+        }
+    }
+
+
+    /**
+     * Write an entry
+     */
+    private static void writeEntry( DataOutputStream output, Entry entry ) throws IOException
+    {
+        writeString( output, entry.getDn().getName() );
+        output.writeInt( entry.size() );
+
+        for ( Attribute attribute : entry )
+        {
+            writeString( output, attribute.getUpId() );
+            output.writeInt( attribute.size() );
+
+            for ( Value<?> value : attribute )
+            {
+                output.writeBoolean( value.isHumanReadable() );
+
+                if ( value.isHumanReadable() )
+                {
+                    writeString( output, value.getString() );
+                }
+                else
+                {
+                    writeBytes( output, value.getBytes() );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Write a length prefixed byte[]
+     */
+    private static void writeBytes( DataOutputStream output, byte[] bytes ) throws IOException
+    {
+        output.writeInt( bytes.length );
+        output.write( bytes );
+    }
+
+
+    /**
+     * Write a length prefixed UTF-8 String
+     */
+    private static void writeString( DataOutputStream output, String value ) throws IOException
+    {
+        writeBytes( output, Strings.getBytesUtf8( value ) );
+    }
+
+
+    /**
+     * Get the elements of a given type for some schemas
+     */
+    private List<Entry> getSchemaObjects( int type, Schema... schemas )
+    {
+        List<Entry> entries = new ArrayList<>();
+
+        if ( schemas == null )
+        {
+            return entries;
+        }
+
+        for ( Schema schema : schemas )
+        {
+            List<List<Entry>> types = schemaObjects.get( Strings.toLowerCaseAscii( schema.getSchemaName() ) );
+
+            if ( types != null )
+            {
+                entries.addAll( types.get( type ) );
+            }
+        }
+
+        return entries;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadAttributeTypes( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( ATTRIBUTE_TYPES, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadComparators( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( COMPARATORS, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadDitContentRules( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( DIT_CONTENT_RULES, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadDitStructureRules( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( DIT_STRUCTURE_RULES, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadMatchingRules( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( MATCHING_RULES, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadMatchingRuleUses( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( MATCHING_RULE_USES, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadNameForms( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( NAME_FORMS, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadNormalizers( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( NORMALIZERS, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadObjectClasses( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( OBJECT_CLASSES, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadSyntaxes( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( SYNTAXES, schemas );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Entry> loadSyntaxCheckers( Schema... schemas ) throws LdapException, IOException
+    {
+        return getSchemaObjects( SYNTAX_CHECKERS, schemas );
+    }
+
+
+    /**
+     * Write a snapshot of the schemas packaged in the api-ldap-schema-data jar, with the
+     * checksum of their LDIF files. Run at build time to create {@link #SNAPSHOT_RESOURCE}.
+     *
+     * @param args The name of the snapshot file to write
+     * @throws Exception If the snapshot can't be written
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        if ( args.length != 1 )
+        {
+            System.err.println( "Usage : BinarySchemaLoader <snapshot file>" );
+            System.exit( 1 );
+        }
+
+        Path snapshotFile = Paths.get( args[0] );
+
+        if ( snapshotFile.getParent() != null )
+        {
+            Files.createDirectories( snapshotFile.getParent() );
+        }
+
+        try ( OutputStream out = Files.newOutputStream( snapshotFile ) )
+        {
+            writeSnapshot( new JarLdifSchemaLoader(), computeLdifChecksum(), out );
+        }
+    }
+}
@@ -271,6 +271,21 @@ public class SchemaEntityFactory implements EntityFactory
     }
 
 
+    /**
+     * Load a class from its bytecode. The schema elements may be created by many threads,
+     * and the class loader holds the bytecode of the class being loaded.
+     */
+    private Class<?> loadClass( Attribute byteCode, String className ) throws LdapException, ClassNotFoundException
+    {
+        synchronized ( classLoader )
+        {
+            classLoader.setAttribute( byteCode );
+
+            return classLoader.loadClass( className );
+        }
+    }
+
+
     /**
      * Class load a syntaxChecker instance
      */
@@ -296,11 +311,9 @@ public class SchemaEntityFactory implements EntityFactory
         }
         else
         {
-            classLoader.setAttribute( byteCode );
-            
             try
             {
-                clazz = classLoader.loadClass( className );
+                clazz = loadClass( byteCode, className );
             }
             catch ( ClassNotFoundException cnfe )
             {
@@ -465,11 +478,9 @@ public class SchemaEntityFactory implements EntityFactory
         }
         else
         {
-            classLoader.setAttribute( byteCode );
-            
             try
             {
-                clazz = classLoader.loadClass( className );
+                clazz = loadClass( byteCode, className );
             }
             catch ( ClassNotFoundException cnfe )
             {
@@ -676,11 +687,9 @@ public class SchemaEntityFactory implements EntityFactory
         }
         else
         {
-            classLoader.setAttribute( byteCode );
-            
             try
             {
-                clazz = classLoader.loadClass( className );
+                clazz = loadClass( byteCode, className );
             }
             catch ( ClassNotFoundException cnfe )
             {
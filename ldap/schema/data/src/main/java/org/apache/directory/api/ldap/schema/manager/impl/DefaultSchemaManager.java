@@ -21,6 +21,7 @@ package org.apache.directory.api.ldap.schema.manager.impl;
 
 
 import java.io.IOException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -28,6 +29,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.model.constants.MetaSchemaConstants;
@@ -80,6 +85,7 @@ import org.apache.directory.api.ldap.model.schema.registries.Registries;
 import org.apache.directory.api.ldap.model.schema.registries.Schema;
 import org.apache.directory.api.ldap.model.schema.registries.SchemaLoader;
 import org.apache.directory.api.ldap.model.schema.registries.SyntaxCheckerRegistry;
+import org.apache.directory.api.ldap.schema.loader.BinarySchemaLoader;
 import org.apache.directory.api.ldap.schema.loader.EntityFactory;
 import org.apache.directory.api.ldap.schema.loader.JarLdifSchemaLoader;
 import org.apache.directory.api.ldap.schema.loader.SchemaEntityFactory;
@@ -91,6 +97,20 @@ import org.slf4j.LoggerFactory;
 /**
  * The SchemaManager class : it handles all the schema operations (addition, removal,
  * modification).
+ * <br>
+ * The schemas can be loaded using many threads, setting the parallelism to more than 1.
+ * The elements of all the schemas to load, and of the schemas they depend on, are then
+ * read concurrently from the SchemaLoader, which must support it, and the elements of
+ * each schema are created concurrently. They are still registered one schema after the
+ * other, following the dependencies, and in the same order as with a single thread, so
+ * the Registries and the reported errors are the same.
+ * <br>
+ * In strict mode, the Registries are never modified once they have been published : the
+ * schema operations are applied to a copy of the Registries, which replaces the current
+ * one if it's consistent. Threads looking up some SchemaObjects always read a complete
+ * and consistent Registries, without any lock, while the operations modifying the schema
+ * are serialized. In relaxed mode, the modifications are applied directly to the current
+ * Registries, so they must not be concurrent with any lookup.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -102,7 +122,7 @@ public class DefaultSchemaManager implements SchemaManager
     /** The NamingContext this SchemaManager is associated with */
     private Dn namingContext;
 
-    /** The global registries for this namingContext */
+    /** The global registries for this namingContext, replaced as a whole when modified */
     private volatile Registries registries;
 
     /** The list of errors produced when loading some schema elements */
@@ -124,6 +144,15 @@ public class DefaultSchemaManager implements SchemaManager
     /** A flag indicating that the SchemaManager is relaxed or not */
     private boolean isRelaxed = STRICT;
 
+    /** The number of threads used to load the schemas */
+    private int parallelism = 1;
+
+    /** The pool used to load the schemas concurrently, created on the first parallel load */
+    private ForkJoinPool pool;
+
+    /** The elements of the schemas being read in advance during a parallel load, per schema name */
+    private final Map<String, Future<List<List<Entry>>>> prefetchedEntries = new HashMap<>();
+
     /**
      * Creates a new instance of DefaultSchemaManager with the default schema schemaLoader
      */
@@ -138,7 +167,7 @@ public class DefaultSchemaManager implements SchemaManager
         
         try
         {
-            SchemaLoader schemaLoader = new JarLdifSchemaLoader();
+            SchemaLoader schemaLoader = createDefaultSchemaLoader();
             
             for ( Schema schema : schemaLoader.getAllSchemas() )
             {
@@ -230,6 +259,40 @@ public class DefaultSchemaManager implements SchemaManager
     //-----------------------------------------------------------------------
     // Helper methods
     //-----------------------------------------------------------------------
+    /**
+     * Creates the default SchemaLoader : the schemas are read from a binary snapshot if
+     * one is available on the classpath and has been created from the LDIF files found on
+     * the classpath, otherwise from these LDIF files.
+     */
+    private static SchemaLoader createDefaultSchemaLoader() throws LdapException, IOException
+    {
+        URL snapshot = DefaultSchemaManager.class.getClassLoader().getResource( BinarySchemaLoader.SNAPSHOT_RESOURCE );
+
+        if ( snapshot != null )
+        {
+            LOG.debug( "Loading the schemas from the snapshot {}", snapshot );
+
+            try
+            {
+                BinarySchemaLoader schemaLoader = new BinarySchemaLoader( snapshot );
+
+                if ( schemaLoader.getChecksum() == BinarySchemaLoader.computeLdifChecksum() )
+                {
+                    return schemaLoader;
+                }
+
+                LOG.warn( "The schema snapshot {} does not match the LDIF files, it is ignored", snapshot );
+            }
+            catch ( IOException ioe )
+            {
+                LOG.warn( "The schema snapshot {} can't be read, it is ignored : {}", snapshot, ioe.getMessage() );
+            }
+        }
+
+        return new JarLdifSchemaLoader();
+    }
+
+
     /**
      * Clone the registries before doing any modification on it. Relax it
      * too so that we can update it.
@@ -260,6 +323,34 @@ public class DefaultSchemaManager implements SchemaManager
     }
 
 
+    /**
+     * Copy the registries, keeping their current state, so that they can be modified
+     * without impacting the published registries.
+     */
+    private Registries copyRegistries() throws LdapException
+    {
+        try
+        {
+            return registries.clone();
+        }
+        catch ( CloneNotSupportedException cnse )
+        {
+            throw new LdapOtherException( cnse.getMessage(), cnse );
+        }
+    }
+
+
+    /**
+     * Publish some new registries, replacing the current ones. They must not be
+     * modified afterward, as they may be read concurrently.
+     */
+    private void publish( Registries newRegistries )
+    {
+        newRegistries.setStrict();
+        registries = newRegistries;
+    }
+
+
     /**
      * Transform a String[] array of schema to a Schema[]
      */
@@ -296,6 +387,13 @@ public class DefaultSchemaManager implements SchemaManager
         // And inject any existing SchemaObject into the registries
         try
         {
+            if ( parallelism > 1 )
+            {
+                addSchemaObjectsConcurrently( schema, registries );
+
+                return;
+            }
+
             addComparators( schema, registries );
             addNormalizers( schema, registries );
             addSyntaxCheckers( schema, registries );
@@ -315,6 +413,220 @@ public class DefaultSchemaManager implements SchemaManager
     }
 
 
+    /**
+     * Create all the schemaObjects of a schema concurrently, then inject them into the
+     * registries in the same order as {@link #addSchemaObjects(Schema, Registries)}.
+     */
+    private void addSchemaObjectsConcurrently( final Schema schema, final Registries registries )
+        throws LdapException, IOException
+    {
+        if ( schema.getSchemaLoader() == null )
+        {
+            return;
+        }
+
+        List<List<Entry>> entries = getSchemaEntries( schema );
+        List<Future<SchemaObject>> schemaObjects = new ArrayList<>();
+
+        for ( int type = 0; type < entries.size(); type++ )
+        {
+            final int schemaObjectType = type;
+
+            for ( final Entry entry : entries.get( type ) )
+            {
+                schemaObjects.add( getPool().submit( new Callable<SchemaObject>()
+                {
+                    @Override
+                    public SchemaObject call() throws LdapException
+                    {
+                        return createSchemaObject( schemaObjectType, entry, registries, schema );
+                    }
+                } ) );
+            }
+        }
+
+        // The first error is the one a serial load would have thrown
+        for ( Future<SchemaObject> schemaObject : schemaObjects )
+        {
+            addSchemaObject( registries, get( schemaObject ), schema );
+        }
+    }
+
+
+    /**
+     * Create a schemaObject from its entry. The type is the index of the entries list
+     * returned by {@link #readSchemaEntries(Schema)}.
+     */
+    private SchemaObject createSchemaObject( int type, Entry entry, Registries registries, Schema schema )
+        throws LdapException
+    {
+        String schemaName = schema.getSchemaName();
+
+        switch ( type )
+        {
+            case 0:
+                return factory.getLdapComparator( this, entry, registries, schemaName );
+
+            case 1:
+                return factory.getNormalizer( this, entry, registries, schemaName );
+
+            case 2:
+                return factory.getSyntaxChecker( this, entry, registries, schemaName );
+
+            case 3:
+                return factory.getSyntax( this, entry, registries, schemaName );
+
+            case 4:
+                return factory.getMatchingRule( this, entry, registries, schemaName );
+
+            case 5:
+                return factory.getAttributeType( this, entry, registries, schemaName );
+
+            default:
+                return factory.getObjectClass( this, entry, registries, schemaName );
+        }
+    }
+
+
+    /**
+     * Read all the entries of a schema, in the order they are added to the registries :
+     * comparators, normalizers, syntaxCheckers, syntaxes, matchingRules, attributeTypes
+     * and objectClasses.
+     */
+    private static List<List<Entry>> readSchemaEntries( Schema schema ) throws LdapException, IOException
+    {
+        SchemaLoader schemaLoader = schema.getSchemaLoader();
+        List<List<Entry>> entries = new ArrayList<>();
+
+        entries.add( schemaLoader.loadComparators( schema ) );
+        entries.add( schemaLoader.loadNormalizers( schema ) );
+        entries.add( schemaLoader.loadSyntaxCheckers( schema ) );
+        entries.add( schemaLoader.loadSyntaxes( schema ) );
+        entries.add( schemaLoader.loadMatchingRules( schema ) );
+        entries.add( schemaLoader.loadAttributeTypes( schema ) );
+        entries.add( schemaLoader.loadObjectClasses( schema ) );
+
+        return entries;
+    }
+
+
+    /**
+     * Get the entries of a schema, read in advance if it's been prefetched
+     */
+    private List<List<Entry>> getSchemaEntries( Schema schema ) throws LdapException, IOException
+    {
+        Future<List<List<Entry>>> prefetched = prefetchedEntries.get( Strings.toLowerCaseAscii( schema
+            .getSchemaName() ) );
+
+        if ( prefetched == null )
+        {
+            return readSchemaEntries( schema );
+        }
+
+        return get( prefetched );
+    }
+
+
+    /**
+     * Start reading concurrently the entries of the schemas which are going to be loaded,
+     * and of all the schemas they depend on, if the parallelism is more than 1. The
+     * schemas are independent at this point, so they can all be read at once.
+     */
+    private void prefetchSchemaEntries( Schema... schemas )
+    {
+        if ( parallelism == 1 )
+        {
+            return;
+        }
+
+        for ( final Schema schema : schemas )
+        {
+            if ( ( schema == null ) || ( schema.getSchemaLoader() == null ) )
+            {
+                continue;
+            }
+
+            String schemaName = Strings.toLowerCaseAscii( schema.getSchemaName() );
+
+            if ( prefetchedEntries.containsKey( schemaName ) || registries.isSchemaLoaded( schemaName ) )
+            {
+                continue;
+            }
+
+            prefetchedEntries.put( schemaName, getPool().submit( new Callable<List<List<Entry>>>()
+            {
+                @Override
+                public List<List<Entry>> call() throws LdapException, IOException
+                {
+                    return readSchemaEntries( schema );
+                }
+            } ) );
+
+            if ( schema.getDependencies() != null )
+            {
+                for ( String dependency : schema.getDependencies() )
+                {
+                    prefetchSchemaEntries( schemaMap.get( dependency ) );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Wait for a task to complete, and get its result, throwing back its exception
+     */
+    private static <T> T get( Future<T> future ) throws LdapException, IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            throw new LdapOtherException( ie.getMessage(), ie );
+        }
+        catch ( ExecutionException ee )
+        {
+            Throwable cause = ee.getCause();
+
+            if ( cause instanceof LdapException )
+            {
+                throw ( LdapException ) cause;
+            }
+            else if ( cause instanceof IOException )
+            {
+                throw ( IOException ) cause;
+            }
+            else if ( cause instanceof RuntimeException )
+            {
+                throw ( RuntimeException ) cause;
+            }
+            else if ( cause instanceof Error )
+            {
+                throw ( Error ) cause;
+            }
+
+            throw new LdapOtherException( cause.getMessage(), cause );
+        }
+    }
+
+
+    /**
+     * @return The pool used to load the schemas concurrently
+     */
+    private synchronized ForkJoinPool getPool()
+    {
+        if ( pool == null )
+        {
+            pool = new ForkJoinPool( parallelism );
+        }
+
+        return pool;
+    }
+
+
     /**
      * Delete all the schemaObjects for a given schema from the registries
      */
@@ -348,7 +660,7 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean disable( Schema... schemas ) throws LdapException
+    public synchronized boolean disable( Schema... schemas ) throws LdapException
     {
         boolean disabled = false;
 
@@ -370,33 +682,23 @@ public class DefaultSchemaManager implements SchemaManager
         // Build the cross references
         errors = clonedRegistries.buildReferences();
 
-        // Destroy the clonedRegistry
-        clonedRegistries.clear();
-
         if ( errors.isEmpty() )
         {
-            // Ok no errors. Check the registries now
-            errors = clonedRegistries.checkRefInteg();
-
-            if ( errors.isEmpty() )
+            // We are golden : let's publish the updated registries
+            for ( Schema schema : schemas )
             {
-                // We are golden : let's apply the schemas in the real registries
-                for ( Schema schema : schemas )
-                {
-                    unload( registries, schema );
-                    schema.disable();
-                }
+                schema.disable();
+            }
 
-                // Build the cross references
-                errors = registries.buildReferences();
-                registries.setStrict();
+            publish( clonedRegistries );
 
-                disabled = true;
-            }
+            disabled = true;
+        }
+        else
+        {
+            // clear the cloned registries
+            clonedRegistries.clear();
         }
-
-        // clear the cloned registries
-        clonedRegistries.clear();
 
         return disabled;
     }
@@ -458,7 +760,7 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean enable( Schema... schemas ) throws LdapException
+    public synchronized boolean enable( Schema... schemas ) throws LdapException
     {
         boolean enabled = false;
 
@@ -493,45 +795,30 @@ public class DefaultSchemaManager implements SchemaManager
             load( clonedRegistries, schema );
         }
 
-        // Revert back the disabled schema to disabled
-        for ( Schema disabledSchema : disabledSchemas )
-        {
-            if ( disabledSchema.isEnabled() )
-            {
-                disabledSchema.disable();
-            }
-        }
-
         // Build the cross references
         errors = clonedRegistries.buildReferences();
 
-        // Destroy the clonedRegistry
-        clonedRegistries.clear();
-
         if ( errors.isEmpty() )
         {
-            // Ok no errors. Check the registries now
-            errors = clonedRegistries.checkRefInteg();
+            // We are golden : let's publish the updated registries
+            publish( clonedRegistries );
 
-            if ( errors.isEmpty() )
+            enabled = true;
+        }
+        else
+        {
+            // Revert back the disabled schema to disabled
+            for ( Schema disabledSchema : disabledSchemas )
             {
-                // We are golden : let's apply the schemas in the real registries
-                for ( Schema schema : schemas )
+                if ( disabledSchema.isEnabled() )
                 {
-                    schema.enable();
-                    load( registries, schema );
+                    disabledSchema.disable();
                 }
-
-                // Build the cross references
-                errors = registries.buildReferences();
-                registries.setStrict();
-
-                enabled = true;
             }
-        }
 
-        // clear the cloned registries
-        clonedRegistries.clear();
+            // clear the cloned registries
+            clonedRegistries.clear();
+        }
 
         return enabled;
     }
@@ -642,7 +929,25 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean load( Schema... schemas ) throws LdapException
+    public synchronized boolean load( Schema... schemas ) throws LdapException
+    {
+        prefetchSchemaEntries( schemas );
+
+        try
+        {
+            return loadSchemas( schemas );
+        }
+        finally
+        {
+            prefetchedEntries.clear();
+        }
+    }
+
+
+    /**
+     * Load the given schemas, checking them on a copy of the registries first
+     */
+    private boolean loadSchemas( Schema... schemas ) throws LdapException
     {
         if ( schemas.length == 0 )
         {
@@ -683,14 +988,9 @@ public class DefaultSchemaManager implements SchemaManager
 
             if ( errors.isEmpty() )
             {
-                // We are golden : let's apply the schema in the real registries
-                registries.setRelaxed();
-
-                // Load the schemas
+                // We are golden : let's publish the updated registries
                 for ( Schema schema : schemas )
                 {
-                    load( registries, schema );
-
                     // Update the schema dependences if needed
                     if ( schema.getDependencies() != null )
                     {
@@ -713,16 +1013,17 @@ public class DefaultSchemaManager implements SchemaManager
                     schemaMap.put( schema.getSchemaName(), schema );
                 }
 
-                // Build the cross references
-                errors = registries.buildReferences();
-                registries.setStrict();
+                publish( clonedRegistries );
 
                 loaded = true;
             }
         }
 
-        // clear the cloned registries
-        clonedRegistries.clear();
+        if ( !loaded )
+        {
+            // clear the cloned registries
+            clonedRegistries.clear();
+        }
 
         return loaded;
     }
@@ -1131,10 +1432,11 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean loadDisabled( Schema... schemas ) throws LdapException
+    public synchronized boolean loadDisabled( Schema... schemas ) throws LdapException
     {
         // Work on a cloned and relaxed registries
         Registries clonedRegistries = cloneRegistries();
+        boolean disabledAccepted = clonedRegistries.isDisabledAccepted();
 
         // Accept the disabled schemas
         clonedRegistries.setDisabledAccepted( true );
@@ -1147,21 +1449,24 @@ public class DefaultSchemaManager implements SchemaManager
             load( clonedRegistries, schema );
         }
 
-        clonedRegistries.clear();
-
-        // Apply the change to the correct registries if no errors
+        // Publish the updated registries if no errors
         if ( errors.isEmpty() )
         {
-            // No error, we can enable the schema in the real registries
-            for ( Schema schema : schemas )
+            clonedRegistries.setDisabledAccepted( disabledAccepted );
+
+            if ( registries.isStrict() )
             {
-                load( registries, schema );
+                clonedRegistries.setStrict();
             }
 
+            registries = clonedRegistries;
+
             return true;
         }
         else
         {
+            clonedRegistries.clear();
+
             for ( Schema schema : schemas )
             {
                 schema.disable();
@@ -1209,7 +1514,26 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean loadWithDeps( Schema... schemas ) throws LdapException
+    public synchronized boolean loadWithDeps( Schema... schemas ) throws LdapException
+    {
+        prefetchSchemaEntries( schemas );
+
+        try
+        {
+            return loadSchemasWithDeps( schemas );
+        }
+        finally
+        {
+            prefetchedEntries.clear();
+        }
+    }
+
+
+    /**
+     * Load the given schemas and the schemas they depend on, checking them on a copy
+     * of the registries first
+     */
+    private boolean loadSchemasWithDeps( Schema... schemas ) throws LdapException
     {
         boolean loaded = false;
 
@@ -1239,9 +1563,8 @@ public class DefaultSchemaManager implements SchemaManager
 
             if ( errors.isEmpty() )
             {
-                // We are golden : let's apply the schema in the real registries
-                registries = clonedRegistries;
-                registries.setStrict();
+                // We are golden : let's publish the updated registries
+                publish( clonedRegistries );
                 loaded = true;
             }
         }
@@ -1253,8 +1576,8 @@ public class DefaultSchemaManager implements SchemaManager
         else
         {
             // Relaxed mode
+            clonedRegistries.setRelaxed();
             registries = clonedRegistries;
-            registries.setRelaxed();
             loaded = true;
         }
 
@@ -1343,7 +1666,7 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean loadWithDepsRelaxed( Schema... schemas ) throws LdapException
+    public synchronized boolean loadWithDepsRelaxed( Schema... schemas ) throws LdapException
     {
         registries.setRelaxed();
 
@@ -1453,7 +1776,7 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean unload( Schema... schemas ) throws LdapException
+    public synchronized boolean unload( Schema... schemas ) throws LdapException
     {
         boolean unloaded = false;
 
@@ -1483,14 +1806,9 @@ public class DefaultSchemaManager implements SchemaManager
 
             if ( errors.isEmpty() )
             {
-                // We are golden : let's apply the schema in the real registries
-                registries.setRelaxed();
-
-                // Load the schemas
+                // We are golden : let's publish the updated registries
                 for ( Schema schema : schemas )
                 {
-                    unload( registries, schema );
-
                     // Update the schema dependences
                     for ( String dep : schema.getDependencies() )
                     {
@@ -1505,16 +1823,17 @@ public class DefaultSchemaManager implements SchemaManager
                     schemaMap.remove( schema.getSchemaName() );
                 }
 
-                // Build the cross references
-                errors = registries.buildReferences();
-                registries.setStrict();
+                publish( clonedRegistries );
 
                 unloaded = true;
             }
         }
 
-        // clear the cloned registries
-        clonedRegistries.clear();
+        if ( !unloaded )
+        {
+            // clear the cloned registries
+            clonedRegistries.clear();
+        }
 
         return unloaded;
     }
@@ -1939,7 +2258,7 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean add( SchemaObject schemaObject ) throws LdapException
+    public synchronized boolean add( SchemaObject schemaObject ) throws LdapException
     {
         // First, clear the errors
         errors.clear();
@@ -2008,31 +2327,15 @@ public class DefaultSchemaManager implements SchemaManager
             if ( schema.isEnabled() && copy.isEnabled() )
             {
                 // As we may break the registries, work on a cloned registries
-                Registries clonedRegistries = null;
-
-                try
-                {
-                    clonedRegistries = registries.clone();
-                }
-                catch ( CloneNotSupportedException cnse )
-                {
-                    throw new LdapOtherException( cnse.getMessage(), cnse );
-                }
+                Registries clonedRegistries = copyRegistries();
 
                 // Inject the new SchemaObject in the cloned registries
                 clonedRegistries.add( errors, copy, true );
 
-                // Remove the cloned registries
-                clonedRegistries.clear();
-
-                // If we didn't get any error, apply the addition to the real retistries
+                // If we didn't get any error, publish the updated registries
                 if ( errors.isEmpty() )
                 {
-                    // Copy again as the clonedRegistries clear has removed the previous copy
-                    copy = copy( schemaObject );
-
-                    // Apply the addition to the real registries
-                    registries.add( errors, copy, true );
+                    publish( clonedRegistries );
 
                     LOG.debug( "Added {} into the enabled schema {}", copy.getName(), schemaName );
 
@@ -2040,6 +2343,9 @@ public class DefaultSchemaManager implements SchemaManager
                 }
                 else
                 {
+                    // Remove the cloned registries
+                    clonedRegistries.clear();
+
                     // We have some error : reject the addition and get out
                     String msg = "Cannot add the SchemaObject " + copy.getOid() + " into the registries, "
                         + "the resulting registries would be inconsistent :" + Strings.listToString( errors );
@@ -2052,7 +2358,9 @@ public class DefaultSchemaManager implements SchemaManager
             {
                 // At least, we register the OID in the globalOidRegistry, and associates it with the
                 // schema
-                registries.associateWithSchema( errors, copy );
+                Registries clonedRegistries = copyRegistries();
+                clonedRegistries.associateWithSchema( errors, copy );
+                publish( clonedRegistries );
 
                 LOG.debug( "Added {} into the disabled schema {}", copy.getName(), schemaName );
                 return errors.isEmpty();
@@ -2065,7 +2373,7 @@ public class DefaultSchemaManager implements SchemaManager
      * {@inheritDoc}
      */
     @Override
-    public boolean delete( SchemaObject schemaObject ) throws LdapException
+    public synchronized boolean delete( SchemaObject schemaObject ) throws LdapException
     {
         // First, clear the errors
         errors.clear();
@@ -2122,28 +2430,15 @@ public class DefaultSchemaManager implements SchemaManager
             if ( schema.isEnabled() && schemaObject.isEnabled() )
             {
                 // As we may break the registries, work on a cloned registries
-                Registries clonedRegistries = null;
-
-                try
-                {
-                    clonedRegistries = registries.clone();
-                }
-                catch ( CloneNotSupportedException cnse )
-                {
-                    throw new LdapOtherException( cnse.getMessage(), cnse );
-                }
+                Registries clonedRegistries = copyRegistries();
 
                 // Delete the SchemaObject from the cloned registries
                 clonedRegistries.delete( errors, toDelete );
 
-                // Remove the cloned registries
-                clonedRegistries.clear();
-
-                // If we didn't get any error, apply the deletion to the real retistries
+                // If we didn't get any error, publish the updated registries
                 if ( errors.isEmpty() )
                 {
-                    // Apply the deletion to the real registries
-                    registries.delete( errors, toDelete );
+                    publish( clonedRegistries );
 
                     LOG.debug( "Removed {} from the enabled schema {}", toDelete.getName(), schemaName );
 
@@ -2151,6 +2446,9 @@ public class DefaultSchemaManager implements SchemaManager
                 }
                 else
                 {
+                    // Remove the cloned registries
+                    clonedRegistries.clear();
+
                     // We have some error : reject the deletion and get out
                     String msg = "Cannot delete the SchemaObject " + schemaObject.getOid() + " from the registries, "
                         + "the resulting registries would be inconsistent :" + Strings.listToString( errors );
@@ -2163,7 +2461,9 @@ public class DefaultSchemaManager implements SchemaManager
             {
                 // At least, we register the OID in the globalOidRegistry, and associates it with the
                 // schema
-                registries.associateWithSchema( errors, schemaObject );
+                Registries clonedRegistries = copyRegistries();
+                clonedRegistries.associateWithSchema( errors, schemaObject );
+                publish( clonedRegistries );
 
                 LOG.debug( "Removed {} from the disabled schema {}", schemaObject.getName(), schemaName );
                 return errors.isEmpty();
@@ -2332,6 +2632,38 @@ public class DefaultSchemaManager implements SchemaManager
     }
 
 
+    /**
+     * @return The number of threads used to load the schemas
+     */
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+
+    /**
+     * Set the number of threads used to load the schemas. If more than 1, the schema
+     * elements are read and created concurrently. Default to 1.
+     *
+     * @param parallelism The number of threads to use
+     */
+    public synchronized void setParallelism( int parallelism )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "The parallelism must be at least 1 : " + parallelism );
+        }
+
+        if ( ( pool != null ) && ( parallelism != this.parallelism ) )
+        {
+            pool.shutdown();
+            pool = null;
+        }
+
+        this.parallelism = parallelism;
+    }
+
+
     /**
      * Tells if the SchemaManager is permissive or if it must be checked
      * against inconsistencies.
@@ -0,0 +1,135 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.schema.loader;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.model.schema.registries.Schema;
+import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+
+/**
+ * Tests the BinarySchemaLoader.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class BinarySchemaLoaderTest
+{
+    /** The LDIF based loader the snapshot is created from */
+    private static JarLdifSchemaLoader jarLoader;
+
+    /** The snapshot of the schemas stored in the jar */
+    private static byte[] snapshot;
+
+
+    @BeforeClass
+    public static void init() throws Exception
+    {
+        jarLoader = new JarLdifSchemaLoader();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySchemaLoader.writeSnapshot( jarLoader, BinarySchemaLoader.computeLdifChecksum(), out );
+        snapshot = out.toByteArray();
+    }
+
+
+    @Test
+    public void testSnapshotContent() throws Exception
+    {
+        BinarySchemaLoader loader = new BinarySchemaLoader( new ByteArrayInputStream( snapshot ) );
+
+        assertEquals( BinarySchemaLoader.computeLdifChecksum(), loader.getChecksum() );
+        assertEquals( jarLoader.getAllSchemas().size(), loader.getAllSchemas().size() );
+
+        for ( Schema schema : jarLoader.getAllSchemas() )
+        {
+            Schema restored = loader.getSchema( schema.getSchemaName() );
+
+            assertEquals( schema.isDisabled(), restored.isDisabled() );
+            assertEquals( schema.getOwner(), restored.getOwner() );
+            assertArrayEquals( schema.getDependencies(), restored.getDependencies() );
+
+            assertEquals( jarLoader.loadAttributeTypes( schema ), loader.loadAttributeTypes( restored ) );
+            assertEquals( jarLoader.loadObjectClasses( schema ), loader.loadObjectClasses( restored ) );
+            assertEquals( jarLoader.loadComparators( schema ), loader.loadComparators( restored ) );
+            assertEquals( jarLoader.loadNormalizers( schema ), loader.loadNormalizers( restored ) );
+            assertEquals( jarLoader.loadSyntaxCheckers( schema ), loader.loadSyntaxCheckers( restored ) );
+            assertEquals( jarLoader.loadSyntaxes( schema ), loader.loadSyntaxes( restored ) );
+            assertEquals( jarLoader.loadMatchingRules( schema ), loader.loadMatchingRules( restored ) );
+        }
+    }
+
+
+    @Test
+    public void testBinarySchemaLoader() throws Exception
+    {
+        BinarySchemaLoader loader = new BinarySchemaLoader( new ByteArrayInputStream( snapshot ) );
+        SchemaManager sm = new DefaultSchemaManager( loader );
+
+        sm.loadWithDeps( "system" );
+
+        assertTrue( sm.getRegistries().getAttributeTypeRegistry().contains( "cn" ) );
+        assertFalse( sm.getRegistries().getAttributeTypeRegistry().contains( "m-aux" ) );
+
+        sm.loadWithDeps( "apachemeta" );
+
+        assertTrue( sm.getRegistries().getAttributeTypeRegistry().contains( "m-aux" ) );
+    }
+
+
+    @Test(expected = IOException.class)
+    public void testInvalidSnapshot() throws Exception
+    {
+        new BinarySchemaLoader( new ByteArrayInputStream( new byte[]
+            { 'L', 'D', 'I', 'F', 0, 0, 0, 1 } ) );
+    }
+
+
+    /**
+     * The build writes the snapshot of the bundled schemas, with the checksum of their LDIF files
+     */
+    @Test
+    public void testBuiltSnapshot() throws Exception
+    {
+        URL url = BinarySchemaLoader.class.getClassLoader().getResource( BinarySchemaLoader.SNAPSHOT_RESOURCE );
+
+        assertNotNull( url );
+
+        BinarySchemaLoader loader = new BinarySchemaLoader( url );
+
+        assertEquals( BinarySchemaLoader.computeLdifChecksum(), loader.getChecksum() );
+        assertNotEquals( 0L, loader.getChecksum() );
+        assertEquals( jarLoader.getAllSchemas().size(), loader.getAllSchemas().size() );
+    }
+}
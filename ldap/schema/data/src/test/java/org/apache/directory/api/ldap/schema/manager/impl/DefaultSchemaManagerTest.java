@@ -20,7 +20,28 @@
 package org.apache.directory.api.ldap.schema.manager.impl;
 
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.directory.api.ldap.model.schema.MutableAttributeType;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
 import org.apache.directory.api.ldap.model.schema.SyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.registries.Registries;
+import org.apache.directory.api.ldap.model.schema.registries.SchemaObjectRegistry;
 import org.junit.Test;
 
 
@@ -48,4 +69,124 @@ public class DefaultSchemaManagerTest
         }
     }
 
+
+    /**
+     * Verifies that loading the schemas with many threads gives the same registries
+     * than a serial load.
+     */
+    @Test
+    public void testParallelLoad() throws Exception
+    {
+        DefaultSchemaManager serial = new DefaultSchemaManager();
+        assertTrue( serial.loadAllEnabled() );
+
+        DefaultSchemaManager parallel = new DefaultSchemaManager();
+        parallel.setParallelism( 4 );
+        assertEquals( 4, parallel.getParallelism() );
+        assertTrue( parallel.loadAllEnabled() );
+        assertTrue( parallel.getErrors().isEmpty() );
+
+        Registries expected = serial.getRegistries();
+        Registries actual = parallel.getRegistries();
+
+        assertEquals( getOids( expected.getComparatorRegistry() ), getOids( actual.getComparatorRegistry() ) );
+        assertEquals( getOids( expected.getNormalizerRegistry() ), getOids( actual.getNormalizerRegistry() ) );
+        assertEquals( getOids( expected.getSyntaxCheckerRegistry() ), getOids( actual.getSyntaxCheckerRegistry() ) );
+        assertEquals( getOids( expected.getLdapSyntaxRegistry() ), getOids( actual.getLdapSyntaxRegistry() ) );
+        assertEquals( getOids( expected.getMatchingRuleRegistry() ), getOids( actual.getMatchingRuleRegistry() ) );
+        assertEquals( getOids( expected.getAttributeTypeRegistry() ), getOids( actual.getAttributeTypeRegistry() ) );
+        assertEquals( getOids( expected.getObjectClassRegistry() ), getOids( actual.getObjectClassRegistry() ) );
+    }
+
+
+    /**
+     * Verifies that the Registries are replaced, and not modified, when adding or
+     * removing a SchemaObject, while other threads are looking up the schema.
+     */
+    @Test
+    public void testConcurrentLookupsDuringUpdates() throws Exception
+    {
+        final DefaultSchemaManager schemaManager = new DefaultSchemaManager();
+        schemaManager.loadAllEnabled();
+
+        final AtomicBoolean done = new AtomicBoolean( false );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        try
+        {
+            List<Future<Integer>> readers = new ArrayList<>();
+
+            for ( int i = 0; i < 4; i++ )
+            {
+                readers.add( executor.submit( new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call() throws Exception
+                    {
+                        int nbLookups = 0;
+
+                        while ( !done.get() )
+                        {
+                            assertEquals( "cn", schemaManager.lookupAttributeTypeRegistry( "2.5.4.3" ).getName() );
+                            assertNotNull( schemaManager.lookupAttributeTypeRegistry( "CommonName" ) );
+                            assertNotNull( schemaManager.lookupObjectClassRegistry( "person" ) );
+                            nbLookups++;
+                        }
+
+                        return nbLookups;
+                    }
+                } ) );
+            }
+
+            for ( int i = 0; i < 20; i++ )
+            {
+                MutableAttributeType attributeType = new MutableAttributeType( "1.3.6.1.4.1.18060.0.4.1.2.999" );
+                attributeType.setNames( "testConcurrentAt" );
+                attributeType.setSyntaxOid( "1.3.6.1.4.1.1466.115.121.1.15" );
+                attributeType.setEqualityOid( "caseIgnoreMatch" );
+                attributeType.setSchemaName( "system" );
+
+                Registries before = schemaManager.getRegistries();
+
+                assertTrue( schemaManager.add( attributeType ) );
+                assertFalse( before.getAttributeTypeRegistry().contains( "testConcurrentAt" ) );
+                assertTrue( schemaManager.getAttributeTypeRegistry().contains( "testConcurrentAt" ) );
+
+                assertTrue( schemaManager.delete( attributeType ) );
+                assertFalse( schemaManager.getAttributeTypeRegistry().contains( "testConcurrentAt" ) );
+            }
+
+            done.set( true );
+
+            for ( Future<Integer> reader : readers )
+            {
+                assertTrue( reader.get() > 0 );
+            }
+        }
+        finally
+        {
+            done.set( true );
+            executor.shutdown();
+        }
+
+        // A failed modification keeps the current Registries
+        Registries registries = schemaManager.getRegistries();
+        assertFalse( schemaManager.delete( schemaManager.lookupAttributeTypeRegistry( "cn" ) ) );
+        assertSame( registries, schemaManager.getRegistries() );
+    }
+
+
+    private static Set<String> getOids( SchemaObjectRegistry<? extends SchemaObject> registry )
+    {
+        Set<String> oids = new HashSet<>();
+
+        Iterator<? extends SchemaObject> iterator = registry.iterator();
+
+        while ( iterator.hasNext() )
+        {
+            oids.add( iterator.next().getOid() );
+        }
+
+        return oids;
+    }
 }
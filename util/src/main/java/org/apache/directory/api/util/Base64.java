@@ -183,6 +183,75 @@ public final class Base64
         return out;
     }
 
+
+    /**
+     * Decodes a part of a BASE-64 encoded byte array, as {@link #decode(char[])}
+     * does, without having to convert it to a char[] first. The non BASE-64
+     * bytes are ignored.
+     * 
+     * @param data the array containing the data to decode.
+     * @param start the position of the first byte to decode
+     * @param end the position following the last byte to decode
+     * @return the decoded binary data.
+     */
+    public static byte[] decode( byte[] data, int start, int end )
+    {
+        int tempLen = 0;
+
+        for ( int i = start; i < end; i++ )
+        {
+            if ( CODES[data[i] & 0xFF] >= 0 )
+            {
+                tempLen++;
+            }
+        }
+
+        int len = ( tempLen / 4 ) * 3;
+
+        if ( ( tempLen % 4 ) == 3 )
+        {
+            len += 2;
+        }
+
+        if ( ( tempLen % 4 ) == 2 )
+        {
+            len += 1;
+        }
+
+        byte[] out = new byte[len];
+
+        // # of excess bits stored in accum excess bits
+        int shift = 0;
+        int accum = 0;
+        int index = 0;
+
+        for ( int i = start; i < end; i++ )
+        {
+            int value = CODES[data[i] & 0xFF];
+
+            // skip over non-code bits 
+            if ( value >= 0 )
+            {
+                accum <<= 6;
+                shift += 6;
+                accum |= value;
+
+                if ( shift >= 8 )
+                {
+                    shift -= 8;
+                    out[index++] = ( byte ) ( ( accum >> shift ) & 0xff );
+                }
+            }
+        }
+
+        if ( index != out.length )
+        {
+            throw new Error( I18n.err( I18n.ERR_04348, index, out.length ) );
+        }
+
+        return out;
+    }
+
     /** code characters for values 0..63 */
     private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/="
         .toCharArray();
@@ -0,0 +1,605 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.api.util;
+
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * <p>
+ * A Map which has a maximum size and removes the Least Recently Used entries when
+ * this size is exceeded. It is a concurrent replacement for {@link SynchronizedLRUMap}.
+ * </p>
+ * <p>
+ * The entries are stored in a ConcurrentHashMap, so a get(Object) never takes any lock.
+ * The accesses are recorded in small per thread buffers instead of reordering the LRU list
+ * immediately. Those buffers are lossy : when they are full, the oldest accesses are
+ * overwritten, which only makes the LRU order approximate for the hottest entries. They
+ * are drained into the LRU list by the thread which fills them, if no other thread is
+ * already holding the lock, and by every thread adding or removing an entry.
+ * </p>
+ * <p>
+ * The modifications take a single lock to maintain the LRU list. The map never holds
+ * more than its maximum size once a put(Object, Object) has returned.
+ * </p>
+ * <p>
+ * This map does not accept null keys nor null values. Its views are backed by the map,
+ * but iterating over them does not modify the LRU order.
+ * </p>
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConcurrentLRUMap<K, V> extends AbstractMap<K, V>
+{
+    /** The default maximum size */
+    public static final int DEFAULT_MAXIMUM_SIZE = 100;
+
+    /** The number of slots in a read buffer. Must be a power of 2 */
+    private static final int BUFFER_SIZE = 32;
+
+    /** The mask used to get a slot in a read buffer */
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+    /** The mask used to decide when a read buffer should be drained */
+    private static final int DRAIN_MASK = ( BUFFER_SIZE / 2 ) - 1;
+
+    /** The stored entries */
+    private final ConcurrentMap<K, Node<K, V>> data;
+
+    /** The lock protecting the LRU list */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /** The read buffers, selected by thread */
+    private final ReadBuffer<K, V>[] readBuffers;
+
+    /** The mask used to select a read buffer */
+    private final int readBuffersMask;
+
+    /** The least recently used entry */
+    private Node<K, V> head;
+
+    /** The most recently used entry */
+    private Node<K, V> tail;
+
+    /** The maximum number of entries */
+    private volatile int maximumSize;
+
+    /** The entry set view */
+    private Set<Map.Entry<K, V>> entrySet;
+
+
+    /**
+     * An entry, linked in the LRU list.
+     */
+    private static final class Node<K, V>
+    {
+        /** The key */
+        private final K key;
+
+        /** The value */
+        private final V value;
+
+        /** The previous, less recently used entry */
+        private Node<K, V> prev;
+
+        /** The next, more recently used entry */
+        private Node<K, V> next;
+
+        /** Tells if the entry is in the LRU list */
+        private boolean linked;
+
+
+        private Node( K key, V value )
+        {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+
+    /**
+     * A lossy buffer of recently read entries.
+     */
+    private static final class ReadBuffer<K, V>
+    {
+        /** The recorded entries */
+        private final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>( BUFFER_SIZE );
+
+        /** The number of recorded reads */
+        private final AtomicLong count = new AtomicLong();
+    }
+
+
+    /**
+     * Creates a new ConcurrentLRUMap holding at most {@link #DEFAULT_MAXIMUM_SIZE} entries.
+     */
+    public ConcurrentLRUMap()
+    {
+        this( DEFAULT_MAXIMUM_SIZE );
+    }
+
+
+    /**
+     * Creates a new ConcurrentLRUMap.
+     *
+     * @param maximumSize The maximum number of entries
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ConcurrentLRUMap( int maximumSize )
+    {
+        if ( maximumSize < 1 )
+        {
+            throw new IllegalArgumentException( "The maximum size must be at least 1 : " + maximumSize );
+        }
+
+        this.maximumSize = maximumSize;
+        data = new ConcurrentHashMap<>( maximumSize );
+
+        int nbBuffers = 1;
+
+        while ( nbBuffers < Runtime.getRuntime().availableProcessors() )
+        {
+            nbBuffers <<= 1;
+        }
+
+        readBuffers = new ReadBuffer[nbBuffers];
+        readBuffersMask = nbBuffers - 1;
+
+        for ( int i = 0; i < nbBuffers; i++ )
+        {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+
+    /**
+     * Get the value for a key. The access is recorded, the key will be promoted to
+     * the Most Recently Used position when the read buffers are drained.
+     *
+     * @param key The key to retrieve
+     * @return The value, or null if the key is not in the map
+     */
+    @Override
+    public V get( Object key )
+    {
+        Node<K, V> node = data.get( key );
+
+        if ( node == null )
+        {
+            return null;
+        }
+
+        recordRead( node );
+
+        return node.value;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey( Object key )
+    {
+        return data.containsKey( key );
+    }
+
+
+    /**
+     * Add or replace an entry, making it the Most Recently Used one. The Least Recently
+     * Used entries are removed if the map exceeds its maximum size.
+     *
+     * @param key The key of the entry to add
+     * @param value The value of the entry to add
+     * @return The former value for this key, or null
+     */
+    @Override
+    public V put( K key, V value )
+    {
+        if ( ( key == null ) || ( value == null ) )
+        {
+            throw new NullPointerException();
+        }
+
+        Node<K, V> node = new Node<>( key, value );
+        Node<K, V> previous = data.put( key, node );
+
+        evictionLock.lock();
+
+        try
+        {
+            // The buffered reads happened before this put
+            drainReadBuffers();
+
+            if ( previous != null )
+            {
+                unlink( previous );
+            }
+
+            // The entry may already have been removed or replaced by another thread
+            if ( data.get( key ) == node )
+            {
+                linkLast( node );
+            }
+
+            evict();
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+
+        if ( previous == null )
+        {
+            return null;
+        }
+
+        return previous.value;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V remove( Object key )
+    {
+        Node<K, V> node = data.remove( key );
+
+        if ( node == null )
+        {
+            return null;
+        }
+
+        unlinkRemoved( node );
+
+        return node.value;
+    }
+
+
+    /**
+     * Remove an entry which has been removed from the map from the LRU list.
+     */
+    private void unlinkRemoved( Node<K, V> node )
+    {
+        evictionLock.lock();
+
+        try
+        {
+            unlink( node );
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        return data.size();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        return data.isEmpty();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        evictionLock.lock();
+
+        try
+        {
+            for ( ReadBuffer<K, V> readBuffer : readBuffers )
+            {
+                for ( int i = 0; i < BUFFER_SIZE; i++ )
+                {
+                    readBuffer.slots.lazySet( i, null );
+                }
+            }
+
+            while ( head != null )
+            {
+                Node<K, V> node = head;
+                unlink( node );
+                data.remove( node.key, node );
+            }
+
+            data.clear();
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        if ( entrySet == null )
+        {
+            entrySet = new EntrySet();
+        }
+
+        return entrySet;
+    }
+
+
+    /**
+     * @return The maximum number of entries
+     */
+    public int getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+
+    /**
+     * Set the maximum number of entries, removing the Least Recently Used entries if
+     * the map is bigger.
+     *
+     * @param maximumSize The new maximum number of entries
+     */
+    public void setMaximumSize( int maximumSize )
+    {
+        if ( maximumSize < 1 )
+        {
+            throw new IllegalArgumentException( "The maximum size must be at least 1 : " + maximumSize );
+        }
+
+        evictionLock.lock();
+
+        try
+        {
+            this.maximumSize = maximumSize;
+            drainReadBuffers();
+            evict();
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+
+    /**
+     * Record an access to an entry in the current thread's read buffer, and drain
+     * the buffer if it is half full and nobody else is holding the lock.
+     */
+    private void recordRead( Node<K, V> node )
+    {
+        ReadBuffer<K, V> readBuffer = readBuffers[( int ) Thread.currentThread().getId() & readBuffersMask];
+        long count = readBuffer.count.getAndIncrement();
+        readBuffer.slots.lazySet( ( int ) count & BUFFER_MASK, node );
+
+        if ( ( ( count & DRAIN_MASK ) == DRAIN_MASK ) && evictionLock.tryLock() )
+        {
+            try
+            {
+                drainReadBuffers();
+            }
+            finally
+            {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+
+    /**
+     * Move the recently read entries to the end of the LRU list. Must be called with
+     * the lock held.
+     */
+    private void drainReadBuffers()
+    {
+        for ( ReadBuffer<K, V> readBuffer : readBuffers )
+        {
+            for ( int i = 0; i < BUFFER_SIZE; i++ )
+            {
+                Node<K, V> node = readBuffer.slots.get( i );
+
+                if ( ( node != null ) && readBuffer.slots.compareAndSet( i, node, null ) && node.linked )
+                {
+                    unlink( node );
+                    linkLast( node );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Remove the Least Recently Used entries until the map fits its maximum size. Must
+     * be called with the lock held.
+     */
+    private void evict()
+    {
+        while ( ( data.size() > maximumSize ) && ( head != null ) )
+        {
+            Node<K, V> node = head;
+            unlink( node );
+            data.remove( node.key, node );
+        }
+    }
+
+
+    /**
+     * Add an entry at the end of the LRU list. Must be called with the lock held.
+     */
+    private void linkLast( Node<K, V> node )
+    {
+        node.prev = tail;
+        node.next = null;
+        node.linked = true;
+
+        if ( tail == null )
+        {
+            head = node;
+        }
+        else
+        {
+            tail.next = node;
+        }
+
+        tail = node;
+    }
+
+
+    /**
+     * Remove an entry from the LRU list, if it's linked. Must be called with the lock held.
+     */
+    private void unlink( Node<K, V> node )
+    {
+        if ( !node.linked )
+        {
+            return;
+        }
+
+        if ( node.prev == null )
+        {
+            head = node.next;
+        }
+        else
+        {
+            node.prev.next = node.next;
+        }
+
+        if ( node.next == null )
+        {
+            tail = node.prev;
+        }
+        else
+        {
+            node.next.prev = node.prev;
+        }
+
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+    }
+
+
+    /**
+     * The entries view, backed by the map.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>>
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator()
+        {
+            final Iterator<Node<K, V>> nodes = data.values().iterator();
+
+            return new Iterator<Map.Entry<K, V>>()
+            {
+                /** The last returned entry */
+                private Node<K, V> current;
+
+
+                @Override
+                public boolean hasNext()
+                {
+                    return nodes.hasNext();
+                }
+
+
+                @Override
+                public Map.Entry<K, V> next()
+                {
+                    current = nodes.next();
+
+                    return new AbstractMap.SimpleImmutableEntry<>( current.key, current.value );
+                }
+
+
+                @Override
+                public void remove()
+                {
+                    if ( current == null )
+                    {
+                        throw new IllegalStateException();
+                    }
+
+                    // Don't remove the entry if it has been replaced since
+                    if ( data.remove( current.key, current ) )
+                    {
+                        unlinkRemoved( current );
+                    }
+
+                    current = null;
+                }
+            };
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size()
+        {
+            return data.size();
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void clear()
+        {
+            ConcurrentLRUMap.this.clear();
+        }
+    }
+}
@@ -41,6 +41,10 @@ import java.io.Externalizable;
  * list. LRUMap is now a subclass of SequencedHashMap, and the "LRU" key is now
  * equivalent to LRUMap.getFirst().
  * </p>
+ * <p>
+ * Every get(Object) has to reorder the list while holding the map's lock. When the
+ * map is read concurrently by many threads, use a {@link ConcurrentLRUMap} instead.
+ * </p>
  * 
  * @since Commons Collections 1.0
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
@@ -0,0 +1,217 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.util;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the ConcurrentLRUMap class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConcurrentLRUMapTest
+{
+    @Test
+    public void testPutGetRemove()
+    {
+        Map<String, Integer> map = new ConcurrentLRUMap<>( 10 );
+
+        assertTrue( map.isEmpty() );
+        assertNull( map.put( "a", 1 ) );
+        assertEquals( Integer.valueOf( 1 ), map.put( "a", 2 ) );
+        assertEquals( Integer.valueOf( 2 ), map.get( "a" ) );
+        assertTrue( map.containsKey( "a" ) );
+        assertEquals( 1, map.size() );
+
+        assertEquals( Integer.valueOf( 2 ), map.remove( "a" ) );
+        assertNull( map.remove( "a" ) );
+        assertNull( map.get( "a" ) );
+        assertTrue( map.isEmpty() );
+    }
+
+
+    @Test
+    public void testEvictLeastRecentlyUsed()
+    {
+        Map<String, Integer> map = new ConcurrentLRUMap<>( 3 );
+
+        map.put( "a", 1 );
+        map.put( "b", 2 );
+        map.put( "c", 3 );
+
+        // a is now more recently used than b
+        map.get( "a" );
+        map.put( "d", 4 );
+
+        assertEquals( 3, map.size() );
+        assertFalse( map.containsKey( "b" ) );
+        assertTrue( map.containsKey( "a" ) );
+        assertTrue( map.containsKey( "c" ) );
+        assertTrue( map.containsKey( "d" ) );
+
+        // Replacing a value makes it the most recently used
+        map.put( "c", 30 );
+        map.put( "e", 5 );
+
+        assertFalse( map.containsKey( "a" ) );
+        assertEquals( Integer.valueOf( 30 ), map.get( "c" ) );
+    }
+
+
+    @Test
+    public void testSetMaximumSize()
+    {
+        ConcurrentLRUMap<Integer, Integer> map = new ConcurrentLRUMap<>( 10 );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            map.put( i, i );
+        }
+
+        map.setMaximumSize( 5 );
+
+        assertEquals( 5, map.getMaximumSize() );
+        assertEquals( 5, map.size() );
+        assertFalse( map.containsKey( 4 ) );
+        assertTrue( map.containsKey( 5 ) );
+    }
+
+
+    @Test
+    public void testEntrySet()
+    {
+        Map<Integer, Integer> map = new ConcurrentLRUMap<>( 10 );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            map.put( i, i * 10 );
+        }
+
+        assertEquals( 5, map.entrySet().size() );
+
+        Iterator<Map.Entry<Integer, Integer>> iterator = map.entrySet().iterator();
+
+        while ( iterator.hasNext() )
+        {
+            Map.Entry<Integer, Integer> entry = iterator.next();
+            assertEquals( entry.getKey() * 10, entry.getValue().intValue() );
+
+            if ( entry.getKey() % 2 == 0 )
+            {
+                iterator.remove();
+            }
+        }
+
+        assertEquals( 2, map.size() );
+
+        map.clear();
+
+        assertTrue( map.isEmpty() );
+        assertNull( map.put( 1, 1 ) );
+        assertEquals( 1, map.size() );
+    }
+
+
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+        final ConcurrentLRUMap<Integer, Integer> map = new ConcurrentLRUMap<>( 100 );
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<>();
+
+            for ( int t = 0; t < 8; t++ )
+            {
+                final int seed = t;
+
+                futures.add( executor.submit( new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                    {
+                        for ( int i = 0; i < 100000; i++ )
+                        {
+                            Integer key = ( i * 31 + seed ) % 500;
+                            Integer value = map.get( key );
+
+                            if ( value == null )
+                            {
+                                map.put( key, key );
+                            }
+                            else
+                            {
+                                assertEquals( key, value );
+                            }
+
+                            if ( i % 1000 == 0 )
+                            {
+                                map.remove( key );
+                            }
+                        }
+
+                        return null;
+                    }
+                } ) );
+            }
+
+            for ( Future<Void> future : futures )
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertTrue( map.size() <= 100 );
+
+        // The LRU list is still consistent : filling the map evicts every older entry
+        for ( int i = 1000; i < 1100; i++ )
+        {
+            map.put( i, i );
+        }
+
+        assertEquals( 100, map.size() );
+
+        for ( int i = 1000; i < 1100; i++ )
+        {
+            assertEquals( Integer.valueOf( i ), map.get( i ) );
+        }
+    }
+}